@@ -1,37 +1,40 @@
 package account_manager;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.Closeable;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
 
-public class AuthenticationSystem {
+import reminder_storage.AccountDirectory;
+
+// The users are looked up in the hash index of the accounts file (see
+// UserIndexFile), they are not loaded in memory. The accounts file is still
+// appended on every registration, the index is rebuilt from it when needed.
+public class AuthenticationSystem implements Closeable {
+	public static final String DEFAULT_USERS_PATH = "src/resources/user-accounts.txt";
+
 	private String usersPath;
+	// Where the reminders of the new users are created
+	private String accountsDirectory;
 
-	// username and hashed password of users
-	Map<String, String> users = new HashMap<>();
+	// email and hashed password of users
+	private UserIndexFile users;
 
 	// The file should be csv
 	public AuthenticationSystem() {
-		this.usersPath = "src/resources/user-accounts.txt";
-
-		try {
-			loadUsers();
-		} catch (IOException e) {
-			e.printStackTrace();
-		} catch (Exception e) {
-			System.out.println(e.getMessage());
-		}
+		this(DEFAULT_USERS_PATH);
 	}
 
 	public AuthenticationSystem(String userPath) {
+		this(userPath, AccountDirectory.DEFAULT_ROOT);
+	}
+
+	public AuthenticationSystem(String userPath, String accountsDirectory) {
 		this.usersPath = userPath;
+		this.accountsDirectory = accountsDirectory;
 
 		try {
 			loadUsers();
@@ -42,15 +45,21 @@ public class AuthenticationSystem {
 		}
 	}
 
-	public boolean register(String email, String password) {
+	// An invalid email isn't registered either, see isValidEmail()
+	public synchronized boolean register(String email, String password) {
 		// Successfull registration
-		if (!users.containsKey(email)) {
+		if (users != null && isValidEmail(email) && !users.contains(email)) {
 			try {
 				// Making the password hashed
 				String hashedPassword = getHashedPassword(password);
 
 				// Saving files for users
 				saveUsers(email, hashedPassword);
+
+				// The index knows the user right away, the same email can't register twice
+				users.put(email, hashedPassword);
+				users.setIndexedTextLength(Files.size(Paths.get(usersPath)));
+				users.force();
 				return true;
 			} catch (IOException e) {
 				e.printStackTrace();
@@ -61,45 +70,83 @@ public class AuthenticationSystem {
 		return false;
 	}
 
+	// The accounts file has a "email, hashed password" line per user. An email
+	// with a line break or ", " would add a line of another user, so it has to be
+	// one line without control characters, the separator, or spaces around it.
+	public static boolean isValidEmail(String email) {
+		if (email == null || email.isEmpty() || !email.equals(email.trim()) || email.contains(", ")) {
+			return false;
+		}
+
+		for (int i = 0; i < email.length(); i++) {
+			if (Character.isISOControl(email.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	// TO DO: CONTINUE
 	public boolean login(String email, String password) {
-		String hashedPassword = getHashedPassword(password);
+		return loginHashed(email, hashPassword(password));
+	}
+
+	// The password has been hashed already (ex. by the LoginService), only the
+	// lookup needs the lock
+	public synchronized boolean loginHashed(String email, String hashedPassword) {
+		if (users == null) {
+			return false;
+		}
 
-		return hashedPassword.equals(users.get(email));
+		return hashedPassword.equals(users.getHashedPassword(email));
 	}
 
-	private void loadUsers() throws IOException, Exception {
-		try (BufferedReader br = new BufferedReader(new FileReader(usersPath))) {
-			String line;
-			while ((line = br.readLine()) != null) {
-				// parts[0] is username and parts[1] is password
-				String parts[] = line.trim().split(", ");
-
-				// for double checking
-				if (parts.length == 2) {
-					users.put(parts[0], parts[1]);
-				} else {
-					throw new IOException(
-							"Check users file if it's csv, and it must contain only username and hashed password!");
-				}
+	// Doesn't use the users, it is safe from any thread
+	public String hashPassword(String plainPassword) {
+		return getHashedPassword(plainPassword);
+	}
+
+	// Number of registered users
+	public synchronized int getUserCount() {
+		return users == null ? 0 : users.size();
+	}
+
+	// Next email of the accounts file ("email, hashed password" lines), null at
+	// the end. For the tools that go through every user (ex. ReminderBulkTool).
+	public static String readEmail(BufferedReader users) throws IOException {
+		String line;
+		while ((line = users.readLine()) != null) {
+			line = line.trim();
+			if (!line.isEmpty()) {
+				int separator = line.indexOf(", ");
+				return separator < 0 ? line : line.substring(0, separator);
 			}
+		}
+		return null;
+	}
 
+	// Closes the index file
+	@Override
+	public synchronized void close() throws IOException {
+		if (users != null) {
+			users.close();
+			users = null;
 		}
 	}
 
+	// The index is created from the accounts file the first time (migration)
+	private void loadUsers() throws IOException, Exception {
+		users = UserIndexFile.open(Paths.get(usersPath));
+	}
+
 	private void saveUsers(String email, String hashedPassword) throws IOException {
 		try (FileWriter userAccountsFile = new FileWriter(usersPath, true)) {
 			// Appending the new user to the accounts file
 			userAccountsFile.append("\n" + String.format("%s, %s", email, hashedPassword));
 		}
 
-		// Creating user database
-		Path userNewPath = Paths.get(String.format("src/resources/individual-accounts/%s.txt", email));
-
-		// For double checking
-		if (!Files.exists(userNewPath)) {
-			Files.createFile(userNewPath);
-		}
+		// Creating user database, only if the user doesn't have one (double checking)
+		AccountDirectory.of(accountsDirectory).createAccount(email);
 	}
 
 	private String getHashedPassword(String plainPassword) {
@@ -0,0 +1,84 @@
+package account_manager;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Asynchronous logins on top of the AuthenticationSystem.
+// Hashing the password is the expensive part of a login, it runs on its own
+// fixed pool of threads so it can't take every thread of the caller (ex. the
+// server). The waiting logins are in a bounded queue, when it is full the new
+// login fails right away with a RejectedExecutionException (back-pressure).
+// A successful login creates a session, the next requests only check the token.
+public class LoginService implements Closeable {
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private final AuthenticationSystem auth;
+	private final SessionCache sessions;
+	private final ThreadPoolExecutor hashingExecutor;
+
+	public LoginService(AuthenticationSystem auth) {
+		this(auth, new SessionCache(), Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+	}
+
+	public LoginService(AuthenticationSystem auth, SessionCache sessions, int hashingThreads, int queueCapacity) {
+		this.auth = auth;
+		this.sessions = sessions;
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.hashingExecutor = new ThreadPoolExecutor(hashingThreads, hashingThreads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "login-hashing-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	// Completes with the session token, or null if the email or password is wrong
+	public CompletableFuture<String> login(String email, String password) {
+		CompletableFuture<String> token = new CompletableFuture<>();
+
+		try {
+			hashingExecutor.execute(() -> {
+				try {
+					String hashedPassword = auth.hashPassword(password);
+					token.complete(auth.loginHashed(email, hashedPassword) ? sessions.create(email) : null);
+				} catch (RuntimeException e) {
+					token.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			token.completeExceptionally(e);
+		}
+
+		return token;
+	}
+
+	// The email of the session, null if the token is unknown or expired
+	public String getEmail(String token) {
+		return sessions.getEmail(token);
+	}
+
+	public boolean logout(String token) {
+		return sessions.invalidate(token);
+	}
+
+	public SessionCache getSessions() {
+		return sessions;
+	}
+
+	// Logins waiting for a hashing thread
+	public int getQueuedLogins() {
+		return hashingExecutor.getQueue().size();
+	}
+
+	// The queued logins are still completed
+	@Override
+	public void close() {
+		hashingExecutor.shutdown();
+	}
+}
@@ -0,0 +1,123 @@
+package account_manager;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+// Session tokens of the logged in users. A token stays valid while it is used,
+// it expires after the time to live without any use. Checking a token is a map
+// lookup, the password isn't hashed again.
+// The expired sessions are removed when they are used, and by a sweep that
+// runs with the new sessions at most every quarter of the time to live.
+public class SessionCache {
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(30);
+
+	private static final class Session {
+		private final String email;
+		private volatile long expiresAt;
+
+		private Session(String email, long expiresAt) {
+			this.email = email;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+	private final Clock clock;
+	private final long timeToLiveMillis;
+	private final SecureRandom random = new SecureRandom();
+	private volatile long nextSweep;
+
+	// Called with the token and the email of every expired session
+	private volatile BiConsumer<String, String> expirationListener = (token, email) -> {
+	};
+
+	public SessionCache() {
+		this(DEFAULT_TIME_TO_LIVE, Clock.systemUTC());
+	}
+
+	public SessionCache(Duration timeToLive, Clock clock) {
+		if (timeToLive.toMillis() <= 0) {
+			throw new IllegalArgumentException("The time to live should be at least one millisecond");
+		}
+
+		this.clock = clock;
+		this.timeToLiveMillis = timeToLive.toMillis();
+		this.nextSweep = clock.millis() + timeToLiveMillis / 4;
+	}
+
+	// Returns the new token
+	public String create(String email) {
+		sweepIfDue();
+
+		byte[] tokenBytes = new byte[24];
+		random.nextBytes(tokenBytes);
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+
+		sessions.put(token, new Session(email, clock.millis() + timeToLiveMillis));
+		return token;
+	}
+
+	// The email of the session, null if the token is unknown or expired.
+	// Using the token extends it.
+	public String getEmail(String token) {
+		Session session = token == null ? null : sessions.get(token);
+		if (session == null) {
+			return null;
+		}
+
+		long now = clock.millis();
+		if (now >= session.expiresAt) {
+			expire(token, session);
+			return null;
+		}
+
+		session.expiresAt = now + timeToLiveMillis;
+		return session.email;
+	}
+
+	// Returns false if the token was unknown
+	public boolean invalidate(String token) {
+		return token != null && sessions.remove(token) != null;
+	}
+
+	public void setExpirationListener(BiConsumer<String, String> expirationListener) {
+		this.expirationListener = expirationListener;
+	}
+
+	// Removes every expired session
+	public void sweep() {
+		long now = clock.millis();
+		nextSweep = now + timeToLiveMillis / 4;
+
+		Iterator<Map.Entry<String, Session>> iterator = sessions.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, Session> entry = iterator.next();
+			if (now >= entry.getValue().expiresAt) {
+				expire(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	public int size() {
+		return sessions.size();
+	}
+
+	private void sweepIfDue() {
+		if (clock.millis() >= nextSweep) {
+			sweep();
+		}
+	}
+
+	// Only the thread that removes the session calls the listener
+	private void expire(String token, Session session) {
+		if (sessions.remove(token, session)) {
+			expirationListener.accept(token, session.email);
+		}
+	}
+}
@@ -0,0 +1,369 @@
+package account_manager;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Hash index of the user accounts in a memory mapped file, next to the accounts
+// text file. Login and register only touch the slots they probe, the users are
+// not loaded in memory.
+//
+// int   magic "RWUI"
+// short version
+// short reserved
+// int   capacity, number of slots (power of two)
+// int   count of users
+// long  end of the records
+// long  length of the accounts text file when it was last indexed
+// slots [capacity] : long record offset + 1 (0 is an empty slot), long hash of the email
+// records          : short email length, email, short password length, hashed password (UTF-8)
+//
+// Open addressing with linear probing, the hash is in the slot so most of the
+// probes doesn't read the record. The record offsets are relative to the end
+// of the slots, growing the slots copies the records as they are.
+// The text file stays the source of truth, the index is rebuilt from it when
+// it is missing or doesn't match its length (ex. the text has been edited).
+class UserIndexFile implements Closeable {
+	private static final int MAGIC = 0x52575549;
+	private static final short VERSION = 1;
+
+	private static final int HEADER_BYTES = 4 + 2 + 2 + 4 + 4 + 8 + 8;
+	private static final int SLOT_BYTES = 16;
+	private static final int MIN_CAPACITY = 1024;
+
+	// Offsets in the header
+	private static final int CAPACITY_AT = 8;
+	private static final int COUNT_AT = 12;
+	private static final int RECORDS_END_AT = 16;
+	private static final int TEXT_LENGTH_AT = 24;
+
+	private final Path path;
+	private RandomAccessFile file;
+	private MappedByteBuffer map;
+
+	private int capacity;
+	private int mask;
+	private int count;
+	private long recordsEnd;
+	private long recordsStart;
+
+	private UserIndexFile(Path path) throws IOException {
+		this.path = path;
+		file = new RandomAccessFile(path.toFile(), "rw");
+		remap(file.length());
+
+		if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC || map.getShort(4) != VERSION
+				|| Integer.bitCount(map.getInt(CAPACITY_AT)) != 1) {
+			close();
+			throw new IOException("Not a user index file: " + path);
+		}
+
+		capacity = map.getInt(CAPACITY_AT);
+		mask = capacity - 1;
+		count = map.getInt(COUNT_AT);
+		recordsEnd = map.getLong(RECORDS_END_AT);
+		recordsStart = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+	}
+
+	// Opens the index of the text file, it is created or rebuilt if needed
+	static UserIndexFile open(Path textPath) throws IOException {
+		Path indexPath = indexPathOf(textPath);
+		long textLength = Files.exists(textPath) ? Files.size(textPath) : 0;
+
+		if (Files.exists(indexPath)) {
+			try {
+				UserIndexFile index = new UserIndexFile(indexPath);
+				if (index.getIndexedTextLength() == textLength) {
+					return index;
+				}
+				index.close();
+			} catch (IOException e) {
+				// Corrupted, it is rebuilt from the text file below
+			}
+		}
+
+		rebuild(textPath, indexPath, textLength);
+		return new UserIndexFile(indexPath);
+	}
+
+	// user-accounts.txt -> user-accounts.idx
+	static Path indexPathOf(Path textPath) {
+		String fileName = textPath.getFileName().toString();
+		int extension = fileName.lastIndexOf('.');
+		return textPath.resolveSibling((extension > 0 ? fileName.substring(0, extension) : fileName) + ".idx");
+	}
+
+	// Null if the email isn't registered
+	String getHashedPassword(String email) {
+		int slot = find(email.getBytes(StandardCharsets.UTF_8));
+		if (slot < 0) {
+			return null;
+		}
+
+		int record = recordPosition(slot);
+		int passwordAt = record + 2 + map.getShort(record);
+		byte[] password = new byte[map.getShort(passwordAt)];
+		map.get(passwordAt + 2, password);
+		return new String(password, StandardCharsets.UTF_8);
+	}
+
+	boolean contains(String email) {
+		return find(email.getBytes(StandardCharsets.UTF_8)) >= 0;
+	}
+
+	// Adds the user, or replaces the password of a registered email
+	void put(String email, String hashedPassword) throws IOException {
+		byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+		byte[] passwordBytes = hashedPassword.getBytes(StandardCharsets.UTF_8);
+		if (emailBytes.length > Short.MAX_VALUE || passwordBytes.length > Short.MAX_VALUE) {
+			throw new IOException("Email or password is too long: " + email);
+		}
+
+		int slot = find(emailBytes);
+		if (slot < 0 && (count + 1) * 2L > capacity) {
+			// Load factor of 0.5, the probes stay short
+			grow();
+			slot = find(emailBytes);
+		}
+
+		long record = appendRecord(emailBytes, passwordBytes);
+		if (slot >= 0) {
+			map.putLong(slotPosition(slot), record + 1);
+		} else {
+			slot = -slot - 1;
+			map.putLong(slotPosition(slot), record + 1);
+			map.putLong(slotPosition(slot) + 8, hash(emailBytes));
+			map.putInt(COUNT_AT, ++count);
+		}
+	}
+
+	int size() {
+		return count;
+	}
+
+	long getIndexedTextLength() {
+		return map.getLong(TEXT_LENGTH_AT);
+	}
+
+	void setIndexedTextLength(long textLength) {
+		map.putLong(TEXT_LENGTH_AT, textLength);
+	}
+
+	// Writes the modified pages to the disk
+	void force() {
+		map.force();
+	}
+
+	@Override
+	public void close() throws IOException {
+		map = null;
+		if (file != null) {
+			file.close();
+			file = null;
+		}
+	}
+
+	// Index of the slot of the email, or -(empty slot + 1) where it would be added
+	private int find(byte[] emailBytes) {
+		long hash = hash(emailBytes);
+
+		for (int slot = (int) (hash ^ (hash >>> 32)) & mask;; slot = (slot + 1) & mask) {
+			int at = slotPosition(slot);
+			long offset = map.getLong(at);
+			if (offset == 0) {
+				return -slot - 1;
+			}
+
+			if (map.getLong(at + 8) == hash && emailEquals(recordPosition(slot), emailBytes)) {
+				return slot;
+			}
+		}
+	}
+
+	private boolean emailEquals(int record, byte[] emailBytes) {
+		if (map.getShort(record) != emailBytes.length) {
+			return false;
+		}
+
+		for (int i = 0; i < emailBytes.length; i++) {
+			if (map.get(record + 2 + i) != emailBytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long appendRecord(byte[] emailBytes, byte[] passwordBytes) throws IOException {
+		long record = recordsEnd;
+		int length = 2 + emailBytes.length + 2 + passwordBytes.length;
+		ensureMapped(recordsStart + record + length);
+
+		int at = (int) (recordsStart + record);
+		map.putShort(at, (short) emailBytes.length);
+		map.put(at + 2, emailBytes);
+		map.putShort(at + 2 + emailBytes.length, (short) passwordBytes.length);
+		map.put(at + 4 + emailBytes.length, passwordBytes);
+
+		recordsEnd += length;
+		map.putLong(RECORDS_END_AT, recordsEnd);
+		return record;
+	}
+
+	// The file grows by doubling, the end of the records is in the header
+	private void ensureMapped(long needed) throws IOException {
+		if (needed <= map.capacity()) {
+			return;
+		}
+		if (needed > Integer.MAX_VALUE) {
+			throw new IOException("User index is full: " + path);
+		}
+
+		long length = Math.min(Integer.MAX_VALUE, Math.max(needed, (long) map.capacity() * 2));
+		file.setLength(length);
+		remap(length);
+	}
+
+	private void remap(long length) throws IOException {
+		map = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+	}
+
+	// Doubles the slots in place. The records are moved after the new slots, the
+	// slots are read first, then added again.
+	// The indexed length is invalid meanwhile, an interrupted growth is rebuilt
+	// from the text file on the next open.
+	private void grow() throws IOException {
+		long textLength = getIndexedTextLength();
+		setIndexedTextLength(-1);
+		force();
+
+		long[] offsets = new long[count];
+		long[] hashes = new long[count];
+		int used = 0;
+		for (int slot = 0; slot < capacity; slot++) {
+			long offset = map.getLong(slotPosition(slot));
+			if (offset != 0) {
+				offsets[used] = offset;
+				hashes[used++] = map.getLong(slotPosition(slot) + 8);
+			}
+		}
+
+		int newCapacity = capacity * 2;
+		long newRecordsStart = HEADER_BYTES + (long) newCapacity * SLOT_BYTES;
+		ensureMapped(newRecordsStart + recordsEnd);
+
+		// From the end, the new place of the records overlaps the old one
+		byte[] chunk = new byte[64 * 1024];
+		for (long end = recordsEnd; end > 0;) {
+			int length = (int) Math.min(chunk.length, end);
+			end -= length;
+			map.get((int) (recordsStart + end), chunk, 0, length);
+			map.put((int) (newRecordsStart + end), chunk, 0, length);
+		}
+
+		for (int at = HEADER_BYTES; at < newRecordsStart; at += 8) {
+			map.putLong(at, 0);
+		}
+
+		capacity = newCapacity;
+		mask = capacity - 1;
+		recordsStart = newRecordsStart;
+		for (int i = 0; i < used; i++) {
+			int slot = (int) (hashes[i] ^ (hashes[i] >>> 32)) & mask;
+			while (map.getLong(slotPosition(slot)) != 0) {
+				slot = (slot + 1) & mask;
+			}
+			map.putLong(slotPosition(slot), offsets[i]);
+			map.putLong(slotPosition(slot) + 8, hashes[i]);
+		}
+
+		map.putInt(CAPACITY_AT, capacity);
+		setIndexedTextLength(textLength);
+		force();
+	}
+
+	private int slotPosition(int slot) {
+		return HEADER_BYTES + slot * SLOT_BYTES;
+	}
+
+	private int recordPosition(int slot) {
+		return (int) (recordsStart + map.getLong(slotPosition(slot)) - 1);
+	}
+
+	// Migrating the text file, the new index replaces the old one at once
+	private static void rebuild(Path textPath, Path indexPath, long textLength) throws IOException {
+		Path temporary = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+
+		try (RandomAccessFile created = new RandomAccessFile(temporary.toFile(), "rw")) {
+			// Sized for the lines of the text file (at least 16 bytes each), so it
+			// doesn't grow while migrating
+			int capacity = MIN_CAPACITY;
+			while (capacity < textLength / 16 * 2 && capacity < (1 << 26)) {
+				capacity <<= 1;
+			}
+			long length = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+			created.setLength(length);
+			writeHeader(created.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length), capacity, 0, 0, 0);
+		}
+
+		UserIndexFile index = new UserIndexFile(temporary);
+		try {
+			if (Files.exists(textPath)) {
+				try (BufferedReader br = new BufferedReader(new FileReader(textPath.toFile()))) {
+					String line;
+					while ((line = br.readLine()) != null) {
+						line = line.trim();
+						if (line.isEmpty()) {
+							continue;
+						}
+
+						// parts[0] is username and parts[1] is password
+						String parts[] = line.split(", ");
+						if (parts.length != 2) {
+							throw new IOException(
+									"Check users file if it's csv, and it must contain only username and hashed password!");
+						}
+
+						// If the email is there twice, the last one wins like the old HashMap
+						index.put(parts[0], parts[1]);
+					}
+				}
+			}
+
+			index.setIndexedTextLength(textLength);
+			index.force();
+		} finally {
+			index.close();
+		}
+
+		Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeHeader(MappedByteBuffer header, int capacity, int count, long recordsEnd,
+			long textLength) {
+		header.putInt(0, MAGIC);
+		header.putShort(4, VERSION);
+		header.putShort(6, (short) 0);
+		header.putInt(CAPACITY_AT, capacity);
+		header.putInt(COUNT_AT, count);
+		header.putLong(RECORDS_END_AT, recordsEnd);
+		header.putLong(TEXT_LENGTH_AT, textLength);
+	}
+
+	// 64-bit FNV-1a of the UTF-8 email
+	private static long hash(byte[] bytes) {
+		long hash = 0xCBF29CE484222325L;
+		for (byte b : bytes) {
+			hash ^= b & 0xFF;
+			hash *= 0x100000001B3L;
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,81 @@
+package reminder_app;
+
+import java.time.LocalDate;
+
+// Flyweight view of a reminder of a CompactReminderStore, it only knows the id
+// and where the values are. The getters and the setters go to the arrays of
+// the store. The view finds the reminder again when the store moves it, using
+// it after the reminder has been removed throws an IllegalStateException.
+class CompactReminder extends Reminder {
+	private final CompactReminderStore store;
+
+	// Where the reminder was the last time, checked against the id on every use
+	private int slot;
+
+	CompactReminder(CompactReminderStore store, long id, int slot) {
+		super(id, null, null, null, false);
+		this.store = store;
+		this.slot = slot;
+	}
+
+	// For reusing one view while scanning (ex. testing the filters)
+	void moveTo(long id, int slot) {
+		setId(id);
+		this.slot = slot;
+	}
+
+	@Override
+	public LocalDate getDate() {
+		return store.dueDate(slot());
+	}
+
+	@Override
+	public void setDueDate(LocalDate date) {
+		store.setDueDate(slot(), date);
+	}
+
+	@Override
+	public Priority getPriority() {
+		return store.priority(slot());
+	}
+
+	@Override
+	public void setPriority(Priority priority) {
+		store.setPriority(slot(), priority);
+	}
+
+	@Override
+	public String getMessage() {
+		return store.message(slot());
+	}
+
+	@Override
+	public void setMessage(String message) {
+		store.setMessage(slot(), message);
+	}
+
+	@Override
+	public boolean isCompleted() {
+		return store.isCompleted(slot());
+	}
+
+	@Override
+	public void setCompleted(boolean isCompleted) {
+		store.setCompleted(slot(), isCompleted);
+	}
+
+	@Override
+	public Recurrence getRecurrence() {
+		return store.recurrence(slot());
+	}
+
+	@Override
+	public void setRecurrence(Recurrence recurrence) {
+		store.setRecurrence(slot(), recurrence);
+	}
+
+	private int slot() {
+		slot = store.slotOf(getId(), slot);
+		return slot;
+	}
+}
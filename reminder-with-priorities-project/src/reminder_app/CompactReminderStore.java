@@ -0,0 +1,644 @@
+package reminder_app;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Reminders of one user as columns of primitive arrays (struct of arrays)
+// instead of one object per reminder:
+// - ids in a long[], due dates as epoch days in an int[], priorities in a byte[]
+// - completion in a bitset
+// - the messages in one shared char[], with an offset and a length per reminder
+// - the recurrences in a map by id, only the recurring reminders have one
+// A reminder takes ~21 bytes plus its message, instead of the Reminder, its
+// LocalDate, its String and the entries of the indexes.
+//
+// The Reminder objects are CompactReminder views created when they are asked
+// for. There isn't an index by due date, the queries scan the arrays, which is
+// sequential and cheap up to a lot of reminders.
+//
+// The slots are in insertion order, a reminder with a changed priority is moved
+// to the end like in the ReminderIndex. The removed slots and the replaced
+// messages are reclaimed when they are more than the live ones.
+class CompactReminderStore implements ReminderStore {
+	private static final int MIN_CAPACITY = 16;
+	private static final int MIN_MESSAGES_CAPACITY = 256;
+	private static final byte REMOVED = -1;
+	private static final int MAX_COUNTING_DAYS = 1 << 16;
+	private static final Priority[] PRIORITIES = Priority.values();
+
+	private long[] ids = new long[MIN_CAPACITY];
+	private int[] dueDays = new int[MIN_CAPACITY];
+	private byte[] priorities = new byte[MIN_CAPACITY];
+	private long[] completedBits = new long[bitWords(MIN_CAPACITY)];
+	private int[] messageOffsets = new int[MIN_CAPACITY];
+	private int[] messageLengths = new int[MIN_CAPACITY];
+
+	// Slots in use, with the removed ones
+	private int end;
+	private int size;
+	private final int[] priorityCounts = new int[PRIORITIES.length];
+
+	// The messages one after another, the replaced and removed ones are garbage
+	private char[] messages = new char[MIN_MESSAGES_CAPACITY];
+	private int messagesEnd;
+	private int messagesGarbage;
+
+	// Slot of every id
+	private final LongIntHashMap slots = new LongIntHashMap();
+
+	// Recurrence of the recurring reminders, by id
+	private final LongHashMap<Recurrence> recurrences = new LongHashMap<>();
+
+	@Override
+	public Reminder add(Reminder reminder) {
+		ensureCapacity(end + 1);
+
+		int slot = end++;
+		long id = reminder.getId();
+		ids[slot] = id;
+		dueDays[slot] = epochDay(reminder.getDate());
+		priorities[slot] = (byte) reminder.getPriority().ordinal();
+		writeCompleted(slot, reminder.isCompleted());
+		messageOffsets[slot] = messagesEnd;
+		messageLengths[slot] = 0;
+		writeMessage(slot, reminder.getMessage());
+		if (reminder.isRecurring()) {
+			recurrences.put(id, reminder.getRecurrence());
+		}
+
+		slots.put(id, slot);
+		priorityCounts[priorities[slot]]++;
+		size++;
+		return new CompactReminder(this, id, slot);
+	}
+
+	@Override
+	public Reminder remove(Reminder reminder) {
+		int slot = slots.get(reminder.getId());
+		if (slot < 0) {
+			return null;
+		}
+
+		Reminder removed = detached(slot);
+		free(slot);
+		reclaim();
+		return removed;
+	}
+
+	@Override
+	public List<Reminder> removeIf(Predicate<? super Reminder> filter) {
+		List<Reminder> removed = new ArrayList<>();
+		CompactReminder cursor = new CompactReminder(this, 0, 0);
+
+		for (Priority priority : ReminderIndex.PRIORITY_ORDER) {
+			byte ordinal = (byte) priority.ordinal();
+			for (int slot = 0; slot < end; slot++) {
+				if (priorities[slot] == ordinal && test(filter, cursor, slot)) {
+					removed.add(detached(slot));
+					free(slot);
+				}
+			}
+		}
+
+		reclaim();
+		return removed;
+	}
+
+	@Override
+	public void clear() {
+		end = 0;
+		size = 0;
+		Arrays.fill(priorityCounts, 0);
+		Arrays.fill(completedBits, 0);
+		messagesEnd = 0;
+		messagesGarbage = 0;
+		slots.clear();
+		recurrences.clear();
+	}
+
+	// The view already wrote the new value, these are for any other Reminder
+	// with the same id
+	@Override
+	public void priorityChanged(Reminder reminder, Priority oldPriority) {
+		int slot = slots.get(reminder.getId());
+		if (slot < 0) {
+			return;
+		}
+
+		setPriority(slot, reminder.getPriority());
+		moveToEnd(slot);
+	}
+
+	@Override
+	public void dueDateChanged(Reminder reminder, LocalDate oldDueDate) {
+		int slot = slots.get(reminder.getId());
+		if (slot >= 0) {
+			dueDays[slot] = epochDay(reminder.getDate());
+		}
+	}
+
+	@Override
+	public void completionChanged(Reminder reminder) {
+		int slot = slots.get(reminder.getId());
+		if (slot >= 0) {
+			writeCompleted(slot, reminder.isCompleted());
+		}
+	}
+
+	@Override
+	public void recurrenceChanged(Reminder reminder) {
+		if (slots.get(reminder.getId()) >= 0) {
+			writeRecurrence(reminder.getId(), reminder.getRecurrence());
+		}
+	}
+
+	@Override
+	public List<Reminder> byPriority(Priority priority) {
+		List<Reminder> result = new ArrayList<>(priorityCounts[priority.ordinal()]);
+		addViews(result, priority);
+		return result;
+	}
+
+	@Override
+	public List<Reminder> dueBetween(LocalDate from, LocalDate to) {
+		return dueWithin(from.toEpochDay(), to.toEpochDay());
+	}
+
+	@Override
+	public List<Reminder> dueBefore(LocalDate date) {
+		return dueWithin(Long.MIN_VALUE, date.toEpochDay() - 1);
+	}
+
+	@Override
+	public Reminder byId(long id) {
+		int slot = slots.get(id);
+		return slot < 0 ? null : view(slot);
+	}
+
+	// Compares the message in place, without a String per reminder
+	@Override
+	public Reminder findSame(Reminder values) {
+		long dueDay = values.getDate().toEpochDay();
+		byte ordinal = (byte) values.getPriority().ordinal();
+		String message = values.getMessage();
+
+		for (int slot = 0; slot < end; slot++) {
+			if (dueDays[slot] == dueDay && priorities[slot] == ordinal
+					&& readCompleted(slot) == values.isCompleted() && messageEquals(slot, message)) {
+				return view(slot);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public List<Reminder> matching(Predicate<? super Reminder> filter) {
+		List<Reminder> result = new ArrayList<>();
+		CompactReminder cursor = new CompactReminder(this, 0, 0);
+
+		for (Priority priority : ReminderIndex.PRIORITY_ORDER) {
+			byte ordinal = (byte) priority.ordinal();
+			for (int slot = 0; slot < end; slot++) {
+				if (priorities[slot] == ordinal && test(filter, cursor, slot)) {
+					result.add(view(slot));
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<Reminder> pendingMatching(Predicate<? super Reminder> filter) {
+		List<Reminder> result = new ArrayList<>();
+		CompactReminder cursor = new CompactReminder(this, 0, 0);
+
+		for (int slot = 0; slot < end; slot++) {
+			if (priorities[slot] != REMOVED && !readCompleted(slot) && test(filter, cursor, slot)) {
+				result.add(view(slot));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<Reminder> completed() {
+		return withCompletion(true);
+	}
+
+	@Override
+	public List<Reminder> pending() {
+		return withCompletion(false);
+	}
+
+	@Override
+	public List<Reminder> recurring() {
+		List<Reminder> result = new ArrayList<>(recurrences.size());
+		recurrences.forEachKey(id -> result.add(view(slots.get(id))));
+		return result;
+	}
+
+	@Override
+	public List<Reminder> inPriorityOrder() {
+		List<Reminder> ordered = new ArrayList<>(size);
+		for (Priority priority : ReminderIndex.PRIORITY_ORDER) {
+			addViews(ordered, priority);
+		}
+		return ordered;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int countByPriority(Priority priority) {
+		return priorityCounts[priority.ordinal()];
+	}
+
+	// There isn't an index by due date
+	@Override
+	public int countDueBetween(LocalDate from, LocalDate to) {
+		return -1;
+	}
+
+	// The removed slots and the ones after the end are never completed
+	@Override
+	public int countCompleted() {
+		int count = 0;
+		for (long word : completedBits) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	// One view moved from slot to slot, like matching()
+	@Override
+	public int countMatching(Predicate<? super Reminder> filter) {
+		int count = 0;
+		CompactReminder cursor = new CompactReminder(this, 0, 0);
+
+		for (int slot = 0; slot < end; slot++) {
+			if (priorities[slot] != REMOVED && test(filter, cursor, slot)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	// For the CompactReminder views
+	// The slot of the id, the hint is where it was the last time
+	int slotOf(long id, int hint) {
+		if (hint < end && ids[hint] == id) {
+			return hint;
+		}
+
+		int slot = slots.get(id);
+		if (slot < 0) {
+			throw new IllegalStateException("Reminder id " + id + " has been removed");
+		}
+		return slot;
+	}
+
+	LocalDate dueDate(int slot) {
+		return LocalDate.ofEpochDay(dueDays[slot]);
+	}
+
+	void setDueDate(int slot, LocalDate dueDate) {
+		dueDays[slot] = epochDay(dueDate);
+	}
+
+	Priority priority(int slot) {
+		return PRIORITIES[priorities[slot]];
+	}
+
+	void setPriority(int slot, Priority priority) {
+		byte ordinal = (byte) priority.ordinal();
+		if (priorities[slot] != ordinal) {
+			priorityCounts[priorities[slot]]--;
+			priorityCounts[ordinal]++;
+			priorities[slot] = ordinal;
+		}
+	}
+
+	String message(int slot) {
+		return new String(messages, messageOffsets[slot], messageLengths[slot]);
+	}
+
+	void setMessage(int slot, String message) {
+		writeMessage(slot, message);
+		if (messagesGarbage > Math.max(MIN_MESSAGES_CAPACITY, messagesEnd / 2)) {
+			compactMessages();
+		}
+	}
+
+	boolean isCompleted(int slot) {
+		return readCompleted(slot);
+	}
+
+	void setCompleted(int slot, boolean isCompleted) {
+		writeCompleted(slot, isCompleted);
+	}
+
+	Recurrence recurrence(int slot) {
+		return recurrences.size() == 0 ? null : recurrences.get(ids[slot]);
+	}
+
+	void setRecurrence(int slot, Recurrence recurrence) {
+		writeRecurrence(ids[slot], recurrence);
+	}
+
+	private void writeRecurrence(long id, Recurrence recurrence) {
+		if (recurrence == null) {
+			recurrences.remove(id);
+		} else {
+			recurrences.put(id, recurrence);
+		}
+	}
+
+	private void addViews(List<Reminder> result, Priority priority) {
+		byte ordinal = (byte) priority.ordinal();
+		for (int slot = 0; slot < end; slot++) {
+			if (priorities[slot] == ordinal) {
+				result.add(view(slot));
+			}
+		}
+	}
+
+	private CompactReminder view(int slot) {
+		return new CompactReminder(this, ids[slot], slot);
+	}
+
+	// An independent Reminder, for the removed ones
+	private Reminder detached(int slot) {
+		Reminder reminder = new Reminder(ids[slot], dueDate(slot), priority(slot), message(slot), readCompleted(slot));
+		reminder.setRecurrence(recurrence(slot));
+		return reminder;
+	}
+
+	private boolean test(Predicate<? super Reminder> filter, CompactReminder cursor, int slot) {
+		cursor.moveTo(ids[slot], slot);
+		return filter.test(cursor);
+	}
+
+	// Sorted by due date, then by slot. The matching days are usually a few
+	// months at most, a counting sort by day is two more passes over the arrays.
+	private List<Reminder> dueWithin(long fromDay, long toDay) {
+		List<Reminder> result = new ArrayList<>();
+		if (fromDay > toDay || toDay < Integer.MIN_VALUE || fromDay > Integer.MAX_VALUE) {
+			return result;
+		}
+
+		// One unsigned comparison per reminder, dueDay >= from would be a coin
+		// flip for the branch predictor when the dates are spread around it
+		int from = (int) Math.max(fromDay, Integer.MIN_VALUE);
+		int span = (int) Math.min(toDay, Integer.MAX_VALUE) - from;
+
+		int count = 0;
+		int minDay = Integer.MAX_VALUE;
+		int maxDay = Integer.MIN_VALUE;
+		for (int slot = 0; slot < end; slot++) {
+			int dueDay = dueDays[slot];
+			if (Integer.compareUnsigned(dueDay - from, span) <= 0 && priorities[slot] != REMOVED) {
+				count++;
+				if (dueDay < minDay) {
+					minDay = dueDay;
+				}
+				if (dueDay > maxDay) {
+					maxDay = dueDay;
+				}
+			}
+		}
+
+		if (count == 0) {
+			return result;
+		}
+
+		int[] sortedSlots = (long) maxDay - minDay < MAX_COUNTING_DAYS
+				? countingSortByDay(from, span, count, minDay, maxDay - minDay + 1)
+				: sortByDay(from, span, count);
+		for (int slot : sortedSlots) {
+			result.add(view(slot));
+		}
+		return result;
+	}
+
+	private int[] countingSortByDay(int from, int span, int count, int minDay, int days) {
+		int[] starts = new int[days + 1];
+		for (int slot = 0; slot < end; slot++) {
+			int dueDay = dueDays[slot];
+			if (Integer.compareUnsigned(dueDay - from, span) <= 0 && priorities[slot] != REMOVED) {
+				starts[dueDay - minDay + 1]++;
+			}
+		}
+		for (int day = 1; day <= days; day++) {
+			starts[day] += starts[day - 1];
+		}
+
+		int[] sortedSlots = new int[count];
+		for (int slot = 0; slot < end; slot++) {
+			int dueDay = dueDays[slot];
+			if (Integer.compareUnsigned(dueDay - from, span) <= 0 && priorities[slot] != REMOVED) {
+				sortedSlots[starts[dueDay - minDay]++] = slot;
+			}
+		}
+		return sortedSlots;
+	}
+
+	// Days too far apart, sorting one long (day, slot) per reminder instead
+	private int[] sortByDay(int from, int span, int count) {
+		long[] keys = new long[count];
+		int key = 0;
+		for (int slot = 0; slot < end; slot++) {
+			int dueDay = dueDays[slot];
+			if (Integer.compareUnsigned(dueDay - from, span) <= 0 && priorities[slot] != REMOVED) {
+				keys[key++] = ((long) dueDay << 32) | slot;
+			}
+		}
+		Arrays.sort(keys);
+
+		int[] sortedSlots = new int[count];
+		for (int i = 0; i < count; i++) {
+			sortedSlots[i] = (int) keys[i];
+		}
+		return sortedSlots;
+	}
+
+	private List<Reminder> withCompletion(boolean isCompleted) {
+		List<Reminder> result = new ArrayList<>();
+		for (int slot = 0; slot < end; slot++) {
+			if (priorities[slot] != REMOVED && readCompleted(slot) == isCompleted) {
+				result.add(view(slot));
+			}
+		}
+		return result;
+	}
+
+	// The slot stays in the arrays until reclaim() compacts them
+	private void free(int slot) {
+		slots.remove(ids[slot]);
+		if (recurrences.size() > 0) {
+			recurrences.remove(ids[slot]);
+		}
+		priorityCounts[priorities[slot]]--;
+		messagesGarbage += messageLengths[slot];
+
+		ids[slot] = 0;
+		priorities[slot] = REMOVED;
+		writeCompleted(slot, false);
+		size--;
+	}
+
+	// A reminder with a changed priority goes last, so it comes after the others
+	// of its new priority like in the ReminderIndex. The message doesn't move.
+	private void moveToEnd(int slot) {
+		if (slot == end - 1) {
+			return;
+		}
+
+		ensureCapacity(end + 1);
+		int last = end++;
+		copySlot(slot, last);
+		slots.put(ids[last], last);
+
+		ids[slot] = 0;
+		priorities[slot] = REMOVED;
+		writeCompleted(slot, false);
+		reclaim();
+	}
+
+	private void reclaim() {
+		if (end - size > Math.max(MIN_CAPACITY, size)) {
+			compactSlots();
+		}
+		if (messagesGarbage > Math.max(MIN_MESSAGES_CAPACITY, messagesEnd / 2)) {
+			compactMessages();
+		}
+	}
+
+	// Removes the holes, the order of the slots is kept
+	private void compactSlots() {
+		int live = 0;
+		for (int slot = 0; slot < end; slot++) {
+			if (priorities[slot] == REMOVED) {
+				continue;
+			}
+
+			if (slot != live) {
+				copySlot(slot, live);
+				slots.put(ids[live], live);
+			}
+			live++;
+		}
+
+		for (int slot = live; slot < end; slot++) {
+			ids[slot] = 0;
+			writeCompleted(slot, false);
+		}
+		end = live;
+	}
+
+	private void compactMessages() {
+		int liveLength = messagesEnd - messagesGarbage;
+		char[] compacted = new char[Math.max(MIN_MESSAGES_CAPACITY, liveLength + (liveLength >>> 1))];
+
+		int offset = 0;
+		for (int slot = 0; slot < end; slot++) {
+			if (priorities[slot] == REMOVED) {
+				continue;
+			}
+
+			int length = messageLengths[slot];
+			System.arraycopy(messages, messageOffsets[slot], compacted, offset, length);
+			messageOffsets[slot] = offset;
+			offset += length;
+		}
+
+		messages = compacted;
+		messagesEnd = offset;
+		messagesGarbage = 0;
+	}
+
+	private void copySlot(int from, int to) {
+		ids[to] = ids[from];
+		dueDays[to] = dueDays[from];
+		priorities[to] = priorities[from];
+		writeCompleted(to, readCompleted(from));
+		messageOffsets[to] = messageOffsets[from];
+		messageLengths[to] = messageLengths[from];
+	}
+
+	// The old message of the slot becomes garbage
+	private void writeMessage(int slot, String message) {
+		int length = message.length();
+		if (messagesEnd + length > messages.length) {
+			// Reclaiming the garbage first, the arena may not need to grow
+			if (messagesGarbage > messagesEnd / 2) {
+				compactMessages();
+			}
+			if (messagesEnd + length > messages.length) {
+				messages = Arrays.copyOf(messages,
+						Math.max(messages.length + (messages.length >>> 1), messagesEnd + length));
+			}
+		}
+
+		message.getChars(0, length, messages, messagesEnd);
+		messagesGarbage += messageLengths[slot];
+		messageOffsets[slot] = messagesEnd;
+		messageLengths[slot] = length;
+		messagesEnd += length;
+	}
+
+	private boolean messageEquals(int slot, String message) {
+		int length = messageLengths[slot];
+		if (length != message.length()) {
+			return false;
+		}
+
+		int offset = messageOffsets[slot];
+		for (int i = 0; i < length; i++) {
+			if (messages[offset + i] != message.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean readCompleted(int slot) {
+		return (completedBits[slot >>> 6] & (1L << slot)) != 0;
+	}
+
+	private void writeCompleted(int slot, boolean isCompleted) {
+		if (isCompleted) {
+			completedBits[slot >>> 6] |= 1L << slot;
+		} else {
+			completedBits[slot >>> 6] &= ~(1L << slot);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= ids.length) {
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, ids.length + (ids.length >>> 1));
+		ids = Arrays.copyOf(ids, newCapacity);
+		dueDays = Arrays.copyOf(dueDays, newCapacity);
+		priorities = Arrays.copyOf(priorities, newCapacity);
+		completedBits = Arrays.copyOf(completedBits, bitWords(newCapacity));
+		messageOffsets = Arrays.copyOf(messageOffsets, newCapacity);
+		messageLengths = Arrays.copyOf(messageLengths, newCapacity);
+	}
+
+	private static int bitWords(int capacity) {
+		return (capacity + 63) >>> 6;
+	}
+
+	// The due dates are kept in an int, that is still millions of years
+	private static int epochDay(LocalDate date) {
+		return Math.toIntExact(date.toEpochDay());
+	}
+}
@@ -0,0 +1,488 @@
+package reminder_app;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import project_exceptions.DueDateException;
+import project_exceptions.MessageException;
+import project_exceptions.PriorityException;
+
+// Thread-safe view of a ReminderManager, for many sessions of the same user.
+//
+// Modifications take the write lock. Queries share the read lock and return
+// copies of the reminders, so a reader never sees a reminder while it is being
+// changed. getReminders() is a copy-on-write snapshot, it is rebuilt once after
+// a modification and then shared by every reader without locking.
+// The reminder numbers are based on the snapshot that the session displayed, a
+// concurrent modification can still shift them. The ById methods don't have
+// this problem, the id of a reminder never changes.
+public class ConcurrentReminderManager implements ReminderService {
+	private final ReminderManager manager;
+	private final StampedLock lock = new StampedLock();
+
+	// Null after a modification, rebuilt by the next getReminders()
+	private volatile List<Reminder> snapshot;
+
+	public ConcurrentReminderManager(ReminderManager manager) {
+		this.manager = manager;
+	}
+
+	@Override
+	public Reminder addReminder(Reminder reminder) {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.addReminder(reminder));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder deleteReminder(int index) {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.deleteReminder(index));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder markReminder(int index) {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.markReminder(index));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder deleteReminderById(long id) {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.deleteReminderById(id));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder markReminderById(long id) {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.markReminderById(id));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder markOccurrenceById(long id, LocalDate occurrence) {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.markOccurrenceById(id, occurrence));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public List<Reminder> clearReminders() {
+		long stamp = lock.writeLock();
+		try {
+			List<Reminder> clearedReminders = manager.clearReminders();
+			snapshot = null;
+			return clearedReminders;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	// The filters of the bulk modifications run under the write lock, they
+	// should only look at the reminder
+	@Override
+	public List<Reminder> addAll(Collection<Reminder> reminders) {
+		long stamp = lock.writeLock();
+		try {
+			return writtenAll(manager.addAll(reminders));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public List<Reminder> deleteIf(Predicate<? super Reminder> filter) {
+		long stamp = lock.writeLock();
+		try {
+			return writtenAll(manager.deleteIf(filter));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public List<Reminder> markIf(Predicate<? super Reminder> filter) {
+		long stamp = lock.writeLock();
+		try {
+			return writtenAll(manager.markIf(filter));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public List<Reminder> changePriorityIf(Predicate<? super Reminder> filter, Priority newPriority) {
+		long stamp = lock.writeLock();
+		try {
+			return writtenAll(manager.changePriorityIf(filter, newPriority));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public List<Reminder> changeDueDateIf(Predicate<? super Reminder> filter, LocalDate newDueDate) {
+		long stamp = lock.writeLock();
+		try {
+			return writtenAll(manager.changeDueDateIf(filter, newDueDate));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder changeReminderPriorityById(long id, Priority newPriority) throws PriorityException {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.changeReminderPriorityById(id, newPriority));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder changeReminderPriority(int index, Priority newPriority) throws PriorityException {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.changeReminderPriority(index, newPriority));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder changeReminderDueDateById(long id, LocalDate newDueDate) throws DueDateException {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.changeReminderDueDateById(id, newDueDate));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder changeReminderDueDate(int index, LocalDate newDueDate) throws DueDateException {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.changeReminderDueDate(index, newDueDate));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder changeReminderMessageById(long id, String message) throws MessageException {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.changeReminderMessageById(id, message));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Reminder changeReminderMessage(int index, String message) throws MessageException {
+		long stamp = lock.writeLock();
+		try {
+			return written(manager.changeReminderMessage(index, message));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	// Saving also reads the reminders for the compaction, nobody can modify
+	// them meanwhile
+	public String saveReminders() throws IOException {
+		long stamp = lock.writeLock();
+		try {
+			return manager.saveReminders();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	// A copy, null if there isn't a reminder with this id
+	public Reminder getReminderById(long id) {
+		long stamp = lock.readLock();
+		try {
+			Reminder reminder = manager.getReminderById(id);
+			return reminder == null ? null : reminder.copy();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public List<Reminder> getReminderByDueDate(LocalDate dueDateInput) {
+		long stamp = lock.readLock();
+		try {
+			return copyOf(manager.getReminderByDueDate(dueDateInput));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public List<Reminder> getReminderByPriority(Priority filteredPriority) {
+		long stamp = lock.readLock();
+		try {
+			return copyOf(manager.getReminderByPriority(filteredPriority));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public List<Reminder> getReminderByPastDue() {
+		long stamp = lock.readLock();
+		try {
+			return copyOf(manager.getReminderByPastDue());
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public List<Reminder> searchReminders(String query, int limit) {
+		buildSearchIndex();
+		long stamp = lock.readLock();
+		try {
+			return copyOf(manager.searchReminders(query, limit));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	// Collected under the read lock, the stream is over copies
+	@Override
+	public Stream<Reminder> query(ReminderQuery query) {
+		long stamp = lock.readLock();
+		try {
+			return copyOf(manager.query(query).collect(Collectors.toList())).stream();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public long count(ReminderQuery query) {
+		long stamp = lock.readLock();
+		try {
+			return manager.count(query);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public ReminderPage getRemindersPage(String pageToken, int pageSize) {
+		buildRankIndex();
+		long stamp = lock.readLock();
+		try {
+			return copyOf(manager.getRemindersPage(pageToken, pageSize));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public ReminderPage getReminderByPriorityPage(Priority filteredPriority, String pageToken, int pageSize) {
+		buildRankIndex();
+		long stamp = lock.readLock();
+		try {
+			return copyOf(manager.getReminderByPriorityPage(filteredPriority, pageToken, pageSize));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public ReminderPage getReminderByDueDatePage(LocalDate dueDateInput, String pageToken, int pageSize) {
+		buildRankIndex();
+		long stamp = lock.readLock();
+		try {
+			return copyOf(manager.getReminderByDueDatePage(dueDateInput, pageToken, pageSize));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public ReminderPage getReminderByPastDuePage(String pageToken, int pageSize) {
+		buildRankIndex();
+		long stamp = lock.readLock();
+		try {
+			return copyOf(manager.getReminderByPastDuePage(pageToken, pageSize));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	// The first search builds the search index, building it is a write
+	private void buildSearchIndex() {
+		if (!manager.hasSearchIndex()) {
+			long stamp = lock.writeLock();
+			try {
+				manager.searchIndex();
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+	}
+
+	// Same for the first page and the rank index
+	private void buildRankIndex() {
+		if (!manager.hasRankIndex()) {
+			long stamp = lock.writeLock();
+			try {
+				manager.rankIndex();
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+	}
+
+	@Override
+	// HIGH, MEDIUM, LOW, the same list is shared until the next modification
+	public List<Reminder> getReminders() {
+		List<Reminder> current = snapshot;
+		if (current != null) {
+			return current;
+		}
+
+		// The manager caches its ordered list, building it is a write
+		long stamp = lock.writeLock();
+		try {
+			if (snapshot == null) {
+				snapshot = Collections.unmodifiableList(copyOf(manager.getReminders()));
+			}
+			return snapshot;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public int getRemindersCount() {
+		// Only reads a size, an optimistic read is enough most of the time
+		long stamp = lock.tryOptimisticRead();
+		int count = manager.getRemindersCount();
+		if (lock.validate(stamp)) {
+			return count;
+		}
+
+		stamp = lock.readLock();
+		try {
+			return manager.getRemindersCount();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public boolean hasUnsavedModifications() {
+		long stamp = lock.readLock();
+		try {
+			return manager.hasUnsavedModifications();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public String getEmail() {
+		return manager.getEmail();
+	}
+
+	// Counters of the journal, no lock needed
+	@Override
+	public long getBytesRead() {
+		return manager.getBytesRead();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return manager.getBytesWritten();
+	}
+
+	// The events are copies, they are safe to read without the lock
+	public ReminderChangeFeed getChangeFeed() {
+		return manager.getChangeFeed();
+	}
+
+	// Gives every reminder to existing, then adds the listener, under the write
+	// lock so no modification happens in between (ex. to follow the reminders
+	// from another thread). The reminders are the live ones, copy what is kept.
+	public void addChangeListener(ReminderChangeListener listener, Consumer<Reminder> existing) {
+		long stamp = lock.writeLock();
+		try {
+			for (Reminder reminder : manager.getReminders()) {
+				existing.accept(reminder);
+			}
+			manager.addChangeListener(listener);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	// The wrapped manager, it should not be modified directly while this view is used
+	public ReminderManager getManager() {
+		return manager;
+	}
+
+	private Reminder written(Reminder reminder) {
+		snapshot = null;
+		return reminder.copy();
+	}
+
+	private List<Reminder> writtenAll(List<Reminder> reminders) {
+		if (!reminders.isEmpty()) {
+			snapshot = null;
+		}
+		return copyOf(reminders);
+	}
+
+	private static ReminderPage copyOf(ReminderPage page) {
+		return new ReminderPage(copyOf(page.getReminders()), page.getNextPageToken());
+	}
+
+	private static List<Reminder> copyOf(List<Reminder> reminders) {
+		List<Reminder> copies = new ArrayList<>(reminders.size());
+		for (Reminder reminder : reminders) {
+			copies.add(reminder.copy());
+		}
+		return copies;
+	}
+}
@@ -0,0 +1,169 @@
+package reminder_app;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Hash map with primitive long keys, no Long boxing and no entry objects.
+// Open addressing with linear probing, the keys and the values are in two
+// parallel arrays. Removing shifts the next entries back, so there are no
+// tombstones and lookups stay short.
+// The key 0 marks an empty slot, it can't be used as a key (reminder ids start at 1).
+class LongHashMap<V> {
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private Object[] values;
+	private int size;
+	private int mask;
+
+	LongHashMap() {
+		this(MIN_CAPACITY);
+	}
+
+	LongHashMap(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	@SuppressWarnings("unchecked")
+	V get(long key) {
+		// 0 would match an empty slot
+		if (key == 0) {
+			return null;
+		}
+
+		for (int slot = slot(key);; slot = (slot + 1) & mask) {
+			long current = keys[slot];
+			if (current == key) {
+				return (V) values[slot];
+			} else if (current == 0) {
+				return null;
+			}
+		}
+	}
+
+	boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	// Returns the previous value
+	@SuppressWarnings("unchecked")
+	V put(long key, V value) {
+		if (key == 0) {
+			throw new IllegalArgumentException("0 can't be used as a key");
+		}
+
+		int slot = slot(key);
+		for (;; slot = (slot + 1) & mask) {
+			long current = keys[slot];
+			if (current == key) {
+				V previous = (V) values[slot];
+				values[slot] = value;
+				return previous;
+			} else if (current == 0) {
+				break;
+			}
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+
+		// Load factor of 0.75
+		if (++size > (mask + 1) - ((mask + 1) >>> 2)) {
+			rehash((mask + 1) << 1);
+		}
+		return null;
+	}
+
+	// Returns the removed value
+	@SuppressWarnings("unchecked")
+	V remove(long key) {
+		if (key == 0) {
+			return null;
+		}
+
+		int slot = slot(key);
+		for (;; slot = (slot + 1) & mask) {
+			long current = keys[slot];
+			if (current == key) {
+				break;
+			} else if (current == 0) {
+				return null;
+			}
+		}
+
+		V removed = (V) values[slot];
+		size--;
+
+		// Moves back the entries after the hole that would not be found anymore
+		int hole = slot;
+		for (int next = (hole + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+			int home = slot(keys[next]);
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				hole = next;
+			}
+		}
+
+		keys[hole] = 0;
+		values[hole] = null;
+		return removed;
+	}
+
+	// Every key, in no particular order
+	void forEachKey(LongConsumer action) {
+		for (long key : keys) {
+			if (key != 0) {
+				action.accept(key);
+			}
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	private int slot(long key) {
+		// Spreading the sequential ids over the table (fibonacci hashing)
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			long key = oldKeys[i];
+			if (key != 0) {
+				int slot = slot(key);
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity - (capacity >>> 2) < expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
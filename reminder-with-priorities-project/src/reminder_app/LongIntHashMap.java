@@ -0,0 +1,133 @@
+package reminder_app;
+
+import java.util.Arrays;
+
+// Same as LongHashMap, with primitive int values (ex. the slot of a reminder id),
+// so there isn't an Integer per entry.
+// The key 0 marks an empty slot, get() returns -1 for a missing key.
+class LongIntHashMap {
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+	private int mask;
+
+	LongIntHashMap() {
+		allocate(MIN_CAPACITY);
+	}
+
+	int get(long key) {
+		// 0 would match an empty slot
+		if (key == 0) {
+			return -1;
+		}
+
+		for (int slot = slot(key);; slot = (slot + 1) & mask) {
+			long current = keys[slot];
+			if (current == key) {
+				return values[slot];
+			} else if (current == 0) {
+				return -1;
+			}
+		}
+	}
+
+	void put(long key, int value) {
+		if (key == 0) {
+			throw new IllegalArgumentException("0 can't be used as a key");
+		}
+
+		int slot = slot(key);
+		for (;; slot = (slot + 1) & mask) {
+			long current = keys[slot];
+			if (current == key) {
+				values[slot] = value;
+				return;
+			} else if (current == 0) {
+				break;
+			}
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+
+		// Load factor of 0.75
+		if (++size > (mask + 1) - ((mask + 1) >>> 2)) {
+			rehash((mask + 1) << 1);
+		}
+	}
+
+	// Returns the removed value, -1 if the key was missing
+	int remove(long key) {
+		if (key == 0) {
+			return -1;
+		}
+
+		int slot = slot(key);
+		for (;; slot = (slot + 1) & mask) {
+			long current = keys[slot];
+			if (current == key) {
+				break;
+			} else if (current == 0) {
+				return -1;
+			}
+		}
+
+		int removed = values[slot];
+		size--;
+
+		// Moves back the entries after the hole that would not be found anymore
+		int hole = slot;
+		for (int next = (hole + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+			int home = slot(keys[next]);
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				hole = next;
+			}
+		}
+
+		keys[hole] = 0;
+		return removed;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		Arrays.fill(keys, 0);
+		size = 0;
+	}
+
+	private int slot(long key) {
+		// Spreading the sequential ids over the table (fibonacci hashing)
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			long key = oldKeys[i];
+			if (key != 0) {
+				int slot = slot(key);
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+}
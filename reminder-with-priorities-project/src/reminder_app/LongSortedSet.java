@@ -0,0 +1,227 @@
+package reminder_app;
+
+import java.util.Arrays;
+
+// Sorted set of primitive longs (ex. the rank keys of the reminders, see ReminderRank).
+// The keys are in blocks of at most BLOCK_SIZE, so adding or removing a key only
+// shifts one block, even when the set is big. A block starts small and grows,
+// most sets of the search index only have a few keys.
+// A cursor walks the keys in order and can skip to a key (seek) with two binary
+// searches, first over the first key of the blocks and then inside one block.
+class LongSortedSet {
+	private static final int BLOCK_SIZE = 128;
+	private static final int MIN_BLOCK_SIZE = 2;
+
+	private long[][] blocks = new long[1][];
+	private int[] blockSizes = new int[1];
+	private int blockCount;
+	private int size;
+
+	LongSortedSet() {
+	}
+
+	// From sorted distinct keys, for building an index at once. The blocks are
+	// left 3/4 full, the next adds don't have to split them right away.
+	LongSortedSet(long[] sortedKeys, int count) {
+		int fill = BLOCK_SIZE - BLOCK_SIZE / 4;
+		int blockTotal = (count + fill - 1) / fill;
+		blocks = new long[Math.max(blockTotal, 1)][];
+		blockSizes = new int[blocks.length];
+
+		for (int from = 0; from < count; from += fill) {
+			int blockSize = Math.min(fill, count - from);
+			long[] block = new long[blockTotal == 1 ? Math.max(blockSize, MIN_BLOCK_SIZE) : BLOCK_SIZE];
+			System.arraycopy(sortedKeys, from, block, 0, blockSize);
+			blocks[blockCount] = block;
+			blockSizes[blockCount++] = blockSize;
+		}
+		size = count;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void add(long key) {
+		if (blockCount == 0) {
+			blocks[0] = new long[MIN_BLOCK_SIZE];
+			blockCount = 1;
+		}
+
+		int blockIndex = blockOf(key);
+		long[] block = blocks[blockIndex];
+		int blockSize = blockSizes[blockIndex];
+		int position = Arrays.binarySearch(block, 0, blockSize, key);
+		if (position >= 0) {
+			return;
+		}
+		position = -position - 1;
+
+		if (blockSize == BLOCK_SIZE) {
+			// Splitting the full block in two halves
+			int half = BLOCK_SIZE / 2;
+			long[] upper = new long[BLOCK_SIZE];
+			System.arraycopy(block, half, upper, 0, half);
+			blockSizes[blockIndex] = half;
+			insertBlock(blockIndex + 1, upper, half);
+
+			if (position > half) {
+				blockIndex++;
+				position -= half;
+			}
+			block = blocks[blockIndex];
+			blockSize = half;
+		} else if (blockSize == block.length) {
+			block = Arrays.copyOf(block, Math.min(block.length * 2, BLOCK_SIZE));
+			blocks[blockIndex] = block;
+		}
+
+		System.arraycopy(block, position, block, position + 1, blockSize - position);
+		block[position] = key;
+		blockSizes[blockIndex] = blockSize + 1;
+		size++;
+	}
+
+	void remove(long key) {
+		if (blockCount == 0) {
+			return;
+		}
+
+		int blockIndex = blockOf(key);
+		long[] block = blocks[blockIndex];
+		int blockSize = blockSizes[blockIndex];
+		int position = Arrays.binarySearch(block, 0, blockSize, key);
+		if (position < 0) {
+			return;
+		}
+
+		System.arraycopy(block, position + 1, block, position, blockSize - position - 1);
+		blockSizes[blockIndex] = blockSize - 1;
+		size--;
+
+		// Empty blocks are dropped, the others are not merged back
+		if (blockSize == 1) {
+			System.arraycopy(blocks, blockIndex + 1, blocks, blockIndex, blockCount - blockIndex - 1);
+			System.arraycopy(blockSizes, blockIndex + 1, blockSizes, blockIndex, blockCount - blockIndex - 1);
+			blocks[--blockCount] = null;
+		}
+	}
+
+	// Number of keys before the key. The blocks in front are counted by their
+	// size, there are size / BLOCK_SIZE of them at most.
+	int countBefore(long key) {
+		if (blockCount == 0) {
+			return 0;
+		}
+
+		int blockIndex = blockOf(key);
+		int count = 0;
+		for (int i = 0; i < blockIndex; i++) {
+			count += blockSizes[i];
+		}
+
+		int position = Arrays.binarySearch(blocks[blockIndex], 0, blockSizes[blockIndex], key);
+		return count + (position >= 0 ? position : -position - 1);
+	}
+
+	Cursor cursor() {
+		return new Cursor();
+	}
+
+	// Last block that starts at or before the key, the first block if none
+	private int blockOf(long key) {
+		return blockOf(key, 0);
+	}
+
+	private int blockOf(long key, int fromBlock) {
+		int low = fromBlock + 1;
+		int high = blockCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (blocks[middle][0] <= key) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low - 1;
+	}
+
+	private void insertBlock(int blockIndex, long[] block, int blockSize) {
+		if (blockCount == blocks.length) {
+			blocks = Arrays.copyOf(blocks, blockCount * 2);
+			blockSizes = Arrays.copyOf(blockSizes, blockCount * 2);
+		}
+
+		System.arraycopy(blocks, blockIndex, blocks, blockIndex + 1, blockCount - blockIndex);
+		System.arraycopy(blockSizes, blockIndex, blockSizes, blockIndex + 1, blockCount - blockIndex);
+		blocks[blockIndex] = block;
+		blockSizes[blockIndex] = blockSize;
+		blockCount++;
+	}
+
+	// The set should not be modified while a cursor is used
+	final class Cursor extends SearchCursor {
+		private int blockIndex;
+		private int position;
+
+		private Cursor() {
+		}
+
+		@Override
+		boolean exhausted() {
+			return blockIndex >= blockCount;
+		}
+
+		@Override
+		long current() {
+			return blocks[blockIndex][position];
+		}
+
+		@Override
+		void next() {
+			if (++position == blockSizes[blockIndex]) {
+				blockIndex++;
+				position = 0;
+			}
+		}
+
+		@Override
+		void seek(long target) {
+			if (exhausted() || current() >= target) {
+				return;
+			}
+
+			// The target is usually close, checking the current block first
+			if (blocks[blockIndex][blockSizes[blockIndex] - 1] < target) {
+				blockIndex = blockIndex + 1 < blockCount ? blockOf(target, blockIndex + 1) : blockCount;
+				position = 0;
+				if (blockIndex < blockCount && blocks[blockIndex][blockSizes[blockIndex] - 1] < target) {
+					// Between two blocks, the next one starts after the target
+					blockIndex++;
+				}
+				if (blockIndex == blockCount) {
+					// After the last key
+					return;
+				}
+			}
+
+			// Galloping, the target is often a few keys ahead
+			long[] block = blocks[blockIndex];
+			int blockSize = blockSizes[blockIndex];
+			int low = position;
+			int step = 1;
+			while (low + step < blockSize && block[low + step] < target) {
+				low += step;
+				step <<= 1;
+			}
+
+			int found = Arrays.binarySearch(block, low, Math.min(low + step + 1, blockSize), target);
+			position = found >= 0 ? found : -found - 1;
+		}
+	}
+}
@@ -11,14 +11,33 @@ import account_manager.AuthenticationSystem;
 import project_exceptions.DueDateException;
 import project_exceptions.MessageException;
 import project_exceptions.PriorityException;
+import reminder_scheduler.ConsoleDueEventSink;
+import reminder_scheduler.ReminderScheduler;
 
 public class MainReminderApp {
+	// Most reminders that a search displays
+	private static final int SEARCH_LIMIT = 50;
+
+	// Reminders displayed at once, the next page is only read if it is asked
+	private static final int PAGE_SIZE = 20;
+
+	// Renders the lists, a page at a time (see ReminderTable)
+	private static final ReminderTable TABLE = new ReminderTable(System.out, PAGE_SIZE);
 
 	public static void main(String[] args) {
 		boolean isExitting = false;
 
-		try (Scanner scanner = new Scanner(System.in)) {
+		try (Scanner scanner = new Scanner(System.in);
+				// Prints the reminders of the logged in user when they become due
+				ReminderScheduler scheduler = new ReminderScheduler(new ConsoleDueEventSink());
+				// Modifications are saved in the background, even without 7. Save
+				ReminderWriteBehind writeBehind = new ReminderWriteBehind();
+				// Loaded reminders are kept between logins, unsaved ones are saved on exit
+				ReminderManagerRegistry registry = new ReminderManagerRegistry(
+						ReminderManagerRegistry.DEFAULT_MAX_MANAGERS, Long.MAX_VALUE, ReminderManager::new,
+						writeBehind)) {
 			AuthenticationSystem auth = new AuthenticationSystem();
+			scheduler.start();
 
 			while (!isExitting) {
 
@@ -41,10 +60,13 @@ public class MainReminderApp {
 					String password = scanner.nextLine();
 
 					if (auth.login(email, password)) {
-						ReminderManager reminderManager = new ReminderManager(email);
+						// Through the concurrent view, the write-behind saves on its own thread
+						ConcurrentReminderManager reminderManager = registry.acquireConcurrent(email);
+						scheduler.register(reminderManager);
+						boolean isLoggedOut = false;
 
 						System.out.println("Welcome, " + email + "!");
-						while (!reminderManager.isLoggedOut()) {
+						while (!isLoggedOut) {
 							try {
 								System.out.println("------------------------------------------------");
 								System.out.println("\t Reminder's App Menu");
@@ -77,8 +99,9 @@ public class MainReminderApp {
 											String messageToAdd = messageInput(scanner);
 
 											// Putting it to a reminder object before passing it to the reminder manager
-											Reminder reminderToAdd = reminderManager.addReminder(
-													new Reminder(dueDateToAdd, priorityToAdd, messageToAdd));
+											Reminder newReminder = new Reminder(dueDateToAdd, priorityToAdd, messageToAdd);
+											newReminder.setRecurrence(repeatInput(scanner, dueDateToAdd));
+											Reminder reminderToAdd = reminderManager.addReminder(newReminder);
 											if (reminderToAdd != null) {
 												System.out.println(
 														reminderToAdd + "\nThis reminder is successfully added!");
@@ -142,8 +165,9 @@ public class MainReminderApp {
 										System.out.println("\t 2. Display by chosen priority");
 										System.out.println("\t 3. Display if past due date");
 										System.out.println("\t 4. Display All");
+										System.out.println("\t 5. Search by message");
 										System.out.println("------------------------------------------------");
-										System.out.print("[1-4] Input : ");
+										System.out.print("[1-5] Input : ");
 										String displayOption = scanner.nextLine();
 
 										switch (displayOption) {
@@ -151,26 +175,31 @@ public class MainReminderApp {
 											// Instruction
 											LocalDate filteredDueDate = dueDateInput(scanner);
 
-											List<Reminder> filteredDueDateList = reminderManager
-													.getReminderByDueDate(filteredDueDate);
-
-											printReminders(filteredDueDateList);
+											TABLE.browse(scanner, pageToken -> reminderManager
+													.getReminderByDueDatePage(filteredDueDate, pageToken, PAGE_SIZE));
 
 											break;
 										case "2": // Priority
 											// This can't hold a null, it will have an exception
 											Priority priorityToDisplay = priorityInput(scanner);
 
-											List<Reminder> priorityReminderList = reminderManager
-													.getReminderByPriority(priorityToDisplay);
-
-											printReminders(priorityReminderList);
+											TABLE.browse(scanner, pageToken -> reminderManager
+													.getReminderByPriorityPage(priorityToDisplay, pageToken, PAGE_SIZE));
 											break;
 										case "3": // Past due
-											printReminders(reminderManager.getReminderByPastDue());
+											TABLE.browse(scanner,
+													pageToken -> reminderManager.getReminderByPastDuePage(pageToken, PAGE_SIZE));
 											break;
 										case "4": // All
-											printReminders(reminderManager.getReminders());
+											TABLE.browse(scanner,
+													pageToken -> reminderManager.getRemindersPage(pageToken, PAGE_SIZE));
+											break;
+										case "5": // Search
+											// Every word should be in the message, meet* is any word starting with meet
+											System.out.print("Search words : ");
+											String query = scanner.nextLine();
+
+											TABLE.browse(scanner, reminderManager.searchReminders(query, SEARCH_LIMIT));
 											break;
 										default:
 											System.out.println("Invalid Input! Try again!");
@@ -183,10 +212,10 @@ public class MainReminderApp {
 
 									if (!clearedReminders.isEmpty()) {
 										System.out
-												.println("This reminder is cleared now, save it to become permanent!");
+												.println("This reminder is cleared now, it is saved automatically!");
 									}
 									System.out.println("Reminders that has been cleared.");
-									printReminders(clearedReminders);
+									TABLE.browse(scanner, clearedReminders);
 									break;
 								case "6": // Change
 									List<Reminder> remindersForChangeList = reminderManager.getReminders();
@@ -257,7 +286,9 @@ public class MainReminderApp {
 									System.out.println(reminderManager.saveReminders());
 									break;
 								case "8": // Logout
-									reminderManager.logout();
+									scheduler.unregister(reminderManager.getManager());
+									registry.release(reminderManager.getManager());
+									isLoggedOut = true;
 									System.out.println("Logout Successfull!");
 									System.out.println("See you around, " + email + "!");
 									break;
@@ -292,7 +323,9 @@ public class MainReminderApp {
 					System.out.print("Confirm Password : ");
 					String confirmPassword = scanner.nextLine();
 
-					if (registrationPassword.equals(confirmPassword)) {
+					if (!AuthenticationSystem.isValidEmail(registrationEmail)) {
+						System.out.println("Email can't have \", \" or spaces around it! Can't register!");
+					} else if (registrationPassword.equals(confirmPassword)) {
 						if (auth.register(registrationEmail, registrationPassword)) {
 							System.out.println(
 									"Account has been created! Please restart, then you can proceed to log-in!");
@@ -373,6 +406,31 @@ public class MainReminderApp {
 		return priority;
 	}
 
+	// Null when it doesn't repeat, otherwise it repeats from the due date
+	private static Recurrence repeatInput(Scanner scanner, LocalDate dueDate) throws DueDateException {
+		System.out.println("--------------------------------------------");
+		System.out.println("\t 1. Once");
+		System.out.println("\t 2. Daily");
+		System.out.println("\t 3. Weekly");
+		System.out.println("\t 4. Monthly");
+		System.out.println("--------------------------------------------");
+		System.out.print("Repeat : ");
+		String repeatOption = scanner.nextLine();
+
+		switch (repeatOption) {
+		case "1":
+			return null;
+		case "2":
+			return Recurrence.daily(dueDate);
+		case "3":
+			return Recurrence.weekly(dueDate);
+		case "4":
+			return Recurrence.monthly(dueDate);
+		default:
+			throw new DueDateException("Repeat option is not found!");
+		}
+	}
+
 	private static String messageInput(Scanner scanner) throws MessageException {
 		System.out.print("Message : ");
 		String message = scanner.nextLine();
@@ -386,44 +444,10 @@ public class MainReminderApp {
 		return message.replaceAll(",", " - ");
 	}
 
-	private static void printReminders(List<Reminder> reminders) {
-		if (reminders.size() > 0) {
-			System.out.println("Some reminders might not be sorted accurately.");
-			System.out.println("You need to save it.");
-			System.out.println("-----------------------------------------------------------------------------");
-			for (int i = 0; i < reminders.size(); i++) {
-				System.out.println((i + 1) + ". " + reminders.get(i));
-			}
-			System.out.println("-----------------------------------------------------------------------------");
-
-		} else {
-			System.out.println("No reminders has been found!");
-		}
-	}
-
+	// Every page of the list, or the reminder picked from it
 	private static int reminderNumberInput(List<Reminder> reminders, Scanner scanner) throws Exception {
-		// Checking first if it has reminder
-		int remNum;
-
-		if (!reminders.isEmpty()) {
-			System.out.println("Here are the reminders with number.");
-			printReminders(reminders);
-			System.out.printf("[1-%d] Reminder Number Input : ", reminders.size());
-			remNum = scanner.nextInt();
-
-			if (remNum < 0 || remNum > reminders.size()) {
-				// New line, because of remNum input
-				scanner.nextLine();
-
-				throw new Exception("Reminder number doesn't exist!");
-			}
-		} else {
-			throw new Exception("Reminders is empty!");
-		}
-
-		scanner.nextLine(); // New line, because of remNum input
-
-		return remNum;
+		System.out.println("Here are the reminders with number.");
+		return TABLE.pick(scanner, reminders);
 	}
 
 	public static String sanitizeMessage(String msg) {
@@ -0,0 +1,302 @@
+package reminder_app;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Rule of a recurring reminder : every interval days, weeks or months from the
+// start date, up to an optional end date (inclusive).
+// The occurrences are computed when they are asked for, they are never stored.
+// A monthly reminder on the 31st falls on the last day of the shorter months,
+// the occurrences are always counted from the start so it doesn't drift.
+//
+// The reminder itself is due on its first pending occurrence, the occurrences
+// before it are completed. The occurrences after it that were completed ahead
+// are the only ones remembered, as epoch days (usually none). So a daily
+// reminder that runs for years is this object, not thousands of reminders.
+//
+// Immutable, the with methods return a new one.
+// Text form, used by the csv (see ReminderCsvReader) :
+// WEEKLY FROM 2026-10-20 UNTIL 2027-06-30 DONE 2026-11-03 2026-11-10
+// The rule is DAILY, WEEKLY, MONTHLY or EVERY 3 DAYS (WEEKS, MONTHS).
+public final class Recurrence {
+	public enum Unit {
+		DAYS, WEEKS, MONTHS
+	}
+
+	private static final int[] NO_DAYS = new int[0];
+
+	private final Unit unit;
+	private final int interval;
+	private final LocalDate start;
+	// Null when it never ends
+	private final LocalDate until;
+	// Occurrences completed ahead of the first pending one, sorted epoch days
+	private final int[] completedAhead;
+
+	private Recurrence(Unit unit, int interval, LocalDate start, LocalDate until, int[] completedAhead) {
+		this.unit = unit;
+		this.interval = interval;
+		this.start = start;
+		this.until = until;
+		this.completedAhead = completedAhead;
+	}
+
+	public static Recurrence of(Unit unit, int interval, LocalDate start, LocalDate until) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("The interval of a recurrence should be at least 1");
+		}
+		if (until != null && until.isBefore(start)) {
+			throw new IllegalArgumentException("A recurrence can't end before " + start);
+		}
+
+		return new Recurrence(unit, interval, start, until, NO_DAYS);
+	}
+
+	public static Recurrence daily(LocalDate start) {
+		return of(Unit.DAYS, 1, start, null);
+	}
+
+	public static Recurrence weekly(LocalDate start) {
+		return of(Unit.WEEKS, 1, start, null);
+	}
+
+	public static Recurrence monthly(LocalDate start) {
+		return of(Unit.MONTHS, 1, start, null);
+	}
+
+	public static Recurrence everyDays(int days, LocalDate start) {
+		return of(Unit.DAYS, days, start, null);
+	}
+
+	public Recurrence until(LocalDate until) {
+		return of(unit, interval, start, until).withCompletedAhead(completedAhead);
+	}
+
+	// The same rule from another date, nothing is completed ahead anymore.
+	// An end before the new start becomes the new start, a single occurrence.
+	public Recurrence startingOn(LocalDate newStart) {
+		LocalDate newUntil = until == null || !until.isBefore(newStart) ? until : newStart;
+		return of(unit, interval, newStart, newUntil);
+	}
+
+	public Unit getUnit() {
+		return unit;
+	}
+
+	public int getInterval() {
+		return interval;
+	}
+
+	public LocalDate getStart() {
+		return start;
+	}
+
+	// Null when it never ends
+	public LocalDate getUntil() {
+		return until;
+	}
+
+	// First occurrence on or after the date, null after the end
+	public LocalDate firstOnOrAfter(LocalDate date) {
+		if (!date.isAfter(start)) {
+			return start;
+		}
+
+		long index;
+		if (unit == Unit.MONTHS) {
+			// Counted by months, then one more if the day of the month is already past
+			index = ChronoUnit.MONTHS.between(start.withDayOfMonth(1), date.withDayOfMonth(1)) / interval;
+			while (occurrence(index).isBefore(date)) {
+				index++;
+			}
+		} else {
+			long step = unit == Unit.WEEKS ? 7L * interval : interval;
+			index = Math.floorDiv(date.toEpochDay() - start.toEpochDay() + step - 1, step);
+		}
+
+		LocalDate found = occurrence(index);
+		return until != null && found.isAfter(until) ? null : found;
+	}
+
+	// Occurrence after the date, null after the end
+	public LocalDate nextAfter(LocalDate date) {
+		return firstOnOrAfter(date.plusDays(1));
+	}
+
+	public boolean isOccurrence(LocalDate date) {
+		return date.equals(firstOnOrAfter(date));
+	}
+
+	// First occurrence on or after the date that wasn't completed ahead
+	public LocalDate firstPendingOnOrAfter(LocalDate date) {
+		LocalDate found = firstOnOrAfter(date);
+		while (found != null && isCompletedAhead(found)) {
+			found = nextAfter(found);
+		}
+		return found;
+	}
+
+	// Every occurrence from "from" up to "to", both inclusive, in order
+	public void forEachBetween(LocalDate from, LocalDate to, Consumer<LocalDate> action) {
+		for (LocalDate date = firstOnOrAfter(from); date != null && !date.isAfter(to); date = nextAfter(date)) {
+			action.accept(date);
+		}
+	}
+
+	public boolean isCompletedAhead(LocalDate occurrence) {
+		return Arrays.binarySearch(completedAhead, epochDay(occurrence)) >= 0;
+	}
+
+	public Recurrence withCompletedAhead(LocalDate occurrence) {
+		int day = epochDay(occurrence);
+		int at = Arrays.binarySearch(completedAhead, day);
+		if (at >= 0) {
+			return this;
+		}
+
+		at = -at - 1;
+		int[] days = new int[completedAhead.length + 1];
+		System.arraycopy(completedAhead, 0, days, 0, at);
+		days[at] = day;
+		System.arraycopy(completedAhead, at, days, at + 1, completedAhead.length - at);
+		return new Recurrence(unit, interval, start, until, days);
+	}
+
+	// The occurrences completed ahead up to the date are forgotten, the reminder
+	// moved past them
+	public Recurrence withoutCompletedUpTo(LocalDate date) {
+		int after = Arrays.binarySearch(completedAhead, epochDay(date));
+		after = after >= 0 ? after + 1 : -after - 1;
+		if (after == 0) {
+			return this;
+		}
+
+		return new Recurrence(unit, interval, start, until,
+				Arrays.copyOfRange(completedAhead, after, completedAhead.length));
+	}
+
+	// Sorted epoch days, for the binary formats
+	public int[] getCompletedAhead() {
+		return completedAhead.clone();
+	}
+
+	public Recurrence withCompletedAhead(int[] epochDays) {
+		int[] days = epochDays.clone();
+		Arrays.sort(days);
+		return new Recurrence(unit, interval, start, until, days.length == 0 ? NO_DAYS : days);
+	}
+
+	// Only the rule, ex. WEEKLY or EVERY 3 DAYS
+	public String ruleText() {
+		if (interval == 1) {
+			return unit == Unit.DAYS ? "DAILY" : unit == Unit.WEEKS ? "WEEKLY" : "MONTHLY";
+		}
+		return String.format("EVERY %d %s", interval, unit);
+	}
+
+	// The rule from its text (see ruleText()), upper or lower case, starting on the date
+	public static Recurrence parseRule(String rule, LocalDate start) {
+		String[] words = rule.trim().toUpperCase().split("\\s+");
+		switch (words[0]) {
+		case "DAILY":
+			return words.length == 1 ? daily(start) : invalid(rule);
+		case "WEEKLY":
+			return words.length == 1 ? weekly(start) : invalid(rule);
+		case "MONTHLY":
+			return words.length == 1 ? monthly(start) : invalid(rule);
+		case "EVERY":
+			if (words.length != 3) {
+				return invalid(rule);
+			}
+			try {
+				Unit unit = Unit.valueOf(words[2].endsWith("S") ? words[2] : words[2] + "S");
+				return of(unit, Integer.parseInt(words[1]), start, null);
+			} catch (IllegalArgumentException e) {
+				return invalid(rule);
+			}
+		default:
+			return invalid(rule);
+		}
+	}
+
+	// The full text form, see toString()
+	public static Recurrence parse(String text) {
+		String[] parts = text.trim().split("\\s+(?=FROM |UNTIL |DONE )");
+		if (parts.length < 2 || !parts[1].startsWith("FROM ")) {
+			return invalid(text);
+		}
+
+		try {
+			Recurrence recurrence = parseRule(parts[0], LocalDate.parse(parts[1].substring(5).trim()));
+			for (int i = 2; i < parts.length; i++) {
+				if (parts[i].startsWith("UNTIL ")) {
+					recurrence = recurrence.until(LocalDate.parse(parts[i].substring(6).trim()));
+				} else {
+					String[] dates = parts[i].substring(5).trim().split("\\s+");
+					int[] days = new int[dates.length];
+					for (int j = 0; j < dates.length; j++) {
+						days[j] = epochDay(LocalDate.parse(dates[j]));
+					}
+					recurrence = recurrence.withCompletedAhead(days);
+				}
+			}
+			return recurrence;
+		} catch (DateTimeException e) {
+			return invalid(text);
+		}
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Recurrence)) {
+			return false;
+		}
+
+		Recurrence that = (Recurrence) other;
+		return unit == that.unit && interval == that.interval && start.equals(that.start)
+				&& (until == null ? that.until == null : until.equals(that.until))
+				&& Arrays.equals(completedAhead, that.completedAhead);
+	}
+
+	@Override
+	public int hashCode() {
+		return ((unit.hashCode() * 31 + interval) * 31 + start.hashCode()) * 31 + Arrays.hashCode(completedAhead);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(ruleText()).append(" FROM ").append(start);
+		if (until != null) {
+			text.append(" UNTIL ").append(until);
+		}
+		if (completedAhead.length > 0) {
+			text.append(" DONE");
+			for (int day : completedAhead) {
+				text.append(' ').append(LocalDate.ofEpochDay(day));
+			}
+		}
+		return text.toString();
+	}
+
+	private LocalDate occurrence(long index) {
+		switch (unit) {
+		case DAYS:
+			return start.plusDays(index * interval);
+		case WEEKS:
+			return start.plusWeeks(index * interval);
+		default:
+			return start.plusMonths(index * interval);
+		}
+	}
+
+	private static int epochDay(LocalDate date) {
+		return Math.toIntExact(date.toEpochDay());
+	}
+
+	private static Recurrence invalid(String text) {
+		throw new IllegalArgumentException("Invalid recurrence: " + text);
+	}
+}
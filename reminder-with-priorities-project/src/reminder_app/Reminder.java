@@ -3,11 +3,18 @@ package reminder_app;
 import java.time.LocalDate;
 
 public class Reminder {
+	// Assigned by the ReminderManager when the reminder is added, 0 before that.
+	// It never changes and is never reused, unlike the reminder number.
+	private long id;
 	private LocalDate dueDate;
 	private Priority priority;
 	private String message;
 	private boolean isCompleted;
 
+	// Null for a reminder that doesn't repeat. A recurring reminder is due on
+	// its first pending occurrence, it is completed when none is left.
+	private Recurrence recurrence;
+
 	public Reminder(LocalDate dueDate, Priority priority, String message) {
 		this.dueDate = dueDate;
 		this.priority = priority;
@@ -23,7 +30,22 @@ public class Reminder {
 		this.isCompleted = isCompleted;
 	}
 
+	// If the reminder is loaded from a saved file
+	public Reminder(long id, LocalDate dueDate, Priority priority, String message, boolean isCompleted) {
+		this(dueDate, priority, message, isCompleted);
+		this.id = id;
+	}
+
 	// Getters and Setters
+	public long getId() {
+		return id;
+	}
+
+	// Only the manager assigns the ids
+	void setId(long id) {
+		this.id = id;
+	}
+
 	public LocalDate getDate() {
 		return dueDate;
 	}
@@ -56,14 +78,49 @@ public class Reminder {
 		this.isCompleted = isCompleted;
 	}
 
+	public Recurrence getRecurrence() {
+		return recurrence;
+	}
+
+	public void setRecurrence(Recurrence recurrence) {
+		this.recurrence = recurrence;
+	}
+
+	public boolean isRecurring() {
+		return getRecurrence() != null;
+	}
+
+	// The occurrence of a recurring reminder on the date, a view that isn't
+	// stored anywhere (see ReminderOccurrence)
+	public Reminder occurrence(LocalDate date) {
+		return isRecurring() ? new ReminderOccurrence(this, date) : this;
+	}
+
+	// First occurrence on or after the date that isn't completed, null if there
+	// isn't one. A reminder that doesn't repeat only has its due date.
+	public LocalDate pendingOccurrenceFrom(LocalDate date) {
+		if (isCompleted()) {
+			return null;
+		}
+		if (!isRecurring()) {
+			return getDate().isBefore(date) ? null : getDate();
+		}
+		return getRecurrence().firstPendingOnOrAfter(getDate().isAfter(date) ? getDate() : date);
+	}
+
 	// Having an independent copy
+	// Through the getters, a view of a compact store (CompactReminder) has its
+	// values somewhere else
 	public Reminder copy() {
-		return new Reminder(this.dueDate, this.priority, this.message, this.isCompleted);
+		Reminder copy = new Reminder(getId(), getDate(), getPriority(), getMessage(), isCompleted());
+		copy.setRecurrence(getRecurrence());
+		return copy;
 	}
 
 	// Generally use for csv line
 	@Override
 	public String toString() {
-		return String.format("%s, %s, %s, MARKED = %b", dueDate, priority, message, isCompleted);
+		String line = String.format("%s, %s, %s, MARKED = %b", getDate(), getPriority(), getMessage(), isCompleted());
+		return isRecurring() ? line + ", REPEAT = " + getRecurrence().ruleText() : line;
 	}
 }
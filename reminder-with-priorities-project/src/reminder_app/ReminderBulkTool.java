@@ -0,0 +1,402 @@
+package reminder_app;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import account_manager.AuthenticationSystem;
+import reminder_storage.AccountDirectory;
+import reminder_storage.ReminderCsvReader;
+import reminder_storage.ReminderCsvWriter;
+import reminder_storage.ReminderJournal;
+
+// Command line tool for the reminders of every user at once (backups, moving a
+// deployment). The users are the ones of the accounts file, the dump is one csv
+// file with a block per user, the same lines as the csv snapshots :
+//
+// # user = jscatipon
+// # next id = 12
+// 2025-05-26, HIGH, Finish Reviewing threads and exercise, MARKED = false, ID = 1
+//
+// java reminder_app.ReminderBulkTool export backup.csv [users file] [accounts directory]
+// java reminder_app.ReminderBulkTool import backup.csv [users file] [accounts directory]
+//
+// The users are loaded or parsed, validated and written on a fork-join pool
+// (-Dreminder.bulk.parallelism, the number of cores by default), this thread
+// only reads or writes the dump. At most IN_FLIGHT_PER_WORKER users per worker
+// are in memory, the export writes them in the order of the accounts file.
+// A user that fails is reported and skipped, the others go on.
+// Import replaces the reminders of the users in the dump, the server and the
+// console should be stopped while it runs.
+public class ReminderBulkTool {
+	private static final int IN_FLIGHT_PER_WORKER = 4;
+	private static final byte[] USER_HEADER = "# user = ".getBytes(StandardCharsets.UTF_8);
+
+	// What happened to the users of a run
+	public static class Report {
+		private int users;
+		private long reminders;
+		private final List<String> failures = new ArrayList<>();
+
+		// The users that succeeded
+		public int getUsers() {
+			return users;
+		}
+
+		public long getReminders() {
+			return reminders;
+		}
+
+		// "email: reason", in the order of the users
+		public List<String> getFailures() {
+			return failures;
+		}
+
+		private void add(UserResult result) {
+			if (result.failure != null) {
+				failures.add(result.email + ": " + result.failure);
+			} else {
+				users++;
+				reminders += result.reminders;
+			}
+		}
+	}
+
+	private static final class UserResult {
+		private final String email;
+		// The block of the dump for an export
+		private byte[] block;
+		private int reminders;
+		private String failure;
+
+		private UserResult(String email) {
+			this.email = email;
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 2 || args.length > 4 || !(args[0].equals("export") || args[0].equals("import"))) {
+			System.out.println("Usage : ReminderBulkTool <export|import> <dump.csv> [users file] [accounts directory]");
+			return;
+		}
+
+		Path dump = Paths.get(args[1]);
+		Path usersFile = Paths.get(args.length > 2 ? args[2] : AuthenticationSystem.DEFAULT_USERS_PATH);
+		String accountsDirectory = args.length > 3 ? args[3] : AccountDirectory.DEFAULT_ROOT;
+		int parallelism = Integer.getInteger("reminder.bulk.parallelism", Runtime.getRuntime().availableProcessors());
+
+		try {
+			long start = System.nanoTime();
+			Report report = args[0].equals("export") ? exportAll(usersFile, accountsDirectory, dump, parallelism)
+					: importAll(dump, usersFile, accountsDirectory, parallelism);
+			long millis = (System.nanoTime() - start) / 1_000_000;
+
+			for (String failure : report.getFailures()) {
+				System.out.println("Failed " + failure);
+			}
+			System.out.printf("%s %d users, %d reminders in %d ms, %d failed%n",
+					args[0].equals("export") ? "Exported" : "Imported", report.getUsers(), report.getReminders(),
+					millis, report.getFailures().size());
+		} catch (IOException e) {
+			System.out.println("An error occurred: " + e.getMessage());
+		}
+	}
+
+	// Every user of the accounts file to the dump
+	public static Report exportAll(Path usersFile, String accountsDirectory, Path dump, int parallelism)
+			throws IOException {
+		Report report = new Report();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		ArrayDeque<ForkJoinTask<UserResult>> inFlight = new ArrayDeque<>();
+
+		try (BufferedReader users = Files.newBufferedReader(usersFile, StandardCharsets.UTF_8);
+				OutputStream out = new BufferedOutputStream(Files.newOutputStream(dump), 64 * 1024)) {
+			String email;
+			while ((email = AuthenticationSystem.readEmail(users)) != null) {
+				if (inFlight.size() >= parallelism * IN_FLIGHT_PER_WORKER) {
+					writeBlock(inFlight.poll().join(), out, report);
+				}
+
+				String exported = email;
+				inFlight.add(pool.submit(() -> exportUser(exported, accountsDirectory)));
+			}
+
+			while (!inFlight.isEmpty()) {
+				writeBlock(inFlight.poll().join(), out, report);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return report;
+	}
+
+	// Every user of the dump, they should be in the accounts file
+	public static Report importAll(Path dump, Path usersFile, String accountsDirectory, int parallelism)
+			throws IOException {
+		Set<String> registered = new HashSet<>();
+		try (BufferedReader users = Files.newBufferedReader(usersFile, StandardCharsets.UTF_8)) {
+			String email;
+			while ((email = AuthenticationSystem.readEmail(users)) != null) {
+				registered.add(email);
+			}
+		}
+
+		Report report = new Report();
+		Set<String> imported = new HashSet<>();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		ArrayDeque<ForkJoinTask<UserResult>> inFlight = new ArrayDeque<>();
+
+		try (DumpReader blocks = new DumpReader(Files.newInputStream(dump))) {
+			while (blocks.next()) {
+				if (inFlight.size() >= parallelism * IN_FLIGHT_PER_WORKER) {
+					report.add(inFlight.poll().join());
+				}
+
+				UserResult result = new UserResult(blocks.email);
+				if (!registered.contains(blocks.email)) {
+					result.failure = "not in the accounts file";
+					report.add(result);
+				} else if (!imported.add(blocks.email)) {
+					// Two blocks of the same user would write the same files at once
+					result.failure = "more than once in the dump, only the first one is imported";
+					report.add(result);
+				} else {
+					byte[] block = blocks.block;
+					inFlight.add(pool.submit(() -> importUser(result, block, accountsDirectory)));
+				}
+			}
+
+			while (!inFlight.isEmpty()) {
+				report.add(inFlight.poll().join());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return report;
+	}
+
+	// On a worker, the failures are in the result
+	private static UserResult exportUser(String email, String accountsDirectory) {
+		UserResult result = new UserResult(email);
+		try {
+			ReminderManager manager = new ReminderManager(email, accountsDirectory, ReminderStoreType.INDEXED);
+			try {
+				ByteArrayOutputStream block = new ByteArrayOutputStream(4096);
+				block.write(USER_HEADER);
+				block.write(email.getBytes(StandardCharsets.UTF_8));
+				block.write(System.lineSeparator().getBytes(StandardCharsets.US_ASCII));
+
+				ReminderCsvWriter writer = new ReminderCsvWriter(block, 4096);
+				writer.writeNextReminderId(manager.getNextReminderId());
+				List<Reminder> reminders = manager.getReminders();
+				for (Reminder reminder : reminders) {
+					writer.write(reminder);
+				}
+				writer.flush();
+
+				result.block = block.toByteArray();
+				result.reminders = reminders.size();
+			} finally {
+				manager.logout();
+			}
+		} catch (Exception e) {
+			result.failure = reason(e);
+		}
+		return result;
+	}
+
+	// On a worker, the failures are in the result
+	private static UserResult importUser(UserResult result, byte[] block, String accountsDirectory) {
+		try {
+			List<Reminder> reminders = new ArrayList<>();
+			Set<Long> ids = new HashSet<>();
+			long nextReminderId = 1;
+
+			try (ReminderCsvReader reader = new ReminderCsvReader(new ByteArrayInputStream(block), 4096)) {
+				Reminder reminder;
+				while ((reminder = reader.next()) != null) {
+					int lineNumber = reader.getLineNumber();
+					validate(reminder, lineNumber);
+					if (reminder.getId() > 0 && !ids.add(reminder.getId())) {
+						throw new IllegalArgumentException(
+								String.format("line %d, the id %d is used twice", lineNumber, reminder.getId()));
+					}
+
+					nextReminderId = Math.max(nextReminderId, reminder.getId() + 1);
+					reminders.add(reminder);
+				}
+				nextReminderId = Math.max(nextReminderId, reader.getNextReminderId());
+			}
+
+			// The reminders without an id get one on the next load, after nextReminderId
+			Path snapshot = AccountDirectory.of(accountsDirectory).snapshotPath(result.email);
+			Files.createDirectories(snapshot.getParent());
+			ReminderJournal journal = new ReminderJournal(snapshot.toString());
+			try {
+				journal.replace(reminders, nextReminderId);
+			} finally {
+				journal.close();
+			}
+
+			result.reminders = reminders.size();
+		} catch (Exception e) {
+			result.failure = reason(e);
+		}
+		return result;
+	}
+
+	// Same rules as adding a reminder
+	private static void validate(Reminder reminder, int lineNumber) {
+		if (reminder.getMessage().isEmpty()) {
+			throw new IllegalArgumentException(String.format("line %d, the message is empty", lineNumber));
+		}
+		try {
+			ReminderManager.checkRecurrence(reminder);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(String.format("line %d, %s", lineNumber, e.getMessage()));
+		}
+	}
+
+	private static void writeBlock(UserResult result, OutputStream out, Report report) throws IOException {
+		if (result.block != null) {
+			out.write(result.block);
+			result.block = null;
+		}
+		report.add(result);
+	}
+
+	// Also used by ReminderStatistics
+	static String reason(Exception e) {
+		if (e instanceof FileNotFoundException) {
+			return "no reminder file at " + e.getMessage();
+		}
+		return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+	}
+
+	// Splits the dump in the blocks of the users, without parsing the reminders.
+	// The lines before the first user are ignored.
+	private static final class DumpReader implements AutoCloseable {
+		private final InputStream in;
+		private byte[] buffer = new byte[64 * 1024];
+		private int position;
+		private int limit;
+		private boolean endOfStream;
+
+		private final ByteArrayOutputStream nextBlock = new ByteArrayOutputStream(4096);
+		private String nextEmail;
+
+		// The current user, after next()
+		private String email;
+		private byte[] block;
+
+		private DumpReader(InputStream in) {
+			this.in = in;
+		}
+
+		// False when there are no more users
+		private boolean next() throws IOException {
+			while (true) {
+				int lineEnd = nextLineEnd();
+				if (lineEnd >= 0 && !startsWithUserHeader()) {
+					if (nextEmail != null) {
+						nextBlock.write(buffer, position, lineEnd - position);
+					}
+					position = lineEnd;
+					continue;
+				}
+
+				// A header or the end, the block before it is complete
+				String completed = nextEmail;
+				byte[] completedBlock = nextBlock.toByteArray();
+				nextBlock.reset();
+				nextEmail = null;
+				if (lineEnd >= 0) {
+					nextEmail = new String(buffer, position + USER_HEADER.length,
+							lineEnd - position - USER_HEADER.length, StandardCharsets.UTF_8).trim();
+					position = lineEnd;
+				}
+
+				if (completed != null) {
+					email = completed;
+					block = completedBlock;
+					return true;
+				}
+				if (lineEnd < 0) {
+					return false;
+				}
+			}
+		}
+
+		// End of the line at position (after its separator), -1 at the end of the dump
+		private int nextLineEnd() throws IOException {
+			int scanFrom = position;
+			while (true) {
+				for (int i = scanFrom; i < limit; i++) {
+					if (buffer[i] == '\n') {
+						return i + 1;
+					}
+				}
+				if (endOfStream) {
+					return position < limit ? limit : -1;
+				}
+
+				scanFrom = limit - position;
+				fill();
+			}
+		}
+
+		// Moves the unread bytes to the front, grows the buffer for a longer line
+		private void fill() throws IOException {
+			int remaining = limit - position;
+			if (position > 0) {
+				System.arraycopy(buffer, position, buffer, 0, remaining);
+			} else if (remaining == buffer.length) {
+				byte[] grown = new byte[buffer.length * 2];
+				System.arraycopy(buffer, 0, grown, 0, remaining);
+				buffer = grown;
+			}
+
+			position = 0;
+			limit = remaining;
+			int read = in.read(buffer, limit, buffer.length - limit);
+			if (read < 0) {
+				endOfStream = true;
+			} else {
+				limit += read;
+			}
+		}
+
+		private boolean startsWithUserHeader() {
+			if (limit - position < USER_HEADER.length) {
+				return false;
+			}
+			for (int i = 0; i < USER_HEADER.length; i++) {
+				if (buffer[position + i] != USER_HEADER[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package reminder_app;
+
+// Kind of modification that happened to a reminder of a ReminderManager
+public enum ReminderChange {
+	ADDED, DELETED, MARKED, PRIORITY_CHANGED, DUE_DATE_CHANGED, MESSAGE_CHANGED,
+
+	// Removed by clearReminders(), because it was completed
+	CLEARED,
+
+	// An occurrence after the due date of a recurring reminder has been
+	// completed ahead, the due date didn't change
+	OCCURRENCE_MARKED;
+}
@@ -0,0 +1,252 @@
+package reminder_app;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+// Publishes the modifications of a ReminderManager as ReminderEvents, so a UI
+// or another index can follow them instead of reading every reminder again.
+// See ReminderManager.getChangeFeed().
+//
+// The manager never waits for a subscriber. Every subscriber has its own
+// buffer of events it didn't request yet, at most "capacity" reminders :
+// - the events are delivered on the executor, one at a time per subscriber and
+//   only as many as requested (back-pressure)
+// - the events of the same reminder waiting in the buffer are coalesced (see
+//   ReminderEvent), a slow subscriber gets the last state, not every step
+// - when more reminders than the capacity are waiting, they are dropped for one
+//   overflow event, the subscriber reads the reminders again
+// The feed completes the subscriptions when the user logs out.
+public class ReminderChangeFeed implements Flow.Publisher<ReminderEvent>, ReminderChangeListener, AutoCloseable {
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final Executor executor;
+	private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+	// Guarded by this
+	private long sequence;
+	private boolean closed;
+
+	public ReminderChangeFeed() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ReminderChangeFeed(Executor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super ReminderEvent> subscriber) {
+		subscribe(subscriber, DEFAULT_CAPACITY);
+	}
+
+	// Capacity is the number of reminders that can wait for the subscriber
+	public void subscribe(Flow.Subscriber<? super ReminderEvent> subscriber, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity of a subscription should be at least 1");
+		}
+
+		Subscription subscription = new Subscription(subscriber, capacity);
+		boolean open;
+		synchronized (this) {
+			open = !closed;
+			if (open) {
+				subscriptions.add(subscription);
+			}
+		}
+
+		subscriber.onSubscribe(subscription);
+		if (!open) {
+			subscription.complete();
+		}
+	}
+
+	public int getSubscriberCount() {
+		return subscriptions.size();
+	}
+
+	// On the thread that modified the reminder, the reminder is copied once for
+	// every subscriber
+	@Override
+	public void reminderChanged(ReminderManager manager, ReminderChange change, Reminder reminder) {
+		if (subscriptions.isEmpty()) {
+			return;
+		}
+
+		ReminderEvent event;
+		synchronized (this) {
+			event = new ReminderEvent(++sequence, change, reminder.copy());
+		}
+		for (Subscription subscription : subscriptions) {
+			subscription.offer(event);
+		}
+	}
+
+	// The subscribers get their waiting events, then onComplete
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+
+		for (Subscription subscription : subscriptions) {
+			subscription.complete();
+		}
+		subscriptions.clear();
+	}
+
+	private final class Subscription implements Flow.Subscription, Runnable {
+		private final Flow.Subscriber<? super ReminderEvent> subscriber;
+		private final int capacity;
+
+		// Guarded by this, the waiting events by reminder id, in the order of
+		// their last modification
+		private final LinkedHashMap<Long, ReminderEvent> waiting = new LinkedHashMap<>();
+		private ReminderEvent overflow;
+		private long demand;
+		private boolean completing;
+		private boolean done;
+		// The drain is on the executor, it is the only one calling the subscriber
+		private boolean draining;
+		private Throwable requestError;
+
+		private Subscription(Flow.Subscriber<? super ReminderEvent> subscriber, int capacity) {
+			this.subscriber = subscriber;
+			this.capacity = capacity;
+		}
+
+		private void offer(ReminderEvent event) {
+			synchronized (this) {
+				if (done || completing) {
+					return;
+				}
+
+				// A coalesced event moves to the end, the sequences stay in order
+				long id = event.getReminderId();
+				ReminderEvent previous = waiting.remove(id);
+				ReminderEvent next = previous == null ? event : previous.coalesce(event);
+				if (next != null) {
+					waiting.put(id, next);
+				}
+
+				if (waiting.size() > capacity) {
+					waiting.clear();
+					overflow = ReminderEvent.overflow(event.getSequence());
+				}
+			}
+			drainLater();
+		}
+
+		private void complete() {
+			synchronized (this) {
+				completing = true;
+			}
+			drainLater();
+		}
+
+		@Override
+		public void request(long n) {
+			synchronized (this) {
+				if (done) {
+					return;
+				}
+
+				if (n <= 0) {
+					requestError = new IllegalArgumentException("A subscriber should request at least 1 event");
+				} else {
+					demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+				}
+			}
+			drainLater();
+		}
+
+		@Override
+		public void cancel() {
+			synchronized (this) {
+				done = true;
+				waiting.clear();
+				overflow = null;
+			}
+			subscriptions.remove(this);
+		}
+
+		private void drainLater() {
+			synchronized (this) {
+				if (draining || done) {
+					return;
+				}
+				draining = true;
+			}
+
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				// Nothing can deliver the events anymore
+				cancel();
+				subscriber.onError(e);
+			}
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				ReminderEvent next = null;
+				Throwable error = null;
+				boolean completed = false;
+
+				synchronized (this) {
+					if (done) {
+						draining = false;
+						return;
+					}
+
+					if (requestError != null) {
+						error = requestError;
+						done = true;
+					} else if (demand > 0 && overflow != null) {
+						next = overflow;
+						overflow = null;
+					} else if (demand > 0 && !waiting.isEmpty()) {
+						Iterator<Map.Entry<Long, ReminderEvent>> first = waiting.entrySet().iterator();
+						next = first.next().getValue();
+						first.remove();
+					} else if (completing && overflow == null && waiting.isEmpty()) {
+						completed = true;
+						done = true;
+					} else {
+						draining = false;
+						return;
+					}
+
+					if (next != null && demand != Long.MAX_VALUE) {
+						demand--;
+					}
+				}
+
+				if (error != null || completed) {
+					subscriptions.remove(this);
+					if (error != null) {
+						subscriber.onError(error);
+					} else {
+						subscriber.onComplete();
+					}
+					continue;
+				}
+
+				try {
+					subscriber.onNext(next);
+				} catch (Throwable e) {
+					// A subscriber that throws is cancelled, like SubmissionPublisher
+					cancel();
+					subscriber.onError(e);
+				}
+			}
+		}
+	}
+}
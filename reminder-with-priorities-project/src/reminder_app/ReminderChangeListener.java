@@ -0,0 +1,8 @@
+package reminder_app;
+
+// Notified after a reminder of a ReminderManager has been modified.
+// It is called on the thread that modified the reminder, so it should be quick.
+@FunctionalInterface
+public interface ReminderChangeListener {
+	void reminderChanged(ReminderManager manager, ReminderChange change, Reminder reminder);
+}
@@ -0,0 +1,74 @@
+package reminder_app;
+
+// Number of reminders by priority and status, for one user or every user (see
+// ReminderStatistics). A recurring reminder is one reminder, with the status
+// of its due date (its first pending occurrence).
+public final class ReminderCounts {
+	public enum Status {
+		PENDING, OVERDUE, COMPLETED
+	}
+
+	private static final Priority[] PRIORITIES = Priority.values();
+	private static final Status[] STATUSES = Status.values();
+
+	private final long[] counts = new long[PRIORITIES.length * STATUSES.length];
+
+	// Overdue : not completed and due before today
+	void add(Priority priority, long dueEpochDay, boolean isCompleted, long todayEpochDay) {
+		Status status = isCompleted ? Status.COMPLETED
+				: dueEpochDay < todayEpochDay ? Status.OVERDUE : Status.PENDING;
+		counts[priority.ordinal() * STATUSES.length + status.ordinal()]++;
+	}
+
+	void add(Reminder reminder, long todayEpochDay) {
+		add(reminder.getPriority(), reminder.getDate().toEpochDay(), reminder.isCompleted(), todayEpochDay);
+	}
+
+	void addAll(ReminderCounts other) {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+	}
+
+	public long get(Priority priority, Status status) {
+		return counts[priority.ordinal() * STATUSES.length + status.ordinal()];
+	}
+
+	public long get(Priority priority) {
+		long total = 0;
+		for (Status status : STATUSES) {
+			total += get(priority, status);
+		}
+		return total;
+	}
+
+	public long get(Status status) {
+		long total = 0;
+		for (Priority priority : PRIORITIES) {
+			total += get(priority, status);
+		}
+		return total;
+	}
+
+	public long getTotal() {
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		return total;
+	}
+
+	// One line per priority, HIGH first, then the total
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		for (int i = PRIORITIES.length - 1; i >= 0; i--) {
+			Priority priority = PRIORITIES[i];
+			text.append(String.format("%-7s %d pending, %d overdue, %d completed%n", priority,
+					get(priority, Status.PENDING), get(priority, Status.OVERDUE), get(priority, Status.COMPLETED)));
+		}
+		text.append(String.format("%-7s %d pending, %d overdue, %d completed", "TOTAL", get(Status.PENDING),
+				get(Status.OVERDUE), get(Status.COMPLETED)));
+		return text.toString();
+	}
+}
@@ -0,0 +1,70 @@
+package reminder_app;
+
+// One modification of a reminder, delivered by the ReminderChangeFeed.
+// The reminder is a copy made when it was modified, it doesn't change after.
+// For DELETED and CLEARED it is the reminder as it was removed.
+//
+// The events of a subscriber that lags behind are coalesced by reminder :
+// the event has the last state of the reminder and the last change, an ADDED
+// stays ADDED, an ADDED then DELETED is never delivered. It comes at the place
+// of the last modification, so the sequences of a subscriber always increase,
+// and applying the events by id always gives the current reminders.
+// An overflow event means the subscriber missed events, it should read the
+// reminders again (getReminders()), getChange() and getReminder() are null.
+public final class ReminderEvent {
+	private final long sequence;
+	private final ReminderChange change;
+	private final Reminder reminder;
+
+	ReminderEvent(long sequence, ReminderChange change, Reminder reminder) {
+		this.sequence = sequence;
+		this.change = change;
+		this.reminder = reminder;
+	}
+
+	static ReminderEvent overflow(long sequence) {
+		return new ReminderEvent(sequence, null, null);
+	}
+
+	// Increases with every modification of the manager, a coalesced event has
+	// the sequence of the last one
+	public long getSequence() {
+		return sequence;
+	}
+
+	public ReminderChange getChange() {
+		return change;
+	}
+
+	public Reminder getReminder() {
+		return reminder;
+	}
+
+	public long getReminderId() {
+		return reminder == null ? 0 : reminder.getId();
+	}
+
+	public boolean isOverflow() {
+		return change == null;
+	}
+
+	// True if the reminder isn't in the manager anymore
+	public boolean isRemoval() {
+		return change == ReminderChange.DELETED || change == ReminderChange.CLEARED;
+	}
+
+	// The event of the same reminder after this one, for a subscriber that
+	// didn't take this one yet. Null when neither should be delivered.
+	ReminderEvent coalesce(ReminderEvent next) {
+		if (change == ReminderChange.ADDED) {
+			return next.isRemoval() ? null : new ReminderEvent(next.sequence, ReminderChange.ADDED, next.reminder);
+		}
+		return next;
+	}
+
+	@Override
+	public String toString() {
+		return isOverflow() ? String.format("#%d OVERFLOW", sequence)
+				: String.format("#%d %s %s, ID = %d", sequence, change, reminder, reminder.getId());
+	}
+}
@@ -0,0 +1,288 @@
+package reminder_app;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+// Secondary indexes of the reminders of one user.
+// The reminders are grouped by priority, by due date (epoch day) and by completion,
+// so the filters doesn't need to scan every reminder.
+// Reminder doesn't override equals/hashCode, so the sets are identity based.
+// The ids are in a primitive hash map, finding a reminder by id is O(1).
+class ReminderIndex implements ReminderStore {
+	// Display order of the priorities
+	static final Priority[] PRIORITY_ORDER = { Priority.HIGH, Priority.MEDIUM, Priority.LOW };
+
+	private final LongHashMap<Reminder> byId = new LongHashMap<>();
+	private final Map<Priority, Set<Reminder>> byPriority = new EnumMap<>(Priority.class);
+	private final NavigableMap<Long, Set<Reminder>> byDueDate = new TreeMap<>();
+	private final Set<Reminder> completed = new LinkedHashSet<>();
+	private final Set<Reminder> pending = new LinkedHashSet<>();
+	private final Set<Reminder> recurring = new LinkedHashSet<>();
+
+	ReminderIndex() {
+		for (Priority priority : Priority.values()) {
+			byPriority.put(priority, new LinkedHashSet<>());
+		}
+	}
+
+	// The reminder itself is kept
+	@Override
+	public Reminder add(Reminder reminder) {
+		byId.put(reminder.getId(), reminder);
+		byPriority.get(reminder.getPriority()).add(reminder);
+		addToDueDate(reminder, reminder.getDate());
+		(reminder.isCompleted() ? completed : pending).add(reminder);
+		if (reminder.isRecurring()) {
+			recurring.add(reminder);
+		}
+		return reminder;
+	}
+
+	@Override
+	public Reminder remove(Reminder reminder) {
+		if (!byPriority.get(reminder.getPriority()).remove(reminder)) {
+			return null;
+		}
+
+		byId.remove(reminder.getId());
+		removeFromDueDate(reminder, reminder.getDate());
+		(reminder.isCompleted() ? completed : pending).remove(reminder);
+		recurring.remove(reminder);
+		return reminder;
+	}
+
+	// Removes every matching reminder in one pass over the priority groups
+	@Override
+	public List<Reminder> removeIf(Predicate<? super Reminder> filter) {
+		List<Reminder> removed = new ArrayList<>();
+		for (Priority priority : PRIORITY_ORDER) {
+			Iterator<Reminder> iterator = byPriority.get(priority).iterator();
+			while (iterator.hasNext()) {
+				Reminder reminder = iterator.next();
+				if (filter.test(reminder)) {
+					iterator.remove();
+					byId.remove(reminder.getId());
+					removeFromDueDate(reminder, reminder.getDate());
+					(reminder.isCompleted() ? completed : pending).remove(reminder);
+					recurring.remove(reminder);
+					removed.add(reminder);
+				}
+			}
+		}
+		return removed;
+	}
+
+	@Override
+	public void clear() {
+		byId.clear();
+		byPriority.values().forEach(Set::clear);
+		byDueDate.clear();
+		completed.clear();
+		pending.clear();
+		recurring.clear();
+	}
+
+	// These must be called after the reminder has been changed, with its old value
+	@Override
+	public void priorityChanged(Reminder reminder, Priority oldPriority) {
+		if (byPriority.get(oldPriority).remove(reminder)) {
+			byPriority.get(reminder.getPriority()).add(reminder);
+		}
+	}
+
+	@Override
+	public void dueDateChanged(Reminder reminder, LocalDate oldDueDate) {
+		removeFromDueDate(reminder, oldDueDate);
+		addToDueDate(reminder, reminder.getDate());
+	}
+
+	@Override
+	public void completionChanged(Reminder reminder) {
+		if (reminder.isCompleted()) {
+			pending.remove(reminder);
+			completed.add(reminder);
+		} else {
+			completed.remove(reminder);
+			pending.add(reminder);
+		}
+	}
+
+	@Override
+	public void recurrenceChanged(Reminder reminder) {
+		if (reminder.isRecurring()) {
+			recurring.add(reminder);
+		} else {
+			recurring.remove(reminder);
+		}
+	}
+
+	// Queries, each of them returns an independent list
+	@Override
+	public List<Reminder> byPriority(Priority priority) {
+		return new ArrayList<>(byPriority.get(priority));
+	}
+
+	// Reminders due from "from" up to "to", both inclusive
+	@Override
+	public List<Reminder> dueBetween(LocalDate from, LocalDate to) {
+		if (from.isAfter(to)) {
+			return new ArrayList<>();
+		}
+
+		return flatten(byDueDate.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values());
+	}
+
+	// Reminders due before the date, exclusive
+	@Override
+	public List<Reminder> dueBefore(LocalDate date) {
+		return flatten(byDueDate.headMap(date.toEpochDay(), false).values());
+	}
+
+	// Null if there isn't a reminder with this id
+	@Override
+	public Reminder byId(long id) {
+		return byId.get(id);
+	}
+
+	// Finds a reminder with the same values, used when the reminder object itself
+	// isn't available (ex. journal replay)
+	@Override
+	public Reminder findSame(Reminder values) {
+		Set<Reminder> sameDay = byDueDate.get(values.getDate().toEpochDay());
+		if (sameDay == null) {
+			return null;
+		}
+
+		for (Reminder reminder : sameDay) {
+			if (reminder.getPriority() == values.getPriority() && reminder.isCompleted() == values.isCompleted()
+					&& reminder.getMessage().equals(values.getMessage())) {
+				return reminder;
+			}
+		}
+		return null;
+	}
+
+	// Matching reminders in HIGH, MEDIUM, LOW order, nothing is changed
+	@Override
+	public List<Reminder> matching(Predicate<? super Reminder> filter) {
+		List<Reminder> result = new ArrayList<>();
+		for (Priority priority : PRIORITY_ORDER) {
+			for (Reminder reminder : byPriority.get(priority)) {
+				if (filter.test(reminder)) {
+					result.add(reminder);
+				}
+			}
+		}
+		return result;
+	}
+
+	// Only the pending reminders are tested
+	@Override
+	public List<Reminder> pendingMatching(Predicate<? super Reminder> filter) {
+		List<Reminder> result = new ArrayList<>();
+		for (Reminder reminder : pending) {
+			if (filter.test(reminder)) {
+				result.add(reminder);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<Reminder> completed() {
+		return new ArrayList<>(completed);
+	}
+
+	@Override
+	public List<Reminder> pending() {
+		return new ArrayList<>(pending);
+	}
+
+	@Override
+	public List<Reminder> recurring() {
+		return new ArrayList<>(recurring);
+	}
+
+	// HIGH, MEDIUM, LOW. Reminders with the same priority keep their insertion order
+	@Override
+	public List<Reminder> inPriorityOrder() {
+		List<Reminder> ordered = new ArrayList<>(size());
+		for (Priority priority : PRIORITY_ORDER) {
+			ordered.addAll(byPriority.get(priority));
+		}
+		return ordered;
+	}
+
+	@Override
+	public int size() {
+		return completed.size() + pending.size();
+	}
+
+	@Override
+	public int countByPriority(Priority priority) {
+		return byPriority.get(priority).size();
+	}
+
+	// One set size per day of the range
+	@Override
+	public int countDueBetween(LocalDate from, LocalDate to) {
+		if (from.isAfter(to)) {
+			return 0;
+		}
+
+		int count = 0;
+		for (Set<Reminder> sameDay : byDueDate.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values()) {
+			count += sameDay.size();
+		}
+		return count;
+	}
+
+	@Override
+	public int countCompleted() {
+		return completed.size();
+	}
+
+	@Override
+	public int countMatching(Predicate<? super Reminder> filter) {
+		int count = 0;
+		for (Set<Reminder> group : byPriority.values()) {
+			for (Reminder reminder : group) {
+				if (filter.test(reminder)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	private void addToDueDate(Reminder reminder, LocalDate dueDate) {
+		byDueDate.computeIfAbsent(dueDate.toEpochDay(), k -> new LinkedHashSet<>()).add(reminder);
+	}
+
+	private void removeFromDueDate(Reminder reminder, LocalDate dueDate) {
+		Long epochDay = dueDate.toEpochDay();
+		Set<Reminder> sameDay = byDueDate.get(epochDay);
+
+		if (sameDay != null && sameDay.remove(reminder) && sameDay.isEmpty()) {
+			byDueDate.remove(epochDay);
+		}
+	}
+
+	private static List<Reminder> flatten(Collection<Set<Reminder>> groups) {
+		List<Reminder> result = new ArrayList<>();
+		for (Set<Reminder> group : groups) {
+			result.addAll(group);
+		}
+		return result;
+	}
+}
@@ -1,64 +1,223 @@
 package reminder_app;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import project_exceptions.DueDateException;
 import project_exceptions.MessageException;
 import project_exceptions.PriorityException;
+import reminder_storage.AccountDirectory;
+import reminder_storage.JournalRecord;
+import reminder_storage.ReminderJournal;
+import reminder_storage.SnapshotHeader;
 
 // This class uses csv file to get reminders, modify it, and save it.
+// Modifications are recorded in the journal of the user, saving only appends them.
 public class ReminderManager implements ReminderService {
+	public static final String DEFAULT_ACCOUNTS_DIRECTORY = AccountDirectory.DEFAULT_ROOT;
+
 	// About user
 	private String email;
 	private String reminderFilePath;
-	private boolean isLoggedOut = false;
+	private volatile boolean isLoggedOut = false;
+
+	// Reminders of the user, indexed by priority, due date and completion, or
+	// in the arrays of a compact store
+	private final ReminderStore index;
+
+	// Cached HIGH, MEDIUM, LOW ordered list, this is what the reminder numbers are
+	// based on. It will be rebuilt after a modification.
+	private List<Reminder> reminders;
+
+	// Id of the next added reminder, ids are never reused
+	private long nextReminderId = 1;
+
+	// Modifications after the csv snapshot
+	private final ReminderJournal journal;
+
+	// Notified after every modification (ex. the scheduler of the due reminders)
+	private final List<ReminderChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+	// Words of the messages, built by the first search and then kept up to date
+	// as a change listener
+	private ReminderSearchIndex searchIndex;
+
+	// Made by the first getChangeFeed(), a change listener too
+	private volatile ReminderChangeFeed changeFeed;
 
-	// Reminders of the user
-	private List<Reminder> reminders = new ArrayList<>();
+	// Rank of every reminder for the paged queries, built by the first page the
+	// same way
+	private ReminderRankIndex rankIndex;
+
+	// Today for the queries and the due date rules
+	private final Clock clock;
 
 	public ReminderManager(String email) throws FileNotFoundException, IOException {
+		this(email, DEFAULT_ACCOUNTS_DIRECTORY);
+	}
+
+	// For keeping the accounts somewhere else (ex. benchmarks, tools)
+	public ReminderManager(String email, String accountsDirectory) throws FileNotFoundException, IOException {
+		this(email, accountsDirectory, ReminderStoreType.DEFAULT);
+	}
+
+	public ReminderManager(String email, String accountsDirectory, ReminderStoreType storeType)
+			throws FileNotFoundException, IOException {
+		this(email, accountsDirectory, storeType, Clock.systemDefaultZone());
+	}
+
+	// Another clock for the queries as of another day (ex. tests, reports)
+	public ReminderManager(String email, String accountsDirectory, ReminderStoreType storeType, Clock clock)
+			throws FileNotFoundException, IOException {
 		this.email = email;
-		reminderFilePath = String.format("src/resources/individual-accounts/%s.txt", email);
+		this.clock = clock;
+		index = storeType.newStore();
+		// Sharded by the email, or flat in a directory that isn't migrated yet
+		reminderFilePath = AccountDirectory.of(accountsDirectory).snapshotPath(email).toString();
+		journal = new ReminderJournal(reminderFilePath);
 
+		// The index keeps them grouped by priority, no need to sort
 		loadReminders();
-
-		// Sort the reminders based on the priority
-		// HIGH, MEDIUM, LOW
-		reminders.sort(getPriorityComparator());
 	}
 
 	@Override
 	public Reminder addReminder(Reminder reminder) {
-		// The reminder toString() already formatted it to a csv style
+		// The csv writer escapes the message when saving,
 		// it is safe to add to the reminders
-		reminders.add(reminder);
-
-		return reminder;
+		// The compact store gives back a view, not the added object
+		checkRecurrence(reminder);
+		reminder.setId(nextReminderId++);
+		Reminder addedReminder = index.add(reminder);
+		journal.logAdd(addedReminder);
+		reminders = null;
+		fireChange(ReminderChange.ADDED, addedReminder);
+
+		return addedReminder;
 	}
 
+	// The reminder numbers are the positions in getReminders(), they change when
+	// the reminders change. The ById methods use the id of the reminder instead,
+	// it doesn't change and the lookup is O(1).
 	@Override
 	public Reminder deleteReminder(int index) {
-		return reminders.remove(index);
+		return delete(getReminders().get(index));
+	}
+
+	@Override
+	public Reminder deleteReminderById(long id) {
+		return delete(findById(id));
 	}
 
 	@Override
 	public Reminder markReminder(int index) {
-		Reminder reminderToMark = reminders.get(index);
-		reminderToMark.setCompleted(true);
+		return mark(getReminders().get(index));
+	}
+
+	@Override
+	public Reminder markReminderById(long id) {
+		return mark(findById(id));
+	}
+
+	@Override
+	public Reminder markOccurrenceById(long id, LocalDate occurrence) {
+		Reminder reminder = findById(id);
+		if (!occurrence.equals(reminder.pendingOccurrenceFrom(occurrence))) {
+			throw new IllegalArgumentException(
+					String.format("%s isn't a pending occurrence of reminder id %d", occurrence, id));
+		}
+
+		if (occurrence.equals(reminder.getDate())) {
+			return mark(reminder);
+		}
+
+		journal.logMarkOccurrence(reminder, occurrence);
+		completeAhead(reminder, occurrence);
+		fireChange(ReminderChange.OCCURRENCE_MARKED, reminder);
+		return reminder.occurrence(occurrence);
+	}
+
+	@Override
+	// Null if the user doesn't have a reminder with this id
+	public Reminder getReminderById(long id) {
+		return index.byId(id);
+	}
+
+	private Reminder delete(Reminder reminderToDelete) {
+		// The removed reminder stays valid, a view of a compact store doesn't
+		Reminder deletedReminder = this.index.remove(reminderToDelete);
+		journal.logDelete(deletedReminder);
+		reminders = null;
+		fireChange(ReminderChange.DELETED, deletedReminder);
+
+		return deletedReminder;
+	}
+
+	private Reminder mark(Reminder reminderToMark) {
+		journal.logMark(reminderToMark);
+		fireChange(applyMark(reminderToMark), reminderToMark);
 		return reminderToMark;
 	}
 
+	// A recurring reminder moves to its next pending occurrence, it is only
+	// completed after its last one. Also used by the journal replay.
+	private ReminderChange applyMark(Reminder reminder) {
+		if (reminder.isRecurring() && !reminder.isCompleted()) {
+			LocalDate next = reminder.getRecurrence().firstPendingOnOrAfter(reminder.getDate().plusDays(1));
+			if (next != null) {
+				LocalDate oldDueDate = reminder.getDate();
+				reminder.setRecurrence(reminder.getRecurrence().withoutCompletedUpTo(next));
+				index.recurrenceChanged(reminder);
+				reminder.setDueDate(next);
+				index.dueDateChanged(reminder, oldDueDate);
+				return ReminderChange.DUE_DATE_CHANGED;
+			}
+		}
+
+		reminder.setCompleted(true);
+		index.completionChanged(reminder);
+		return ReminderChange.MARKED;
+	}
+
+	// Only an occurrence after the due date, the due date is its first pending one
+	private void completeAhead(Reminder reminder, LocalDate occurrence) {
+		reminder.setRecurrence(reminder.getRecurrence().withCompletedAhead(occurrence));
+		index.recurrenceChanged(reminder);
+	}
+
+	// A recurring reminder starts again from its new due date
+	private void applyDueDate(Reminder reminder, LocalDate newDueDate) {
+		LocalDate oldDueDate = reminder.getDate();
+		if (reminder.isRecurring()) {
+			reminder.setRecurrence(reminder.getRecurrence().startingOn(newDueDate));
+			index.recurrenceChanged(reminder);
+		}
+		reminder.setDueDate(newDueDate);
+		index.dueDateChanged(reminder, oldDueDate);
+	}
+
+	// The due date of a recurring reminder is one of its occurrences
+	// Also used by the ReminderBulkTool on the imported reminders
+	static void checkRecurrence(Reminder reminder) {
+		if (reminder.isRecurring() && !reminder.getRecurrence().isOccurrence(reminder.getDate())) {
+			throw new IllegalArgumentException(
+					String.format("%s isn't an occurrence of %s", reminder.getDate(), reminder.getRecurrence()));
+		}
+	}
+
+	@Override
 	public List<Reminder> getReminderByDueDate(LocalDate dueDateInput) {
 		// When using add and defined list
 //		List<Reminder> definedDueDateReminders = new ArrayList<>();
@@ -67,47 +226,311 @@ public class ReminderManager implements ReminderService {
 //		return definedDueDateReminders;
 
 		// More cleaner
-		return reminders.stream().filter(
-
-				// if date is 23 and due date is 28
-				// the reminder is 25, then this reminder is true.
-				// Because 25 is not before 23 and 25 is not after 28
-				reminder -> !reminder.getDate().isBefore(LocalDate.now()) && !reminder.getDate().isAfter(dueDateInput))
-				.collect(Collectors.toList());
+//		return reminders.stream().filter(
+//				reminder -> !reminder.getDate().isBefore(LocalDate.now()) && !reminder.getDate().isAfter(dueDateInput))
+//				.collect(Collectors.toList());
+
+		// Using the due date index, sorted by due date
+		// if date is 23 and due date is 28
+		// the reminder is 25, then this reminder is included.
+		// Because 25 is not before 23 and 25 is not after 28
+		LocalDate today = today();
+		return withOccurrences(index.dueBetween(today, dueDateInput), today, dueDateInput);
 	}
 
+	@Override
 	public List<Reminder> getReminderByPriority(Priority filteredPriority) {
-		return reminders.stream().filter(e -> e.getPriority() == filteredPriority).collect(Collectors.toList());
+		return index.byPriority(filteredPriority);
 	}
 
+	@Override
 	public List<Reminder> getReminderByPastDue() {
 		// If due date is before today
 		// Ex : 16 due is before 18 today = true, therefore this reminder is past due
-		return reminders.stream().filter(e -> e.getDate().isBefore(LocalDate.now())).collect(Collectors.toList());
+		// Every missed occurrence of a recurring reminder is past due
+		LocalDate today = today();
+		return withOccurrences(index.dueBefore(today), LocalDate.MIN, today.minusDays(1));
 	}
 
-	// Improve this using stream
-	public List<Reminder> clearReminders() {
-		List<Reminder> clearedReminders = new LinkedList<>();
+	// The pending recurring reminders are replaced by their occurrences from
+	// "from" up to "to", sorted by due date again. The occurrences are only
+	// made here, the reminder itself is stored once.
+	private List<Reminder> withOccurrences(List<Reminder> due, LocalDate from, LocalDate to) {
+		List<Reminder> recurring = index.recurring();
+		if (recurring.isEmpty()) {
+			return due;
+		}
 
-		for (int i = 0; i < reminders.size(); i++) {
-			if (reminders.get(i).isCompleted() == true) {
-				// the removed reminder will return the reminder then will be added to the
-				// cleared reminders
-				clearedReminders.add(reminders.remove(i));
+		due.removeIf(reminder -> reminder.isRecurring() && !reminder.isCompleted());
+		for (Reminder reminder : recurring) {
+			if (!reminder.isCompleted()) {
+				LocalDate first = reminder.getDate().isAfter(from) ? reminder.getDate() : from;
+				reminder.getRecurrence().forEachBetween(first, to, date -> due.add(reminder.occurrence(date)));
 			}
 		}
 
-		return clearedReminders;
+		// Stable, the order of the reminders of the same day is kept
+		due.sort(Comparator.comparing(Reminder::getDate));
+		return due;
 	}
 
+	@Override
+	// HIGH, MEDIUM, LOW then by due date, see ReminderSearchIndex for the query
+	public List<Reminder> searchReminders(String query, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("The limit should be at least 1");
+		}
+
+		long[] ids = searchIndex().search(query, limit);
+		List<Reminder> foundReminders = new ArrayList<>(ids.length);
+		for (long id : ids) {
+			foundReminders.add(index.byId(id));
+		}
+
+		return foundReminders;
+	}
+
+	@Override
+	// See ReminderQueryPlan for the index that is read. The stream should be
+	// consumed before the next modification.
+	public Stream<Reminder> query(ReminderQuery query) {
+		return plan(query).stream();
+	}
+
+	@Override
+	public long count(ReminderQuery query) {
+		return plan(query).count();
+	}
+
+	// Today is read once for the whole query
+	ReminderQueryPlan plan(ReminderQuery query) {
+		return ReminderQueryPlan.of(query, index, rankIndex, today());
+	}
+
+	boolean hasSearchIndex() {
+		return searchIndex != null;
+	}
+
+	ReminderSearchIndex searchIndex() {
+		if (searchIndex == null) {
+			searchIndex = new ReminderSearchIndex(getReminders());
+			addChangeListener(searchIndex);
+		}
+
+		return searchIndex;
+	}
+
+	// Paged queries, HIGH, MEDIUM, LOW then by due date
+	@Override
+	public ReminderPage getRemindersPage(String pageToken, int pageSize) {
+		return page(new long[] { 0, Long.MAX_VALUE }, pageToken, pageSize);
+	}
+
+	@Override
+	public ReminderPage getReminderByPriorityPage(Priority filteredPriority, String pageToken, int pageSize) {
+		return page(new long[] { ReminderRank.firstOf(filteredPriority), ReminderRank.afterOf(filteredPriority) },
+				pageToken, pageSize);
+	}
+
+	// Same reminders as getReminderByDueDate(), from today up to the due date
+	@Override
+	public ReminderPage getReminderByDueDatePage(LocalDate dueDateInput, String pageToken, int pageSize) {
+		LocalDate today = today();
+		if (today.isAfter(dueDateInput)) {
+			return page(new long[0], pageToken, pageSize);
+		}
+
+		long[] ranges = new long[ReminderIndex.PRIORITY_ORDER.length * 2];
+		for (int i = 0; i < ReminderIndex.PRIORITY_ORDER.length; i++) {
+			ranges[2 * i] = ReminderRank.first(ReminderIndex.PRIORITY_ORDER[i], today);
+			ranges[2 * i + 1] = ReminderRank.after(ReminderIndex.PRIORITY_ORDER[i], dueDateInput);
+		}
+		return page(ranges, pageToken, pageSize);
+	}
+
+	@Override
+	public ReminderPage getReminderByPastDuePage(String pageToken, int pageSize) {
+		LocalDate today = today();
+		long[] ranges = new long[ReminderIndex.PRIORITY_ORDER.length * 2];
+		for (int i = 0; i < ReminderIndex.PRIORITY_ORDER.length; i++) {
+			ranges[2 * i] = ReminderRank.firstOf(ReminderIndex.PRIORITY_ORDER[i]);
+			ranges[2 * i + 1] = ReminderRank.first(ReminderIndex.PRIORITY_ORDER[i], today);
+		}
+		return page(ranges, pageToken, pageSize);
+	}
+
+	// Only the reminders of the page are read, O(page size + log n)
+	private ReminderPage page(long[] ranges, String pageToken, int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("The page size should be at least 1");
+		}
+
+		long[] keys = rankIndex().keys(ranges, ReminderPage.rankKeyOf(pageToken), pageSize);
+		int count = Math.min(keys.length, pageSize);
+		List<Reminder> pageReminders = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			pageReminders.add(index.byId(ReminderRank.id(keys[i])));
+		}
+
+		return new ReminderPage(pageReminders, keys.length > pageSize ? ReminderPage.tokenOf(keys[pageSize]) : null);
+	}
+
+	boolean hasRankIndex() {
+		return rankIndex != null;
+	}
+
+	ReminderRankIndex rankIndex() {
+		if (rankIndex == null) {
+			rankIndex = new ReminderRankIndex(getReminders());
+			addChangeListener(rankIndex);
+		}
+
+		return rankIndex;
+	}
+
+	@Override
+	public List<Reminder> clearReminders() {
+		// Every completed reminder is already in the index, no need to test the others
+		List<Reminder> clearedReminders = new ArrayList<>();
+
+		for (Reminder completedReminder : index.completed()) {
+			clearedReminders.add(index.remove(completedReminder));
+		}
+
+		return removed(clearedReminders, ReminderChange.CLEARED);
+	}
+
+	// Bulk modifications
+	// The index is updated once per reminder and the list is rebuilt once per
+	// batch. The journal records are only buffered, one saveReminders() appends
+	// the whole batch at once.
+	@Override
+	public List<Reminder> addAll(Collection<Reminder> remindersToAdd) {
+		List<Reminder> addedReminders = new ArrayList<>(remindersToAdd.size());
+
+		for (Reminder reminder : remindersToAdd) {
+			checkRecurrence(reminder);
+		}
+
+		for (Reminder reminder : remindersToAdd) {
+			reminder.setId(nextReminderId++);
+			Reminder addedReminder = index.add(reminder);
+			journal.logAdd(addedReminder);
+			addedReminders.add(addedReminder);
+		}
+
+		if (!addedReminders.isEmpty()) {
+			reminders = null;
+		}
+
+		for (Reminder reminder : addedReminders) {
+			fireChange(ReminderChange.ADDED, reminder);
+		}
+
+		return addedReminders;
+	}
+
+	@Override
+	public List<Reminder> deleteIf(Predicate<? super Reminder> filter) {
+		return removed(index.removeIf(filter), ReminderChange.DELETED);
+	}
+
+	@Override
+	public List<Reminder> markIf(Predicate<? super Reminder> filter) {
+		List<Reminder> markedReminders = index.pendingMatching(filter);
+		ReminderChange[] changes = new ReminderChange[markedReminders.size()];
+
+		for (int i = 0; i < changes.length; i++) {
+			journal.logMark(markedReminders.get(i));
+			changes[i] = applyMark(markedReminders.get(i));
+		}
+
+		for (int i = 0; i < changes.length; i++) {
+			fireChange(changes[i], markedReminders.get(i));
+		}
+
+		return markedReminders;
+	}
+
+	@Override
+	public List<Reminder> changePriorityIf(Predicate<? super Reminder> filter, Priority newPriority) {
+		List<Reminder> changedReminders = index
+				.matching(reminder -> reminder.getPriority() != newPriority && filter.test(reminder));
+
+		for (Reminder reminder : changedReminders) {
+			Priority oldPriority = reminder.getPriority();
+			journal.logPriority(reminder, newPriority);
+			reminder.setPriority(newPriority);
+			index.priorityChanged(reminder, oldPriority);
+		}
+
+		if (!changedReminders.isEmpty()) {
+			reminders = null;
+		}
+
+		for (Reminder reminder : changedReminders) {
+			fireChange(ReminderChange.PRIORITY_CHANGED, reminder);
+		}
+
+		return changedReminders;
+	}
+
+	// Same rule as changeReminderDueDate(), only the reminders due after today
+	@Override
+	public List<Reminder> changeDueDateIf(Predicate<? super Reminder> filter, LocalDate newDueDate) {
+		LocalDate today = today();
+		List<Reminder> changedReminders = index.matching(reminder -> !reminder.getDate().isEqual(newDueDate)
+				&& reminder.getDate().isAfter(today) && filter.test(reminder));
+
+		for (Reminder reminder : changedReminders) {
+			journal.logDueDate(reminder, newDueDate);
+			applyDueDate(reminder, newDueDate);
+		}
+
+		for (Reminder reminder : changedReminders) {
+			fireChange(ReminderChange.DUE_DATE_CHANGED, reminder);
+		}
+
+		return changedReminders;
+	}
+
+	// Reminders that have been removed from the index
+	private List<Reminder> removed(List<Reminder> removedReminders, ReminderChange change) {
+		for (Reminder reminder : removedReminders) {
+			journal.logDelete(reminder);
+		}
+
+		if (!removedReminders.isEmpty()) {
+			reminders = null;
+		}
+
+		for (Reminder reminder : removedReminders) {
+			fireChange(change, reminder);
+		}
+
+		return removedReminders;
+	}
+
+	@Override
 	// Changing priority
 	public Reminder changeReminderPriority(int index, Priority newPriority) throws PriorityException {
-		Reminder reminderToChange = reminders.get(index);
+		return changePriority(getReminders().get(index), newPriority);
+	}
+
+	@Override
+	public Reminder changeReminderPriorityById(long id, Priority newPriority) throws PriorityException {
+		return changePriority(findById(id), newPriority);
+	}
 
+	private Reminder changePriority(Reminder reminderToChange, Priority newPriority) throws PriorityException {
 		// Reminder priority and new priority should not be equal
 		if (reminderToChange.getPriority() != newPriority) {
+			Priority oldPriority = reminderToChange.getPriority();
+			journal.logPriority(reminderToChange, newPriority);
 			reminderToChange.setPriority(newPriority);
+			this.index.priorityChanged(reminderToChange, oldPriority);
+			reminders = null;
+			fireChange(ReminderChange.PRIORITY_CHANGED, reminderToChange);
 
 			// This is redundant, unless changing a different object
 //			// Setting back to the reminders container
@@ -119,14 +542,24 @@ public class ReminderManager implements ReminderService {
 		throw new PriorityException("Priority is already " + reminderToChange.getPriority());
 	}
 
+	@Override
 	// Changing due date
 	public Reminder changeReminderDueDate(int index, LocalDate newDueDate) throws DueDateException {
-		Reminder reminderToChange = reminders.get(index);
+		return changeDueDate(getReminders().get(index), newDueDate);
+	}
 
+	@Override
+	public Reminder changeReminderDueDateById(long id, LocalDate newDueDate) throws DueDateException {
+		return changeDueDate(findById(id), newDueDate);
+	}
+
+	private Reminder changeDueDate(Reminder reminderToChange, LocalDate newDueDate) throws DueDateException {
 		// Reminder due date should not be equal to the existing due date and should be
 		// greater than today
-		if (!reminderToChange.getDate().isEqual(newDueDate) && reminderToChange.getDate().isAfter(LocalDate.now())) {
-			reminderToChange.setDueDate(newDueDate);
+		if (!reminderToChange.getDate().isEqual(newDueDate) && reminderToChange.getDate().isAfter(today())) {
+			journal.logDueDate(reminderToChange, newDueDate);
+			applyDueDate(reminderToChange, newDueDate);
+			fireChange(ReminderChange.DUE_DATE_CHANGED, reminderToChange);
 
 			// This is redundant, unless changing a different object
 			// Setting back to the reminders container
@@ -139,11 +572,21 @@ public class ReminderManager implements ReminderService {
 		throw new DueDateException("Due date is already " + reminderToChange.getDate());
 	}
 
+	@Override
 	public Reminder changeReminderMessage(int index, String message) throws MessageException {
-		Reminder reminderToChange = reminders.get(index);
+		return changeMessage(getReminders().get(index), message);
+	}
+
+	@Override
+	public Reminder changeReminderMessageById(long id, String message) throws MessageException {
+		return changeMessage(findById(id), message);
+	}
 
+	private Reminder changeMessage(Reminder reminderToChange, String message) throws MessageException {
 		if (!reminderToChange.getMessage().trim().equals(message)) {
+			journal.logMessage(reminderToChange, message);
 			reminderToChange.setMessage(message);
+			fireChange(ReminderChange.MESSAGE_CHANGED, reminderToChange);
 
 			return reminderToChange;
 		}
@@ -151,22 +594,50 @@ public class ReminderManager implements ReminderService {
 		throw new MessageException("Message is already " + reminderToChange.getMessage());
 	}
 
-	// Save the reminders to the csv
+	@Override
+	// Save the modifications to the journal, the csv is only rewritten when the
+	// journal becomes too big
 	public String saveReminders() throws IOException {
-		// The reminders will be sorted again if user saved it
-		reminders.sort(getPriorityComparator());
-
-		try (BufferedWriter bw = new BufferedWriter(new FileWriter(reminderFilePath))) {
-			for (Reminder line : reminders) {
-				// Making it string
-				bw.write(line.toString());
-				bw.newLine();
+		journal.commit();
+
+		if (journal.shouldCompact()) {
+			// The compaction runs in the background, it needs its own copy
+			// The reminders are saved in HIGH, MEDIUM, LOW order
+			List<Reminder> committedReminders = new ArrayList<>(index.size());
+			for (Reminder reminder : getReminders()) {
+				committedReminders.add(reminder.copy());
 			}
+			journal.compact(committedReminders, nextReminderId);
 		}
 
 		return "Saved Successfully!";
 	}
 
+	@Override
+	// True if there are modifications that are not saved yet
+	public boolean hasUnsavedModifications() {
+		return journal.hasPendingRecords();
+	}
+
+	// Group commit of the ReminderWriteBehind, the journals of the group are
+	// all written, then all forced
+	long writeJournal() throws IOException {
+		return journal.writePending();
+	}
+
+	void forceJournal() throws IOException {
+		journal.force();
+	}
+
+	boolean shouldCompactJournal() {
+		return journal.shouldCompact();
+	}
+
+	// Completed when the background compaction started by a save has finished
+	CompletableFuture<Void> journalCompaction() {
+		return journal.compaction();
+	}
+
 	// TODO
 	// 4. Display Reminders
 	// - Based on Due Date
@@ -177,63 +648,175 @@ public class ReminderManager implements ReminderService {
 
 	// 5. Clear Reminders (Completed or all)
 	// 6. Change priority and due date (If completed, cannot use this)
-	// 7. Save (If user didn't save, the modified reminders will not saved to csv
-	// file)
+	// 7. Save (The registry and the write-behind save the modifications too, this
+	// one writes them right away)
 
 	// This will load the list of reminders then stores it to the lists
+	// The saved journal records are applied on top of the csv
 	private void loadReminders() throws FileNotFoundException, IOException {
-		try (BufferedReader br = new BufferedReader(new FileReader(reminderFilePath))) {
-			String line;
-			while ((line = br.readLine()) != null) {
-				String parts[] = line.trim().split(", ");
-
-				// Just make sure that the csv is accurate
-				LocalDate dueDate = LocalDate.parse(parts[0]);
-				Priority priority = Priority.valueOf(parts[1]);
-				String message = parts[2];
-				boolean isCompleted = Boolean.parseBoolean(parts[3]);
-
-				Reminder reminder = new Reminder(dueDate, priority, message, isCompleted);
-				reminders.add(reminder);
+		SnapshotHeader header = journal.load(this::loadReminder, this::applyJournalRecord);
+		nextReminderId = Math.max(nextReminderId, header.getNextReminderId());
+	}
+
+	// The files before the ids doesn't have them, they are given in the order
+	// of the file and the journal, so it is the same on every load until the
+	// next compaction saves them
+	private void loadReminder(Reminder reminder) {
+		if (reminder.getId() == 0) {
+			reminder.setId(nextReminderId++);
+		} else {
+			nextReminderId = Math.max(nextReminderId, reminder.getId() + 1);
+		}
+		index.add(reminder);
+	}
+
+	private void applyJournalRecord(JournalRecord record) throws IOException {
+		if (record.getOperation() == JournalRecord.Operation.ADD) {
+			loadReminder(record.getTarget());
+			return;
+		}
+
+		// The record has the values of the reminder before it was modified
+		// The older records doesn't have the id, the values are compared instead
+		long id = record.getTarget().getId();
+		Reminder reminder = id > 0 ? index.byId(id) : index.findSame(record.getTarget());
+		if (reminder == null) {
+			throw new IOException(String.format("Journal record %d doesn't match any reminder of %s",
+					record.getSequence(), email));
+		}
+
+		switch (record.getOperation()) {
+		case DELETE:
+			index.remove(reminder);
+			break;
+		case MARK:
+			applyMark(reminder);
+			break;
+		case MARK_OCCURRENCE:
+			completeAhead(reminder, record.getNewDueDate());
+			break;
+		case PRIORITY:
+			Priority oldPriority = reminder.getPriority();
+			reminder.setPriority(record.getNewPriority());
+			index.priorityChanged(reminder, oldPriority);
+			break;
+		case DUE_DATE:
+			applyDueDate(reminder, record.getNewDueDate());
+			break;
+		case MESSAGE:
+			reminder.setMessage(record.getNewMessage());
+			break;
+		default:
+			break;
+		}
+	}
+
+	// The modifications as a Flow.Publisher of ReminderEvents, see ReminderChangeFeed.
+	// Completed by logout(). Safe from any thread, the subscribers are called on
+	// the common pool.
+	public ReminderChangeFeed getChangeFeed() {
+		ReminderChangeFeed feed = changeFeed;
+		if (feed == null) {
+			synchronized (changeListeners) {
+				feed = changeFeed;
+				if (feed == null) {
+					feed = new ReminderChangeFeed();
+					if (isLoggedOut) {
+						feed.close();
+					} else {
+						addChangeListener(feed);
+					}
+					changeFeed = feed;
+				}
 			}
 		}
+		return feed;
 	}
 
-	// Comparator logic
-	private Comparator<Reminder> getPriorityComparator() {
-		return (s1, s2) -> Integer.compare(getTypePriorityNum(s1.getPriority()), getTypePriorityNum(s2.getPriority()));
+	public void addChangeListener(ReminderChangeListener listener) {
+		changeListeners.add(listener);
 	}
 
-	private int getTypePriorityNum(Priority priority) {
-		switch (priority) {
-		case HIGH:
-			return 0;
-		case MEDIUM:
-			return 1;
-		case LOW:
-			return 2;
-		default:
-			return 3;
+	public void removeChangeListener(ReminderChangeListener listener) {
+		changeListeners.remove(listener);
+	}
+
+	private void fireChange(ReminderChange change, Reminder reminder) {
+		for (ReminderChangeListener listener : changeListeners) {
+			listener.reminderChanged(this, change, reminder);
 		}
 	}
 
+	private LocalDate today() {
+		return LocalDate.now(clock);
+	}
+
 	public static LocalDate nowPlusDays(int plusDays) {
 		return LocalDate.now().plusDays(plusDays);
 	}
 
+	private Reminder findById(long id) {
+		Reminder reminder = index.byId(id);
+		if (reminder == null) {
+			throw new NoSuchElementException("Reminder id " + id + " doesn't exist!");
+		}
+		return reminder;
+	}
+
+	@Override
 	public int getRemindersCount() {
-		return reminders.size();
+		return index.size();
+	}
+
+	@Override
+	public long getBytesRead() {
+		return journal.getBytesRead();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return journal.getBytesWritten();
+	}
+
+	// Called with the bytes of every save, and of the background compactions
+	public void setBytesWrittenListener(LongConsumer listener) {
+		journal.setWriteListener(listener);
 	}
 
 	// For user's logout
+	// The pending journal records of a manager used on its own are dropped. The
+	// ReminderManagerRegistry saves a manager before logging it out (when it is
+	// evicted or closed), and a ReminderWriteBehind commits the modifications
+	// in the background, so the app doesn't lose them.
 	public void logout() {
 		isLoggedOut = true;
+
+		ReminderChangeFeed feed;
+		synchronized (changeListeners) {
+			feed = changeFeed;
+		}
+		if (feed != null) {
+			removeChangeListener(feed);
+			feed.close();
+		}
+
+		try {
+			journal.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	public boolean isLoggedOut() {
 		return isLoggedOut;
 	}
 
+	// For the ReminderBulkTool, the ids of the deleted reminders aren't given again
+	long getNextReminderId() {
+		return nextReminderId;
+	}
+
+	@Override
 	// Getters and Setters
 	public String getEmail() {
 		return email;
@@ -243,11 +826,14 @@ public class ReminderManager implements ReminderService {
 		this.email = email;
 	}
 
-	// This will also sort the list whenever they will display or get.
-	// For making sure the list is in ordered whenever they will perform
-	// modification
+	@Override
+	// The list is always ordered HIGH, MEDIUM, LOW whenever they will display or
+	// get. It is only rebuilt after a modification, not on every call.
+	// Reminders should be modified through this class so the index stays correct.
 	public List<Reminder> getReminders() {
-		reminders.sort(getPriorityComparator());
+		if (reminders == null) {
+			reminders = Collections.unmodifiableList(index.inPriorityOrder());
+		}
 
 		return reminders;
 	}
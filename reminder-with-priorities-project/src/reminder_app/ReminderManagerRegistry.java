@@ -0,0 +1,291 @@
+package reminder_app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Keeps the loaded ReminderManager of every user, so a login doesn't reload the
+// files of the user each time. Sessions of the same user share one manager.
+//
+// The least recently used managers that are not in use are evicted when there
+// are more managers or more reminders than the budget. Unsaved modifications
+// are saved when a manager is evicted or when the registry is closed.
+// With a ReminderWriteBehind, the loaded managers are also saved in the
+// background while they are in the registry.
+public class ReminderManagerRegistry implements Closeable {
+	public static final int DEFAULT_MAX_MANAGERS = 1000;
+
+	// Loads the manager of a user (ex. from another directory, or timed by the metrics)
+	@FunctionalInterface
+	public interface Loader {
+		ReminderManager load(String email) throws IOException;
+	}
+
+	private static final class Entry {
+		private final String email;
+		private volatile ReminderManager manager;
+		private IOException loadFailure;
+
+		// Shared thread-safe view, for sessions that run on different threads
+		private volatile ConcurrentReminderManager concurrent;
+
+		// Sessions that acquired the manager and didn't release it yet
+		private int users;
+
+		// Completed when the evicted manager has been saved, and the compaction
+		// started by the save has finished
+		private final CompletableFuture<Void> saved = new CompletableFuture<>();
+
+		private Entry(String email) {
+			this.email = email;
+		}
+
+		// The first session loads the manager, the others wait for it
+		private synchronized ReminderManager load(Loader loader) throws IOException {
+			if (manager == null && loadFailure == null) {
+				try {
+					ReminderManager loading = loader.load(email);
+					concurrent = new ConcurrentReminderManager(loading);
+					manager = loading;
+				} catch (IOException e) {
+					loadFailure = e;
+				}
+			}
+
+			if (loadFailure != null) {
+				throw loadFailure;
+			}
+			return manager;
+		}
+
+		// Null while it is loading
+		private ReminderManager loaded() {
+			return manager;
+		}
+	}
+
+	private final int maxManagers;
+	private final long maxReminders;
+	private final Loader loader;
+
+	// Null without background saves
+	private final ReminderWriteBehind writeBehind;
+
+	// Access ordered, the first entry is the least recently used
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	// Evicted managers that are still being saved, a new login of the same
+	// user waits for it before reading the files again
+	private final Map<String, CompletableFuture<Void>> evicting = new HashMap<>();
+
+	public ReminderManagerRegistry() {
+		this(DEFAULT_MAX_MANAGERS, Long.MAX_VALUE);
+	}
+
+	// maxReminders is the memory budget, the total reminders of the cached managers
+	public ReminderManagerRegistry(int maxManagers, long maxReminders) {
+		this(maxManagers, maxReminders, ReminderManager::new);
+	}
+
+	public ReminderManagerRegistry(int maxManagers, long maxReminders, Loader loader) {
+		this(maxManagers, maxReminders, loader, null);
+	}
+
+	public ReminderManagerRegistry(int maxManagers, long maxReminders, Loader loader,
+			ReminderWriteBehind writeBehind) {
+		if (maxManagers < 1 || maxReminders < 1) {
+			throw new IllegalArgumentException("The registry budget should be at least 1");
+		}
+
+		this.maxManagers = maxManagers;
+		this.maxReminders = maxReminders;
+		this.loader = loader;
+		this.writeBehind = writeBehind;
+	}
+
+	// Every acquire should be followed by a release when the session ends
+	public ReminderManager acquire(String email) throws IOException {
+		Entry entry;
+		CompletableFuture<Void> saving;
+
+		synchronized (this) {
+			entry = entries.computeIfAbsent(email, Entry::new);
+			entry.users++;
+			saving = evicting.get(email);
+		}
+
+		try {
+			if (saving != null) {
+				saving.join();
+			}
+
+			ReminderManager manager = entry.load(loader);
+			if (writeBehind != null) {
+				writeBehind.track(entry.concurrent);
+			}
+			evictOverBudget();
+			return manager;
+		} catch (IOException | RuntimeException e) {
+			synchronized (this) {
+				entry.users--;
+				if (entry.users == 0 && entries.get(email) == entry) {
+					entries.remove(email);
+				}
+			}
+			throw e;
+		}
+	}
+
+	// Same as acquire(), for sessions on different threads. The view should be
+	// released with release(view.getManager())
+	public ConcurrentReminderManager acquireConcurrent(String email) throws IOException {
+		acquire(email);
+
+		synchronized (this) {
+			return entries.get(email).concurrent;
+		}
+	}
+
+	public void release(ReminderManager manager) {
+		synchronized (this) {
+			Entry entry = entries.get(manager.getEmail());
+			if (entry == null || entry.loaded() != manager || entry.users == 0) {
+				return;
+			}
+			entry.users--;
+		}
+
+		evictOverBudget();
+	}
+
+	// Saves every manager that has unsaved modifications
+	public void flushAll() throws IOException {
+		List<Entry> loaded = new ArrayList<>();
+		synchronized (this) {
+			for (Entry entry : entries.values()) {
+				if (entry.loaded() != null) {
+					loaded.add(entry);
+				}
+			}
+		}
+
+		for (Entry entry : loaded) {
+			flush(entry);
+		}
+	}
+
+	// Null without background saves
+	public ReminderWriteBehind getWriteBehind() {
+		return writeBehind;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized boolean isLoaded(String email) {
+		// Not using get(), it would change the access order
+		return entries.containsKey(email);
+	}
+
+	// Saves and closes every manager
+	@Override
+	public void close() throws IOException {
+		flushAll();
+
+		List<ReminderManager> managers = new ArrayList<>();
+		synchronized (this) {
+			for (Entry entry : entries.values()) {
+				if (entry.loaded() != null) {
+					managers.add(entry.loaded());
+				}
+			}
+			entries.clear();
+		}
+
+		for (ReminderManager manager : managers) {
+			if (writeBehind != null) {
+				writeBehind.untrack(manager);
+			}
+			manager.logout();
+		}
+
+		// The compactor is a daemon thread, it would be stopped by the exit
+		for (ReminderManager manager : managers) {
+			manager.journalCompaction().join();
+		}
+	}
+
+	private void evictOverBudget() {
+		List<Entry> victims = new ArrayList<>();
+
+		synchronized (this) {
+			long reminders = maxReminders == Long.MAX_VALUE ? 0 : countReminders();
+
+			Iterator<Entry> iterator = entries.values().iterator();
+			while ((entries.size() > maxManagers || reminders > maxReminders) && iterator.hasNext()) {
+				Entry entry = iterator.next();
+				ReminderManager manager = entry.loaded();
+
+				// Managers in use or still loading are kept
+				if (entry.users > 0 || manager == null) {
+					continue;
+				}
+
+				iterator.remove();
+				reminders -= maxReminders == Long.MAX_VALUE ? 0 : manager.getRemindersCount();
+				evicting.put(entry.email, entry.saved);
+				victims.add(entry);
+			}
+		}
+
+		// Saving outside of the lock, the other users doesn't wait for the disk
+		for (Entry victim : victims) {
+			ReminderManager manager = victim.loaded();
+			if (writeBehind != null) {
+				writeBehind.untrack(manager);
+			}
+
+			try {
+				flush(victim);
+			} catch (IOException e) {
+				// Same as the other background saves, it can't be reported to a user
+				e.printStackTrace();
+			} finally {
+				manager.logout();
+
+				// The save can start a compaction, the user is reloaded after it
+				manager.journalCompaction().whenComplete((ignored, failure) -> {
+					synchronized (this) {
+						evicting.remove(victim.email, victim.saved);
+					}
+					victim.saved.complete(null);
+				});
+			}
+		}
+	}
+
+	private long countReminders() {
+		long count = 0;
+		for (Entry entry : entries.values()) {
+			ReminderManager manager = entry.loaded();
+			if (manager != null) {
+				count += manager.getRemindersCount();
+			}
+		}
+		return count;
+	}
+
+	// Through the concurrent view, a session can still be using the manager
+	private static void flush(Entry entry) throws IOException {
+		if (entry.concurrent.hasUnsavedModifications()) {
+			entry.concurrent.saveReminders();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package reminder_app;
+
+import java.time.LocalDate;
+
+// One occurrence of a recurring reminder, made by the queries and the scheduler
+// when they need it, it is never stored. The id, the priority and the message
+// are the ones of the reminder. The occurrences before the due date of the
+// reminder are completed, like the ones completed ahead (see Recurrence).
+//
+// It is changed through the recurring reminder (ex. markOccurrenceById()), the
+// setters throw an UnsupportedOperationException.
+class ReminderOccurrence extends Reminder {
+	private final Reminder recurring;
+
+	ReminderOccurrence(Reminder recurring, LocalDate date) {
+		super(recurring.getId(), date, null, null, false);
+		this.recurring = recurring;
+	}
+
+	@Override
+	public Priority getPriority() {
+		return recurring.getPriority();
+	}
+
+	@Override
+	public String getMessage() {
+		return recurring.getMessage();
+	}
+
+	@Override
+	public boolean isCompleted() {
+		return recurring.isCompleted() || getDate().isBefore(recurring.getDate())
+				|| recurring.getRecurrence().isCompletedAhead(getDate());
+	}
+
+	@Override
+	public Recurrence getRecurrence() {
+		return recurring.getRecurrence();
+	}
+
+	@Override
+	public void setDueDate(LocalDate date) {
+		throw unsupported();
+	}
+
+	@Override
+	public void setPriority(Priority priority) {
+		throw unsupported();
+	}
+
+	@Override
+	public void setMessage(String message) {
+		throw unsupported();
+	}
+
+	@Override
+	public void setCompleted(boolean isCompleted) {
+		throw unsupported();
+	}
+
+	@Override
+	public void setRecurrence(Recurrence recurrence) {
+		throw unsupported();
+	}
+
+	private static UnsupportedOperationException unsupported() {
+		return new UnsupportedOperationException("An occurrence is changed through its recurring reminder");
+	}
+}
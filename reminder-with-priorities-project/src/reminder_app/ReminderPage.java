@@ -0,0 +1,52 @@
+package reminder_app;
+
+import java.util.Collections;
+import java.util.List;
+
+// One page of a paged query of the ReminderManager.
+// The page token gives the next page, it is the rank of the first reminder of
+// the next page, not a position. Reminders added or removed before it don't
+// shift the next pages.
+public class ReminderPage {
+	private final List<Reminder> reminders;
+	private final String nextPageToken;
+
+	public ReminderPage(List<Reminder> reminders, String nextPageToken) {
+		this.reminders = Collections.unmodifiableList(reminders);
+		this.nextPageToken = nextPageToken;
+	}
+
+	public List<Reminder> getReminders() {
+		return reminders;
+	}
+
+	// Null on the last page
+	public String getNextPageToken() {
+		return nextPageToken;
+	}
+
+	public boolean hasNextPage() {
+		return nextPageToken != null;
+	}
+
+	static String tokenOf(long rankKey) {
+		return Long.toString(rankKey, Character.MAX_RADIX);
+	}
+
+	// The first page starts at 0
+	static long rankKeyOf(String pageToken) {
+		if (pageToken == null || pageToken.isEmpty()) {
+			return 0;
+		}
+
+		try {
+			long rankKey = Long.parseLong(pageToken, Character.MAX_RADIX);
+			if (rankKey >= 0) {
+				return rankKey;
+			}
+		} catch (NumberFormatException e) {
+			// Same as a negative key
+		}
+		throw new IllegalArgumentException("Invalid page token " + pageToken);
+	}
+}
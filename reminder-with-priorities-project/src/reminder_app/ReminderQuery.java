@@ -0,0 +1,169 @@
+package reminder_app;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Conditions on the reminders of one user, a reminder must match all of them
+// (see ReminderService.query() and count()). Immutable, every method returns a
+// new query, so a query can be kept and narrowed again :
+//
+// ReminderQuery.all().priority(Priority.HIGH).pending().dueWithinDays(7)
+//
+// The days counted from today (dueWithinDays, overdue) are resolved when the
+// query runs, once for the whole query, with the clock of the manager.
+// A recurring reminder matches once, on its due date (its first pending occurrence).
+public final class ReminderQuery {
+	private static final ReminderQuery ALL = new ReminderQuery(null, null, null, null, null, null, null);
+
+	// Null for any
+	private final Set<Priority> priorities;
+	private final Boolean isCompleted;
+
+	// Bounds of the due date, both inclusive, null when open. The query runs
+	// with the narrowest of the dates and of the days from today.
+	private final LocalDate dueFrom;
+	private final LocalDate dueTo;
+	private final Long dueFromDays;
+	private final Long dueToDays;
+
+	// The message and the other conditions, tested last. Null for none.
+	private final Predicate<? super Reminder> filter;
+
+	private ReminderQuery(Set<Priority> priorities, Boolean isCompleted, LocalDate dueFrom, LocalDate dueTo,
+			Long dueFromDays, Long dueToDays, Predicate<? super Reminder> filter) {
+		this.priorities = priorities;
+		this.isCompleted = isCompleted;
+		this.dueFrom = dueFrom;
+		this.dueTo = dueTo;
+		this.dueFromDays = dueFromDays;
+		this.dueToDays = dueToDays;
+		this.filter = filter;
+	}
+
+	// Every reminder
+	public static ReminderQuery all() {
+		return ALL;
+	}
+
+	// Any of these priorities, and of the ones asked before
+	public ReminderQuery priority(Priority first, Priority... others) {
+		Set<Priority> wanted = EnumSet.of(first, others);
+		if (priorities != null) {
+			wanted.retainAll(priorities);
+		}
+		return new ReminderQuery(Collections.unmodifiableSet(wanted), isCompleted, dueFrom, dueTo, dueFromDays,
+				dueToDays, filter);
+	}
+
+	public ReminderQuery pending() {
+		return completion(false);
+	}
+
+	public ReminderQuery completed() {
+		return completion(true);
+	}
+
+	// Due from "from" up to "to", both inclusive
+	public ReminderQuery dueBetween(LocalDate from, LocalDate to) {
+		return dueOnOrAfter(from).dueOnOrBefore(to);
+	}
+
+	public ReminderQuery dueOnOrAfter(LocalDate from) {
+		LocalDate narrowest = dueFrom == null || from.isAfter(dueFrom) ? from : dueFrom;
+		return new ReminderQuery(priorities, isCompleted, narrowest, dueTo, dueFromDays, dueToDays, filter);
+	}
+
+	public ReminderQuery dueOnOrBefore(LocalDate to) {
+		LocalDate narrowest = dueTo == null || to.isBefore(dueTo) ? to : dueTo;
+		return new ReminderQuery(priorities, isCompleted, dueFrom, narrowest, dueFromDays, dueToDays, filter);
+	}
+
+	// Due before the date, exclusive
+	public ReminderQuery dueBefore(LocalDate date) {
+		return dueOnOrBefore(date.minusDays(1));
+	}
+
+	// Due from today up to today + days, like getReminderByDueDate() without
+	// the occurrences
+	public ReminderQuery dueWithinDays(int days) {
+		if (days < 0) {
+			throw new IllegalArgumentException("The number of days should be at least 0");
+		}
+		return daysFromToday(0, days);
+	}
+
+	// Pending and due before today, like getReminderByPastDue() without the occurrences
+	public ReminderQuery overdue() {
+		return pending().daysFromToday(Long.MIN_VALUE, -1);
+	}
+
+	// Ignoring the case, ex. "call" matches "Call the bank"
+	public ReminderQuery messageContains(String text) {
+		return where(reminder -> containsIgnoreCase(reminder.getMessage(), text));
+	}
+
+	public ReminderQuery message(Predicate<String> condition) {
+		return where(reminder -> condition.test(reminder.getMessage()));
+	}
+
+	// Any other condition, tested after the ones above
+	public ReminderQuery where(Predicate<? super Reminder> condition) {
+		Predicate<? super Reminder> previous = filter;
+		Predicate<? super Reminder> combined = previous == null ? condition
+				: reminder -> previous.test(reminder) && condition.test(reminder);
+		return new ReminderQuery(priorities, isCompleted, dueFrom, dueTo, dueFromDays, dueToDays, combined);
+	}
+
+	// For the ReminderQueryPlan
+
+	// Null for any
+	Set<Priority> priorities() {
+		return priorities;
+	}
+
+	Boolean completion() {
+		return isCompleted;
+	}
+
+	// The bounds of the due date on this day, null when open
+	LocalDate dueFrom(LocalDate today) {
+		LocalDate relative = dueFromDays == null || dueFromDays == Long.MIN_VALUE ? null : today.plusDays(dueFromDays);
+		return relative == null || dueFrom != null && dueFrom.isAfter(relative) ? dueFrom : relative;
+	}
+
+	LocalDate dueTo(LocalDate today) {
+		LocalDate relative = dueToDays == null ? null : today.plusDays(dueToDays);
+		return relative == null || dueTo != null && dueTo.isBefore(relative) ? dueTo : relative;
+	}
+
+	Predicate<? super Reminder> filter() {
+		return filter;
+	}
+
+	private ReminderQuery completion(boolean completed) {
+		if (isCompleted != null && isCompleted != completed) {
+			throw new IllegalArgumentException("A reminder can't be both pending and completed");
+		}
+		return new ReminderQuery(priorities, completed, dueFrom, dueTo, dueFromDays, dueToDays, filter);
+	}
+
+	// Long.MIN_VALUE for an open start
+	private ReminderQuery daysFromToday(long fromDays, long toDays) {
+		long narrowestFrom = dueFromDays == null ? fromDays : Math.max(dueFromDays, fromDays);
+		long narrowestTo = dueToDays == null ? toDays : Math.min(dueToDays, toDays);
+		return new ReminderQuery(priorities, isCompleted, dueFrom, dueTo, narrowestFrom, narrowestTo, filter);
+	}
+
+	// Without a lower case copy of every message
+	private static boolean containsIgnoreCase(String message, String text) {
+		for (int i = 0; i + text.length() <= message.length(); i++) {
+			if (message.regionMatches(true, i, text, 0, text.length())) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,174 @@
+package reminder_app;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// How a ReminderQuery runs on the reminders of one user.
+// Every index that answers some conditions of the query tells how many
+// reminders it would give, only the smallest one is read and the rest of the
+// query is tested on its reminders in the same pass :
+// - RANK, the rank keys (see ReminderRankIndex) when the paged queries have
+//   built them, priority and due date at once
+// - DUE_DATE, the days of the ReminderIndex
+// - PRIORITY and COMPLETION, the groups of both stores
+// - SCAN, one pass over every reminder, when no index is smaller than the store
+// The sizes are exact (sizes of the sets, counts of the rank keys), so a count
+// that the index answers alone doesn't read the reminders at all.
+final class ReminderQueryPlan {
+	enum Source {
+		NONE, RANK, DUE_DATE, PRIORITY, COMPLETION, SCAN
+	}
+
+	private static final int PRIORITY_CONDITION = 1;
+	private static final int COMPLETION_CONDITION = 2;
+	private static final int DUE_CONDITION = 4;
+	private static final int FILTER_CONDITION = 8;
+
+	private final ReminderStore store;
+	// The whole query, with the dates of the day it runs
+	private final Predicate<Reminder> matcher;
+	// The conditions of the query
+	private final int conditions;
+
+	private Source source = Source.SCAN;
+	private int candidates;
+	// The conditions answered by the source
+	private int answered;
+	private Supplier<Stream<Reminder>> reader;
+
+	private ReminderQueryPlan(ReminderStore store, Predicate<Reminder> matcher, int conditions) {
+		this.store = store;
+		this.matcher = matcher;
+		this.conditions = conditions;
+		this.candidates = store.size();
+		this.reader = () -> store.matching(matcher).stream();
+	}
+
+	// The rank index is null when it isn't built
+	static ReminderQueryPlan of(ReminderQuery query, ReminderStore store, ReminderRankIndex rankIndex,
+			LocalDate today) {
+		Set<Priority> priorities = query.priorities();
+		Boolean completion = query.completion();
+		LocalDate from = query.dueFrom(today);
+		LocalDate to = query.dueTo(today);
+		Predicate<? super Reminder> filter = query.filter();
+
+		long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+		long toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+		Predicate<Reminder> matcher = reminder -> (priorities == null || priorities.contains(reminder.getPriority()))
+				&& (completion == null || reminder.isCompleted() == completion)
+				&& reminder.getDate().toEpochDay() >= fromDay && reminder.getDate().toEpochDay() <= toDay
+				&& (filter == null || filter.test(reminder));
+
+		int conditions = (priorities != null ? PRIORITY_CONDITION : 0)
+				| (completion != null ? COMPLETION_CONDITION : 0) | (from != null || to != null ? DUE_CONDITION : 0)
+				| (filter != null ? FILTER_CONDITION : 0);
+		ReminderQueryPlan plan = new ReminderQueryPlan(store, matcher, conditions);
+
+		if (priorities != null && priorities.isEmpty() || fromDay > toDay) {
+			plan.use(Source.NONE, 0, ~0, Stream::empty);
+			return plan;
+		}
+
+		// In order of preference on a tie, the rank keys are sorted and answer two conditions
+		if (rankIndex != null && (conditions & (PRIORITY_CONDITION | DUE_CONDITION)) != 0
+				&& (from == null || ReminderRank.covers(from)) && (to == null || ReminderRank.covers(to))) {
+			long[] ranges = rankRanges(priorities, from, to);
+			int count = rankIndex.count(ranges);
+			plan.consider(Source.RANK, count, PRIORITY_CONDITION | DUE_CONDITION,
+					() -> Arrays.stream(rankIndex.keys(ranges, 0, count), 0, count)
+							.mapToObj(key -> store.byId(ReminderRank.id(key))));
+		}
+
+		if ((conditions & DUE_CONDITION) != 0) {
+			LocalDate first = from == null ? LocalDate.MIN : from;
+			LocalDate last = to == null ? LocalDate.MAX : to;
+			int count = store.countDueBetween(first, last);
+			if (count >= 0) {
+				plan.consider(Source.DUE_DATE, count, DUE_CONDITION, () -> store.dueBetween(first, last).stream());
+			}
+		}
+
+		if (priorities != null) {
+			int count = 0;
+			for (Priority priority : priorities) {
+				count += store.countByPriority(priority);
+			}
+			plan.consider(Source.PRIORITY, count, PRIORITY_CONDITION,
+					() -> Arrays.stream(ReminderIndex.PRIORITY_ORDER).filter(priorities::contains)
+							.flatMap(priority -> store.byPriority(priority).stream()));
+		}
+
+		if (completion != null) {
+			int completed = store.countCompleted();
+			plan.consider(Source.COMPLETION, completion ? completed : store.size() - completed, COMPLETION_CONDITION,
+					() -> (completion ? store.completed() : store.pending()).stream());
+		}
+
+		return plan;
+	}
+
+	// Reads the source, the reminders are tested one by one as the stream is consumed
+	Stream<Reminder> stream() {
+		Stream<Reminder> reminders = reader.get();
+		return isExact() || source == Source.SCAN ? reminders : reminders.filter(matcher);
+	}
+
+	long count() {
+		if (isExact()) {
+			return candidates;
+		}
+		return source == Source.SCAN ? store.countMatching(matcher) : stream().count();
+	}
+
+	Source getSource() {
+		return source;
+	}
+
+	// The reminders read from the source
+	int getCandidates() {
+		return candidates;
+	}
+
+	// The source answers the whole query, nothing is tested
+	boolean isExact() {
+		return (conditions & ~answered) == 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s, %d candidates%s", source, candidates, isExact() ? ", exact" : "");
+	}
+
+	// Only an index smaller than the current source, the store is read once anyway
+	private void consider(Source candidateSource, int count, int candidateAnswered,
+			Supplier<Stream<Reminder>> candidateReader) {
+		if (count < candidates) {
+			use(candidateSource, count, candidateAnswered, candidateReader);
+		}
+	}
+
+	private void use(Source newSource, int count, int newAnswered, Supplier<Stream<Reminder>> newReader) {
+		source = newSource;
+		candidates = count;
+		answered = newAnswered;
+		reader = newReader;
+	}
+
+	// A range of keys per priority, HIGH first (the smallest keys)
+	private static long[] rankRanges(Set<Priority> priorities, LocalDate from, LocalDate to) {
+		long[] ranges = new long[ReminderIndex.PRIORITY_ORDER.length * 2];
+		int count = 0;
+		for (Priority priority : ReminderIndex.PRIORITY_ORDER) {
+			if (priorities == null || priorities.contains(priority)) {
+				ranges[count++] = from == null ? ReminderRank.firstOf(priority) : ReminderRank.first(priority, from);
+				ranges[count++] = to == null ? ReminderRank.afterOf(priority) : ReminderRank.after(priority, to);
+			}
+		}
+		return Arrays.copyOf(ranges, count);
+	}
+}
@@ -0,0 +1,66 @@
+package reminder_app;
+
+import java.time.LocalDate;
+
+// Rank key of a reminder, a long that orders the reminders HIGH, MEDIUM, LOW,
+// then by due date, then by id (the order of the search results and of the pages).
+// 2 bits of priority, 21 bits of due date and 40 bits of id, so it ends with
+// the id and two reminders never have the same key.
+final class ReminderRank {
+	static final int ID_BITS = 40;
+	static final int DAY_BITS = 21;
+	static final long ID_MASK = (1L << ID_BITS) - 1;
+	static final long MAX_DAY = (1L << DAY_BITS) - 1;
+
+	// The due dates are counted from the year 0, up to about the year 5700
+	private static final long FIRST_DAY = LocalDate.of(0, 1, 1).toEpochDay();
+	private static final int HIGHEST_PRIORITY = Priority.values().length - 1;
+
+	private ReminderRank() {
+	}
+
+	static long key(Reminder reminder) {
+		if ((reminder.getId() & ~ID_MASK) != 0 || reminder.getId() <= 0) {
+			throw new IllegalArgumentException("Reminder id " + reminder.getId() + " can't be ranked");
+		}
+
+		return rank(reminder.getPriority(), reminder.getDate()) << ID_BITS | reminder.getId();
+	}
+
+	// The key without the id, the rank of every reminder with this priority and
+	// due date
+	static long rank(Priority priority, LocalDate dueDate) {
+		long day = Math.min(Math.max(dueDate.toEpochDay() - FIRST_DAY, 0), MAX_DAY);
+		return (long) (HIGHEST_PRIORITY - priority.ordinal()) << DAY_BITS | day;
+	}
+
+	// The dates that have their own day in the keys, the dates out of the range
+	// share the first or the last day
+	static boolean covers(LocalDate date) {
+		long day = date.toEpochDay() - FIRST_DAY;
+		return day >= 0 && day <= MAX_DAY;
+	}
+
+	// Every key of the priority is in [firstOf, afterOf)
+	static long firstOf(Priority priority) {
+		return (long) (HIGHEST_PRIORITY - priority.ordinal()) << (DAY_BITS + ID_BITS);
+	}
+
+	static long afterOf(Priority priority) {
+		return (long) (HIGHEST_PRIORITY - priority.ordinal() + 1) << (DAY_BITS + ID_BITS);
+	}
+
+	static long id(long key) {
+		return key & ID_MASK;
+	}
+
+	// First key of the reminders with this priority and due date
+	static long first(Priority priority, LocalDate dueDate) {
+		return rank(priority, dueDate) << ID_BITS;
+	}
+
+	// First key after the reminders with this priority and due date
+	static long after(Priority priority, LocalDate dueDate) {
+		return (rank(priority, dueDate) + 1) << ID_BITS;
+	}
+}
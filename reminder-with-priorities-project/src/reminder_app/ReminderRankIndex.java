@@ -0,0 +1,97 @@
+package reminder_app;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Every reminder by its rank key (see ReminderRank), for the paged queries of
+// the ReminderManager. A page seeks to its first key then reads the next ones,
+// the first page of a million reminders doesn't sort or copy the others.
+// Built by the first paged query, then kept up to date by the change events
+// like the ReminderSearchIndex.
+class ReminderRankIndex implements ReminderChangeListener {
+	private final LongSortedSet keys;
+
+	// The key without the id of every reminder, to find the old key of a
+	// reminder after its priority or due date has changed
+	private final LongIntHashMap ranks = new LongIntHashMap();
+
+	ReminderRankIndex(List<Reminder> reminders) {
+		long[] sortedKeys = new long[reminders.size()];
+		for (int i = 0; i < sortedKeys.length; i++) {
+			Reminder reminder = reminders.get(i);
+			sortedKeys[i] = ReminderRank.key(reminder);
+			ranks.put(reminder.getId(), (int) (sortedKeys[i] >>> ReminderRank.ID_BITS));
+		}
+
+		Arrays.sort(sortedKeys);
+		keys = new LongSortedSet(sortedKeys, sortedKeys.length);
+	}
+
+	@Override
+	public void reminderChanged(ReminderManager manager, ReminderChange change, Reminder reminder) {
+		switch (change) {
+		case ADDED:
+			add(reminder);
+			break;
+		case DELETED:
+		case CLEARED:
+			remove(reminder.getId());
+			break;
+		case PRIORITY_CHANGED:
+		case DUE_DATE_CHANGED:
+			remove(reminder.getId());
+			add(reminder);
+			break;
+		default:
+			break;
+		}
+	}
+
+	// Keys in the ranges, starting at the key "start". The ranges are pairs of
+	// first (inclusive) and last (exclusive) keys, in increasing order.
+	// Returns at most limit + 1 keys, the extra one is the start of the next page.
+	long[] keys(long[] ranges, long start, int limit) {
+		long[] found = new long[Math.min(limit + 1, keys.size())];
+		int count = 0;
+
+		for (int i = 0; i < ranges.length && count < found.length; i += 2) {
+			if (ranges[i + 1] <= start) {
+				continue;
+			}
+
+			LongSortedSet.Cursor cursor = keys.cursor();
+			for (cursor.seek(Math.max(ranges[i], start)); count < found.length && !cursor.exhausted()
+					&& cursor.current() < ranges[i + 1]; cursor.next()) {
+				found[count++] = cursor.current();
+			}
+		}
+
+		return count == found.length ? found : Arrays.copyOf(found, count);
+	}
+
+	// Number of keys in the ranges, without reading them
+	int count(long[] ranges) {
+		int count = 0;
+		for (int i = 0; i < ranges.length; i += 2) {
+			count += keys.countBefore(ranges[i + 1]) - keys.countBefore(ranges[i]);
+		}
+		return count;
+	}
+
+	int size() {
+		return keys.size();
+	}
+
+	private void add(Reminder reminder) {
+		long key = ReminderRank.key(reminder);
+		keys.add(key);
+		ranks.put(reminder.getId(), (int) (key >>> ReminderRank.ID_BITS));
+	}
+
+	private void remove(long id) {
+		int rank = ranks.remove(id);
+		if (rank >= 0) {
+			keys.remove((long) rank << ReminderRank.ID_BITS | id);
+		}
+	}
+}
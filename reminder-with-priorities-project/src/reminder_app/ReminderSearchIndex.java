@@ -0,0 +1,327 @@
+package reminder_app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Inverted index over the words of the reminder messages, for searching them
+// without going through every reminder.
+//
+// Every word (token) has its postings, the rank keys of the reminders that
+// have it (see ReminderRank). The postings are all in the order of the keys, so:
+// - a search walks its results already ranked and stops at the limit
+// - the terms of a query are intersected by seeking, not by testing every
+//   reminder of the most common term (see SearchCursor)
+// The tokens are in a TreeMap, the tokens of a prefix are next to each other.
+//
+// It is kept up to date by the change events of the ReminderManager, a changed
+// priority or due date moves the reminder in the postings of its tokens.
+// Not thread-safe, the ConcurrentReminderManager searches under its read lock.
+class ReminderSearchIndex implements ReminderChangeListener {
+	// A prefix of more tokens than this only filters the results of the other
+	// terms, unless all of the terms are like this
+	private static final int MAX_PREFIX_CURSORS = 64;
+
+	private static final class Entry {
+		private long rankKey;
+		private SearchPostings[] postings;
+
+		private Entry(long rankKey, SearchPostings[] postings) {
+			this.rankKey = rankKey;
+			this.postings = postings;
+		}
+	}
+
+	// Keys of one token while building the index
+	private static final class TokenKeys {
+		private final String token;
+		private long[] keys = new long[4];
+		private int count;
+		private SearchPostings postings;
+
+		private TokenKeys(String token) {
+			this.token = token;
+		}
+
+		private void add(long key) {
+			if (count == keys.length) {
+				keys = Arrays.copyOf(keys, count * 2);
+			}
+			keys[count++] = key;
+		}
+	}
+
+	// One word of a query, with the postings of its tokens
+	private static final class Term {
+		private final String token;
+		private final Collection<SearchPostings> postings;
+		// A prefix of too many tokens, it isn't counted (see search())
+		private final boolean broad;
+		private final long size;
+
+		private Term(String token, Collection<SearchPostings> postings) {
+			this.token = token;
+			this.postings = postings;
+
+			long total = 0;
+			int tokenCount = 0;
+			for (SearchPostings tokenPostings : postings) {
+				if (++tokenCount > MAX_PREFIX_CURSORS) {
+					break;
+				}
+				total += tokenPostings.size();
+			}
+
+			this.broad = tokenCount > MAX_PREFIX_CURSORS;
+			this.size = broad ? Long.MAX_VALUE : total;
+		}
+	}
+
+	private final TreeMap<String, SearchPostings> tokens = new TreeMap<>();
+
+	// The rank key and the postings of every indexed reminder, by id
+	private final LongHashMap<Entry> entries;
+
+	// The keys of every token are gathered then sorted once, adding the
+	// reminders one by one would insert in the middle of the postings
+	ReminderSearchIndex(List<Reminder> reminders) {
+		entries = new LongHashMap<>(reminders.size());
+		Map<String, TokenKeys> keysByToken = new HashMap<>();
+		long[] rankKeys = new long[reminders.size()];
+		TokenKeys[][] reminderTokens = new TokenKeys[reminders.size()][];
+
+		for (int i = 0; i < rankKeys.length; i++) {
+			rankKeys[i] = ReminderRank.key(reminders.get(i));
+			List<String> messageTokens = tokenize(reminders.get(i).getMessage());
+			reminderTokens[i] = new TokenKeys[messageTokens.size()];
+			for (int j = 0; j < reminderTokens[i].length; j++) {
+				TokenKeys tokenKeys = keysByToken.computeIfAbsent(messageTokens.get(j), TokenKeys::new);
+				tokenKeys.add(rankKeys[i]);
+				reminderTokens[i][j] = tokenKeys;
+			}
+		}
+
+		for (TokenKeys tokenKeys : keysByToken.values()) {
+			Arrays.sort(tokenKeys.keys, 0, tokenKeys.count);
+			tokenKeys.postings = new SearchPostings(tokenKeys.token, tokenKeys.keys, tokenKeys.count);
+			tokenKeys.keys = null;
+			tokens.put(tokenKeys.token, tokenKeys.postings);
+		}
+
+		for (int i = 0; i < rankKeys.length; i++) {
+			SearchPostings[] postings = new SearchPostings[reminderTokens[i].length];
+			for (int j = 0; j < postings.length; j++) {
+				postings[j] = reminderTokens[i][j].postings;
+			}
+			reminderTokens[i] = null;
+			entries.put(reminders.get(i).getId(), new Entry(rankKeys[i], postings));
+		}
+	}
+
+	@Override
+	public void reminderChanged(ReminderManager manager, ReminderChange change, Reminder reminder) {
+		switch (change) {
+		case ADDED:
+			add(reminder);
+			break;
+		case DELETED:
+		case CLEARED:
+			remove(reminder.getId());
+			break;
+		case PRIORITY_CHANGED:
+		case DUE_DATE_CHANGED:
+			rankChanged(reminder);
+			break;
+		case MESSAGE_CHANGED:
+			messageChanged(reminder);
+			break;
+		default:
+			break;
+		}
+	}
+
+	// Ids of the reminders that have every term of the query, at most limit of
+	// them, HIGH, MEDIUM, LOW then by due date.
+	// The terms are words, a term ending with * is a prefix (ex. "meet* john").
+	// Upper and lower case are the same.
+	long[] search(String query, int limit) {
+		List<Term> terms = new ArrayList<>();
+
+		for (String word : query.trim().split("\\s+")) {
+			boolean prefix = word.endsWith("*");
+			List<String> wordTokens = tokenize(word);
+
+			for (int i = 0; i < wordTokens.size(); i++) {
+				String token = wordTokens.get(i);
+				Collection<SearchPostings> postings;
+				if (prefix && i == wordTokens.size() - 1) {
+					postings = tokens.subMap(token, true, token + Character.MAX_VALUE, false).values();
+				} else {
+					SearchPostings tokenPostings = tokens.get(token);
+					postings = tokenPostings == null ? List.of() : List.of(tokenPostings);
+				}
+
+				if (postings.isEmpty()) {
+					// A term without any reminder, nothing can have every term
+					return new long[0];
+				}
+				terms.add(new Term(token, postings));
+			}
+		}
+
+		if (terms.isEmpty()) {
+			return new long[0];
+		}
+
+		// The rarest term leads. A prefix of too many tokens is tested on the
+		// reminders found by the other terms instead of walking all of its tokens.
+		terms.sort(Comparator.comparingLong(term -> term.size));
+		List<SearchCursor> cursors = new ArrayList<>(terms.size());
+		List<String> prefixFilters = new ArrayList<>();
+		for (Term term : terms) {
+			if (cursors.isEmpty() || !term.broad) {
+				cursors.add(cursorOf(term));
+			} else {
+				prefixFilters.add(term.token);
+			}
+		}
+
+		long[] ids = new long[Math.min(limit, entries.size())];
+		int found = 0;
+		for (SearchCursor cursor = SearchCursor.intersection(cursors); found < ids.length
+				&& !cursor.exhausted(); cursor.next()) {
+			long id = ReminderRank.id(cursor.current());
+			if (prefixFilters.isEmpty() || hasPrefixes(entries.get(id), prefixFilters)) {
+				ids[found++] = id;
+			}
+		}
+
+		return found == ids.length ? ids : Arrays.copyOf(ids, found);
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	int tokenCount() {
+		return tokens.size();
+	}
+
+	private static SearchCursor cursorOf(Term term) {
+		List<SearchCursor> cursors = new ArrayList<>();
+		for (SearchPostings postings : term.postings) {
+			cursors.add(postings.cursor());
+		}
+		return SearchCursor.union(cursors);
+	}
+
+	private static boolean hasPrefixes(Entry entry, List<String> prefixes) {
+		for (String prefix : prefixes) {
+			boolean hasPrefix = false;
+			for (SearchPostings postings : entry.postings) {
+				if (postings.token().startsWith(prefix)) {
+					hasPrefix = true;
+					break;
+				}
+			}
+
+			if (!hasPrefix) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void add(Reminder reminder) {
+		long rankKey = ReminderRank.key(reminder);
+		List<String> messageTokens = tokenize(reminder.getMessage());
+		SearchPostings[] postings = new SearchPostings[messageTokens.size()];
+
+		for (int i = 0; i < postings.length; i++) {
+			postings[i] = tokens.computeIfAbsent(messageTokens.get(i), SearchPostings::new);
+			postings[i].add(rankKey);
+		}
+
+		entries.put(reminder.getId(), new Entry(rankKey, postings));
+	}
+
+	private void remove(long id) {
+		Entry entry = entries.remove(id);
+		if (entry != null) {
+			removePostings(entry.rankKey, entry.postings);
+		}
+	}
+
+	private void rankChanged(Reminder reminder) {
+		Entry entry = entries.get(reminder.getId());
+		if (entry == null) {
+			add(reminder);
+			return;
+		}
+
+		long rankKey = ReminderRank.key(reminder);
+		for (SearchPostings postings : entry.postings) {
+			postings.remove(entry.rankKey);
+			postings.add(rankKey);
+		}
+		entry.rankKey = rankKey;
+	}
+
+	// Only the tokens that are not in the new message are removed
+	private void messageChanged(Reminder reminder) {
+		Entry entry = entries.get(reminder.getId());
+		if (entry == null) {
+			add(reminder);
+			return;
+		}
+
+		List<String> messageTokens = tokenize(reminder.getMessage());
+		SearchPostings[] postings = new SearchPostings[messageTokens.size()];
+		for (int i = 0; i < postings.length; i++) {
+			postings[i] = tokens.computeIfAbsent(messageTokens.get(i), SearchPostings::new);
+			postings[i].add(entry.rankKey);
+		}
+
+		for (SearchPostings oldPostings : entry.postings) {
+			if (!messageTokens.contains(oldPostings.token())) {
+				removePostings(entry.rankKey, oldPostings);
+			}
+		}
+		entry.postings = postings;
+	}
+
+	private void removePostings(long rankKey, SearchPostings... postings) {
+		for (SearchPostings tokenPostings : postings) {
+			tokenPostings.remove(rankKey);
+			if (tokenPostings.isEmpty()) {
+				tokens.remove(tokenPostings.token());
+			}
+		}
+	}
+
+	// The distinct lower case words, letters and digits
+	static List<String> tokenize(String text) {
+		List<String> found = new ArrayList<>();
+		StringBuilder token = new StringBuilder();
+
+		for (int i = 0; i <= text.length(); i++) {
+			char c = i < text.length() ? text.charAt(i) : ' ';
+			if (Character.isLetterOrDigit(c)) {
+				token.append(Character.toLowerCase(c));
+			} else if (token.length() > 0) {
+				String word = token.toString();
+				if (!found.contains(word)) {
+					found.add(word);
+				}
+				token.setLength(0);
+			}
+		}
+
+		return found;
+	}
+}
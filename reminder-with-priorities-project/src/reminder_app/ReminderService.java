@@ -1,5 +1,16 @@
 package reminder_app;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import project_exceptions.DueDateException;
+import project_exceptions.MessageException;
+import project_exceptions.PriorityException;
+
 public interface ReminderService {
 	// Each of these will return the user modified reminder
 	// So that it will be easier for prompting
@@ -8,4 +19,92 @@ public interface ReminderService {
 	Reminder deleteReminder(int index);
 
 	Reminder markReminder(int index);
+
+	// By the id of the reminder, it doesn't change like the index
+	Reminder deleteReminderById(long id);
+
+	Reminder markReminderById(long id);
+
+	// Completes one pending occurrence of a recurring reminder (see Recurrence).
+	// Marking a recurring reminder itself completes its first pending occurrence.
+	Reminder markOccurrenceById(long id, LocalDate occurrence);
+
+	// Bulk modifications, for imports and cleanups of many reminders.
+	// Each of them is one pass over the reminders and returns the modified ones.
+	List<Reminder> addAll(Collection<Reminder> reminders);
+
+	List<Reminder> deleteIf(Predicate<? super Reminder> filter);
+
+	// Only the pending reminders are marked
+	List<Reminder> markIf(Predicate<? super Reminder> filter);
+
+	// Reminders that already have the priority or the due date are skipped
+	List<Reminder> changePriorityIf(Predicate<? super Reminder> filter, Priority newPriority);
+
+	List<Reminder> changeDueDateIf(Predicate<? super Reminder> filter, LocalDate newDueDate);
+
+	// Removes the completed reminders
+	List<Reminder> clearReminders();
+
+	Reminder changeReminderPriority(int index, Priority newPriority) throws PriorityException;
+
+	Reminder changeReminderPriorityById(long id, Priority newPriority) throws PriorityException;
+
+	Reminder changeReminderDueDate(int index, LocalDate newDueDate) throws DueDateException;
+
+	Reminder changeReminderDueDateById(long id, LocalDate newDueDate) throws DueDateException;
+
+	Reminder changeReminderMessage(int index, String message) throws MessageException;
+
+	Reminder changeReminderMessageById(long id, String message) throws MessageException;
+
+	String saveReminders() throws IOException;
+
+	boolean hasUnsavedModifications();
+
+	// Queries
+	Reminder getReminderById(long id);
+
+	// The recurring reminders are expanded to their occurrences in these two,
+	// each occurrence is listed with its own due date
+	List<Reminder> getReminderByDueDate(LocalDate dueDateInput);
+
+	List<Reminder> getReminderByPriority(Priority filteredPriority);
+
+	List<Reminder> getReminderByPastDue();
+
+	// Reminders with every word of the query in their message, a word ending with *
+	// is a prefix. At most limit of them, HIGH, MEDIUM, LOW then by due date.
+	List<Reminder> searchReminders(String query, int limit);
+
+	// Reminders that match every condition of the query (see ReminderQuery), in
+	// an order that depends on the index used. A recurring reminder is in it
+	// once, on its due date.
+	Stream<Reminder> query(ReminderQuery query);
+
+	long count(ReminderQuery query);
+
+	// Paged queries, HIGH, MEDIUM, LOW then by due date. The first page is asked
+	// with a null page token, the next ones with the token of the previous page.
+	// A page only costs its own reminders, not the whole list. A recurring
+	// reminder is in the pages once, on its first pending occurrence.
+	ReminderPage getRemindersPage(String pageToken, int pageSize);
+
+	ReminderPage getReminderByPriorityPage(Priority filteredPriority, String pageToken, int pageSize);
+
+	ReminderPage getReminderByDueDatePage(LocalDate dueDateInput, String pageToken, int pageSize);
+
+	ReminderPage getReminderByPastDuePage(String pageToken, int pageSize);
+
+	// HIGH, MEDIUM, LOW, this is what the reminder numbers are based on
+	List<Reminder> getReminders();
+
+	int getRemindersCount();
+
+	String getEmail();
+
+	// Bytes of the reminder files read and written since the login
+	long getBytesRead();
+
+	long getBytesWritten();
 }
@@ -0,0 +1,347 @@
+package reminder_app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import account_manager.AuthenticationSystem;
+import reminder_storage.AccountDirectory;
+import reminder_storage.JournalRecord;
+import reminder_storage.ReminderFieldVisitor;
+import reminder_storage.ReminderJournal;
+
+// Counts of the reminders of every user by priority and status (see
+// ReminderCounts), per user and for all of them.
+//
+// java reminder_app.ReminderStatistics [users file] [accounts directory]
+//
+// The users of the accounts file are scanned on a fork-join pool
+// (-Dreminder.statistics.parallelism, the number of cores by default). A user
+// is streamed from its files, see ReminderJournal.scan() : only the id, due
+// date, priority and completion of the snapshot are read, no Reminder is made
+// for them. The journal records are read first, only the reminders they touch
+// are kept, with their state after the records.
+//
+// The counts of a user are cached with the size and the modification time of
+// its files. refresh() only scans the users whose files changed since the last
+// one, or every user on a new day (the overdue ones change with the date).
+// Safe to refresh while the server runs, a user saved during its scan is
+// scanned again.
+public class ReminderStatistics {
+	// What a refresh found
+	public static class Report {
+		private final ReminderCounts counts = new ReminderCounts();
+		private int users;
+		private int scanned;
+		private final List<String> approximate = new ArrayList<>();
+		private final List<String> failures = new ArrayList<>();
+
+		// Every user that has counts
+		public ReminderCounts getCounts() {
+			return counts;
+		}
+
+		public int getUsers() {
+			return users;
+		}
+
+		// The users read from their files, the others were cached
+		public int getScanned() {
+			return scanned;
+		}
+
+		// The users with journal records from before the ids, they can't be
+		// matched without loading the reminders, their counts miss those records
+		public List<String> getApproximate() {
+			return approximate;
+		}
+
+		// "email: reason"
+		public List<String> getFailures() {
+			return failures;
+		}
+
+		private void add(UserResult result) {
+			if (result.failure != null) {
+				failures.add(result.email + ": " + result.failure);
+				return;
+			}
+
+			users++;
+			counts.addAll(result.statistics.counts);
+			if (result.scanned) {
+				scanned++;
+			}
+			if (result.statistics.isApproximate) {
+				approximate.add(result.email);
+			}
+		}
+
+		private void addAll(Report other) {
+			counts.addAll(other.counts);
+			users += other.users;
+			scanned += other.scanned;
+			approximate.addAll(other.approximate);
+			failures.addAll(other.failures);
+		}
+	}
+
+	// The counts of one user, as of the files and the day of its last scan
+	public static final class UserStatistics {
+		private final ReminderCounts counts;
+		private final boolean isApproximate;
+		private final String fingerprint;
+		private final long epochDay;
+
+		private UserStatistics(ReminderCounts counts, boolean isApproximate, String fingerprint, long epochDay) {
+			this.counts = counts;
+			this.isApproximate = isApproximate;
+			this.fingerprint = fingerprint;
+			this.epochDay = epochDay;
+		}
+
+		public ReminderCounts getCounts() {
+			return counts;
+		}
+
+		public boolean isApproximate() {
+			return isApproximate;
+		}
+	}
+
+	private static final class UserResult {
+		private final String email;
+		private UserStatistics statistics;
+		private boolean scanned;
+		private String failure;
+
+		private UserResult(String email) {
+			this.email = email;
+		}
+	}
+
+	private final Path usersFile;
+	private final AccountDirectory accounts;
+	private final int parallelism;
+	private final ConcurrentHashMap<String, UserStatistics> cache = new ConcurrentHashMap<>();
+
+	public ReminderStatistics(Path usersFile, String accountsDirectory, int parallelism) throws IOException {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The statistics need a parallelism of at least 1");
+		}
+
+		this.usersFile = usersFile;
+		this.accounts = AccountDirectory.of(accountsDirectory);
+		this.parallelism = parallelism;
+	}
+
+	public static void main(String[] args) {
+		if (args.length > 2) {
+			System.out.println("Usage : ReminderStatistics [users file] [accounts directory]");
+			return;
+		}
+
+		Path usersFile = Paths.get(args.length > 0 ? args[0] : AuthenticationSystem.DEFAULT_USERS_PATH);
+		String accountsDirectory = args.length > 1 ? args[1] : AccountDirectory.DEFAULT_ROOT;
+		int parallelism = Integer.getInteger("reminder.statistics.parallelism",
+				Runtime.getRuntime().availableProcessors());
+
+		try {
+			long start = System.nanoTime();
+			Report report = new ReminderStatistics(usersFile, accountsDirectory, parallelism).refresh();
+			long millis = (System.nanoTime() - start) / 1_000_000;
+
+			for (String failure : report.getFailures()) {
+				System.out.println("Failed " + failure);
+			}
+			for (String email : report.getApproximate()) {
+				System.out.println("Approximate " + email + ", journal records without ids");
+			}
+			System.out.println(report.getCounts());
+			System.out.printf("%d users, %d reminders in %d ms, %d failed%n", report.getUsers(),
+					report.getCounts().getTotal(), millis, report.getFailures().size());
+		} catch (IOException e) {
+			System.out.println("An error occurred: " + e.getMessage());
+		}
+	}
+
+	public Report refresh() throws IOException {
+		return refresh(LocalDate.now());
+	}
+
+	// The overdue reminders are the ones due before today
+	public Report refresh(LocalDate today) throws IOException {
+		List<String> emails = new ArrayList<>();
+		try (BufferedReader users = Files.newBufferedReader(usersFile, StandardCharsets.UTF_8)) {
+			String email;
+			while ((email = AuthenticationSystem.readEmail(users)) != null) {
+				emails.add(email);
+			}
+		}
+
+		long epochDay = today.toEpochDay();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		Report report;
+		try {
+			// Reduced on the workers, only the counts of a user are kept
+			report = pool.submit(() -> emails.parallelStream().map(email -> refreshUser(email, epochDay))
+					.collect(Report::new, Report::add, Report::addAll)).join();
+		} finally {
+			pool.shutdown();
+		}
+
+		// The users removed from the accounts file
+		cache.keySet().retainAll(new HashSet<>(emails));
+		return report;
+	}
+
+	// Null if the user hasn't been counted by a refresh
+	public UserStatistics getUser(String email) {
+		return cache.get(email);
+	}
+
+	private UserResult refreshUser(String email, long epochDay) {
+		UserResult result = new UserResult(email);
+		try (ReminderJournal journal = new ReminderJournal(accounts.snapshotPath(email).toString())) {
+			String fingerprint = fingerprint(journal);
+			UserStatistics cached = cache.get(email);
+			if (cached != null && cached.epochDay == epochDay && cached.fingerprint.equals(fingerprint)) {
+				result.statistics = cached;
+				return result;
+			}
+
+			UserStatistics statistics;
+			try {
+				statistics = scan(journal, fingerprint, epochDay);
+			} catch (IOException e) {
+				// A compaction during the scan removes the files being read, once
+				// more with the new ones
+				String current = fingerprint(journal);
+				if (current.equals(fingerprint)) {
+					throw e;
+				}
+				statistics = scan(journal, current, epochDay);
+			}
+
+			cache.put(email, statistics);
+			result.statistics = statistics;
+			result.scanned = true;
+		} catch (IOException | RuntimeException e) {
+			result.failure = ReminderBulkTool.reason(e);
+		}
+		return result;
+	}
+
+	private static UserStatistics scan(ReminderJournal journal, String fingerprint, long epochDay)
+			throws IOException {
+		UserScan scan = new UserScan(epochDay);
+		journal.scan(scan, scan);
+		return new UserStatistics(scan.finish(), scan.isApproximate, fingerprint, epochDay);
+	}
+
+	// Name, size and modification time of every file of the user
+	private static String fingerprint(ReminderJournal journal) throws IOException {
+		StringBuilder fingerprint = new StringBuilder();
+		for (Path file : journal.files()) {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			fingerprint.append(file.getFileName()).append(' ').append(attributes.size()).append(' ')
+					.append(attributes.lastModifiedTime().toMillis()).append('\n');
+		}
+		return fingerprint.toString();
+	}
+
+	// The records are given before the snapshot. A record has the whole reminder
+	// as it was before it, so the state after it doesn't need the snapshot.
+	private static final class UserScan implements ReminderJournal.RecordHandler, ReminderFieldVisitor {
+		// A reminder deleted by the journal
+		private static final Reminder DELETED = new Reminder(0, LocalDate.MIN, Priority.LOW, "", true);
+
+		private final long epochDay;
+		private final ReminderCounts counts = new ReminderCounts();
+		// The reminders touched by the journal, by id
+		private final LongHashMap<Reminder> touched = new LongHashMap<>();
+		// Ids of the files before the ids, given like ReminderManager.loadReminder()
+		private long nextReminderId = 1;
+		private boolean isApproximate;
+
+		private UserScan(long epochDay) {
+			this.epochDay = epochDay;
+		}
+
+		@Override
+		public void apply(JournalRecord record) {
+			Reminder target = record.getTarget();
+			long id = target.getId();
+			if (id == 0) {
+				// The records before the ids are matched by their values, that needs
+				// the reminders. Only an added one can be counted.
+				if (record.getOperation() == JournalRecord.Operation.ADD) {
+					counts.add(target, epochDay);
+				} else {
+					isApproximate = true;
+				}
+				return;
+			}
+
+			switch (record.getOperation()) {
+			case DELETE:
+				touched.put(id, DELETED);
+				return;
+			case MARK:
+				// Like ReminderManager.applyMark()
+				LocalDate next = target.isRecurring() && !target.isCompleted()
+						? target.getRecurrence().firstPendingOnOrAfter(target.getDate().plusDays(1))
+						: null;
+				if (next != null) {
+					target.setDueDate(next);
+				} else {
+					target.setCompleted(true);
+				}
+				break;
+			case PRIORITY:
+				target.setPriority(record.getNewPriority());
+				break;
+			case DUE_DATE:
+				target.setDueDate(record.getNewDueDate());
+				break;
+			default:
+				// ADD, the message and the occurrences ahead don't change the counts
+				break;
+			}
+			touched.put(id, target);
+		}
+
+		@Override
+		public void reminder(long id, long dueEpochDay, Priority priority, boolean completed) {
+			if (id == 0) {
+				id = nextReminderId++;
+			} else {
+				nextReminderId = Math.max(nextReminderId, id + 1);
+			}
+
+			if (!touched.containsKey(id)) {
+				counts.add(priority, dueEpochDay, completed, epochDay);
+			}
+		}
+
+		private ReminderCounts finish() {
+			touched.forEachKey(id -> {
+				Reminder reminder = touched.get(id);
+				if (reminder != DELETED) {
+					counts.add(reminder, epochDay);
+				}
+			});
+			return counts;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package reminder_app;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Where a ReminderManager keeps the reminders of the user.
+// ReminderIndex keeps the Reminder objects themselves. CompactReminderStore keeps
+// the values in arrays and gives out views, a Reminder from it is only valid
+// until the reminder is removed, and two views of the same reminder are not the
+// same object (compare the ids).
+//
+// The reminders should be changed through their setters, then the store is
+// told with the changed methods.
+interface ReminderStore {
+	// The reminder must have an id. Returns the stored reminder, use it instead
+	// of the added one.
+	Reminder add(Reminder reminder);
+
+	// Returns the removed reminder, it stays valid after the removal. Null if
+	// it wasn't in the store.
+	Reminder remove(Reminder reminder);
+
+	// Removes every matching reminder in one pass, in HIGH, MEDIUM, LOW order
+	List<Reminder> removeIf(Predicate<? super Reminder> filter);
+
+	void clear();
+
+	// These must be called after the reminder has been changed, with its old value
+	void priorityChanged(Reminder reminder, Priority oldPriority);
+
+	void dueDateChanged(Reminder reminder, LocalDate oldDueDate);
+
+	void completionChanged(Reminder reminder);
+
+	void recurrenceChanged(Reminder reminder);
+
+	// Queries, each of them returns an independent list
+	List<Reminder> byPriority(Priority priority);
+
+	// Reminders due from "from" up to "to", both inclusive, by due date. The
+	// order of the reminders of the same day depends on the store.
+	List<Reminder> dueBetween(LocalDate from, LocalDate to);
+
+	// Reminders due before the date, exclusive, by due date
+	List<Reminder> dueBefore(LocalDate date);
+
+	// Null if there isn't a reminder with this id
+	Reminder byId(long id);
+
+	// Finds a reminder with the same values, used when the reminder object itself
+	// isn't available (ex. journal replay)
+	Reminder findSame(Reminder values);
+
+	// Matching reminders in HIGH, MEDIUM, LOW order, nothing is changed
+	List<Reminder> matching(Predicate<? super Reminder> filter);
+
+	// Only the pending reminders are tested, in an order that depends on the store
+	List<Reminder> pendingMatching(Predicate<? super Reminder> filter);
+
+	// In an order that depends on the store
+	List<Reminder> completed();
+
+	List<Reminder> pending();
+
+	// The reminders that have a recurrence, in an order that depends on the store
+	List<Reminder> recurring();
+
+	// HIGH, MEDIUM, LOW. Reminders with the same priority keep their insertion
+	// order, a reminder with a changed priority goes last of its new priority
+	List<Reminder> inPriorityOrder();
+
+	int size();
+
+	int countByPriority(Priority priority);
+
+	// For the ReminderQueryPlan
+
+	// Number of reminders due from "from" up to "to", both inclusive, -1 if
+	// the store can't tell without testing every reminder
+	int countDueBetween(LocalDate from, LocalDate to);
+
+	int countCompleted();
+
+	// Like matching(), without the list
+	int countMatching(Predicate<? super Reminder> filter);
+}
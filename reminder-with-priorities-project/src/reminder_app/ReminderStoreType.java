@@ -0,0 +1,21 @@
+package reminder_app;
+
+// How a ReminderManager keeps the reminders in memory
+public enum ReminderStoreType {
+	// Reminder objects, indexed by priority, due date and completion (ReminderIndex)
+	INDEXED,
+
+	// Arrays of values, several times smaller, the queries scan them (CompactReminderStore)
+	COMPACT;
+
+	// Chosen with -Dreminder.store=compact, INDEXED by default
+	public static final ReminderStoreType DEFAULT = fromName(System.getProperty("reminder.store", "indexed"));
+
+	public static ReminderStoreType fromName(String name) {
+		return valueOf(name.trim().toUpperCase());
+	}
+
+	ReminderStore newStore() {
+		return this == COMPACT ? new CompactReminderStore() : new ReminderIndex();
+	}
+}
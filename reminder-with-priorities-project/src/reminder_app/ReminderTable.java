@@ -0,0 +1,340 @@
+package reminder_app;
+
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.function.Function;
+
+// Reminders for the terminal, as a table, one page at a time :
+//
+//  #  Due date    Priority  Done  Repeat           Message
+//  1  2026-10-20  HIGH      no    WEEKLY           Finish the report
+//
+// A page is formatted in a buffer that is reused by every page, without
+// String.format, then printed at once instead of a println per reminder (a
+// due reminder of the scheduler is never printed in the middle of a page).
+// Only the reminders of the page are formatted, the first page of a million
+// reminders costs the same as the first page of ten.
+//
+// Enter or n goes to the next page, p to the previous one, g 12 to the page 12
+// and q stops. When a reminder is picked, its number picks it from any page.
+// Not thread-safe, one per terminal.
+final class ReminderTable {
+	// Longer messages are cut, a row stays in 100 columns
+	private static final int MESSAGE_WIDTH = 56;
+	private static final int PRIORITY_WIDTH = 8;
+	// EVERY 12 MONTHS
+	private static final int REPEAT_WIDTH = 15;
+	private static final String LINE = "-----------------------------------------------------------------------------";
+	private static final String NAVIGATION = "Enter/n next, p previous, g <page> go to page, q stop";
+
+	private final PrintStream out;
+	// The page size of the paged queries too, the numbers are counted with it
+	private final int pageSize;
+	private final StringBuilder buffer = new StringBuilder(8 * 1024);
+
+	ReminderTable(PrintStream out, int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("The page size should be at least 1");
+		}
+
+		this.out = out;
+		this.pageSize = pageSize;
+	}
+
+	// The numbers are the positions in the list, from 1
+	void browse(Scanner scanner, List<Reminder> reminders) {
+		if (reminders.isEmpty()) {
+			out.println("No reminders has been found!");
+			return;
+		}
+
+		int pageCount = (reminders.size() + pageSize - 1) / pageSize;
+		int page = 0;
+		while (true) {
+			printPage(reminders, page, pageCount);
+			if (pageCount == 1) {
+				return;
+			}
+
+			int next = nextPage(scanner, page, pageCount, NAVIGATION + " : ");
+			if (next < 0) {
+				return;
+			}
+			page = next;
+		}
+	}
+
+	// Pages of a paged query (see ReminderPage), the tokens of the pages already
+	// seen are kept to go back. Going forward past them reads the pages between.
+	void browse(Scanner scanner, Function<String, ReminderPage> pages) {
+		List<String> tokens = new ArrayList<>();
+		tokens.add(null);
+		int page = 0;
+		// Once the last page has been read, tokens has a token per page
+		boolean allRead = false;
+		ReminderPage current = pages.apply(null);
+		if (current.getReminders().isEmpty()) {
+			out.println("No reminders has been found!");
+			return;
+		}
+
+		while (true) {
+			if (!current.hasNextPage()) {
+				allRead = true;
+			} else if (tokens.size() == page + 1) {
+				tokens.add(current.getNextPageToken());
+			}
+			render(current.getReminders(), page * pageSize + 1, page + 1, allRead ? tokens.size() : -1, -1);
+			if (page == 0 && !current.hasNextPage()) {
+				return;
+			}
+
+			// The count of pages isn't known before the last one has been read
+			int next = nextPage(scanner, page, allRead ? tokens.size() : Integer.MAX_VALUE, NAVIGATION + " : ");
+			if (next < 0) {
+				return;
+			}
+
+			while (next >= tokens.size()) {
+				ReminderPage skipped = pages.apply(tokens.get(tokens.size() - 1));
+				if (!skipped.hasNextPage()) {
+					allRead = true;
+					break;
+				}
+				tokens.add(skipped.getNextPageToken());
+			}
+			if (next >= tokens.size()) {
+				out.println("Page " + (next + 1) + " doesn't exist! There are " + tokens.size() + " pages.");
+				next = page;
+			}
+
+			page = next;
+			current = pages.apply(tokens.get(page));
+			if (current.getReminders().isEmpty() && page > 0) {
+				// The last reminders have been removed in the meantime
+				page--;
+				current = pages.apply(tokens.get(page));
+			}
+		}
+	}
+
+	// Number of the reminder the user picked, from 1. The pages of the list are
+	// browsed until a number is given.
+	int pick(Scanner scanner, List<Reminder> reminders) throws Exception {
+		if (reminders.isEmpty()) {
+			throw new Exception("Reminders is empty!");
+		}
+
+		int pageCount = (reminders.size() + pageSize - 1) / pageSize;
+		String prompt = String.format("[1-%d] Reminder Number Input, or %s : ", reminders.size(),
+				pageCount > 1 ? NAVIGATION : "q stop");
+		int page = 0;
+		while (true) {
+			printPage(reminders, page, pageCount);
+
+			while (true) {
+				out.print(prompt);
+				String command = scanner.nextLine().trim();
+				if (isNumber(command)) {
+					int number = parse(command);
+					if (number < 1 || number > reminders.size()) {
+						throw new Exception("Reminder number doesn't exist!");
+					}
+					return number;
+				}
+
+				int next = command(command, page, pageCount);
+				if (next == -1) {
+					throw new Exception("No reminder has been picked!");
+				} else if (next >= 0) {
+					page = next;
+					break;
+				}
+			}
+		}
+	}
+
+	private void printPage(List<Reminder> reminders, int page, int pageCount) {
+		int first = page * pageSize;
+		render(reminders.subList(first, Math.min(first + pageSize, reminders.size())), first + 1, page + 1, pageCount,
+				reminders.size());
+	}
+
+	// -1 to stop
+	private int nextPage(Scanner scanner, int page, int pageCount, String prompt) {
+		while (true) {
+			out.print(prompt);
+			String command = scanner.nextLine().trim();
+			if ((command.isEmpty() || command.equalsIgnoreCase("n")) && page + 1 == pageCount) {
+				// Enter after the last page, like q
+				return -1;
+			}
+
+			int next = command(command, page, pageCount);
+			if (next != -2) {
+				return next;
+			}
+		}
+	}
+
+	// The page to show, -1 to stop, -2 when the command is invalid (already told)
+	private int command(String command, int page, int pageCount) {
+		if (command.isEmpty() || command.equalsIgnoreCase("n")) {
+			if (page + 1 < pageCount) {
+				return page + 1;
+			}
+			out.println("This is the last page!");
+			return -2;
+		}
+		if (command.equalsIgnoreCase("p")) {
+			if (page > 0) {
+				return page - 1;
+			}
+			out.println("This is the first page!");
+			return -2;
+		}
+		if (command.equalsIgnoreCase("q")) {
+			return -1;
+		}
+		if (command.length() > 1 && (command.charAt(0) == 'g' || command.charAt(0) == 'G')) {
+			String target = command.substring(1).trim();
+			if (isNumber(target)) {
+				int number = parse(target);
+				if (number >= 1 && number <= pageCount) {
+					return number - 1;
+				}
+				out.println("Page " + target + " doesn't exist!");
+				return -2;
+			}
+		}
+
+		out.println("Invalid Input!");
+		return -2;
+	}
+
+	// The page count and the total are negative when they aren't known yet
+	private void render(List<Reminder> page, int firstNumber, int pageNumber, int pageCount, int total) {
+		StringBuilder text = buffer;
+		text.setLength(0);
+
+		int numberWidth = Math.max(1, digits(firstNumber + page.size() - 1));
+		text.append(LINE).append('\n');
+		padLeft(text, "#", numberWidth);
+		text.append("  Due date    ");
+		padRight(text, "Priority", PRIORITY_WIDTH);
+		text.append("  Done  ");
+		padRight(text, "Repeat", REPEAT_WIDTH);
+		text.append("  Message\n");
+
+		int number = firstNumber;
+		for (Reminder reminder : page) {
+			int start = text.length();
+			text.append(number++);
+			padLeftFrom(text, start, numberWidth);
+			text.append("  ");
+			appendDate(text, reminder.getDate());
+			text.append("  ");
+			padRight(text, reminder.getPriority().name(), PRIORITY_WIDTH);
+			text.append(reminder.isCompleted() ? "  yes   " : "  no    ");
+			padRight(text, reminder.isRecurring() ? reminder.getRecurrence().ruleText() : "", REPEAT_WIDTH);
+			text.append("  ");
+			appendMessage(text, reminder.getMessage());
+			text.append('\n');
+		}
+
+		text.append(LINE).append('\n');
+		text.append("Page ").append(pageNumber);
+		if (pageCount > 0) {
+			text.append(" of ").append(pageCount);
+		}
+		if (total >= 0) {
+			text.append(", ").append(total).append(total == 1 ? " reminder" : " reminders");
+		}
+		text.append('\n');
+
+		// One write for the whole page
+		out.print(text);
+		out.flush();
+	}
+
+	// yyyy-MM-dd without a String per date, LocalDate.toString() for the years
+	// that don't have 4 digits
+	private static void appendDate(StringBuilder text, LocalDate date) {
+		int year = date.getYear();
+		if (year < 1000 || year > 9999) {
+			text.append(date);
+			return;
+		}
+
+		text.append(year).append('-');
+		appendTwoDigits(text, date.getMonthValue());
+		text.append('-');
+		appendTwoDigits(text, date.getDayOfMonth());
+	}
+
+	private static void appendTwoDigits(StringBuilder text, int value) {
+		text.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+	}
+
+	// Cut at MESSAGE_WIDTH, a line break of the message would break the table
+	private static void appendMessage(StringBuilder text, String message) {
+		int length = message.length() > MESSAGE_WIDTH ? MESSAGE_WIDTH - 3 : message.length();
+		for (int i = 0; i < length; i++) {
+			char c = message.charAt(i);
+			text.append(Character.isISOControl(c) ? ' ' : c);
+		}
+		if (length < message.length()) {
+			text.append("...");
+		}
+	}
+
+	private static void padRight(StringBuilder text, String value, int width) {
+		text.append(value);
+		for (int i = value.length(); i < width; i++) {
+			text.append(' ');
+		}
+	}
+
+	private static void padLeft(StringBuilder text, String value, int width) {
+		for (int i = value.length(); i < width; i++) {
+			text.append(' ');
+		}
+		text.append(value);
+	}
+
+	// The value appended from start is moved right to fill the width
+	private static void padLeftFrom(StringBuilder text, int start, int width) {
+		int missing = width - (text.length() - start);
+		for (int i = 0; i < missing; i++) {
+			text.insert(start, ' ');
+		}
+	}
+
+	private static int digits(int value) {
+		int digits = 1;
+		while (value >= 10) {
+			value /= 10;
+			digits++;
+		}
+		return digits;
+	}
+
+	private static boolean isNumber(String text) {
+		if (text.isEmpty() || text.length() > 9) {
+			return false;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int parse(String number) {
+		return Integer.parseInt(number);
+	}
+}
@@ -0,0 +1,300 @@
+package reminder_app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Saves the modifications of the tracked managers in the background, so a
+// modification doesn't wait for the disk and isn't lost if the user never saves.
+//
+// A modified manager is marked dirty by its change events. The next
+// modifications only add records to its pending journal, a burst of edits is
+// one write. One thread commits the dirty managers by groups:
+// - when the oldest modification is maxLatency old, or maxBatch managers are dirty
+// - the journals of the group are all written, then all forced, the saves
+//   waiting for the group are completed after the last force
+// - at most maxBatch managers per group, the others go in the next group
+// Every user has a journal file, so the group forces each dirty file once per
+// group, instead of once per modification.
+// A journal that needs a compaction is saved through the concurrent view, the
+// copy of the reminders is made under its lock.
+public class ReminderWriteBehind implements Closeable {
+	public static final Duration DEFAULT_MAX_LATENCY = Duration.ofMillis(200);
+	public static final int DEFAULT_MAX_BATCH = 256;
+
+	// Told about every group, on the flusher thread
+	@FunctionalInterface
+	public interface GroupListener {
+		void groupCommitted(int managers, long bytes, long startNanos);
+	}
+
+	private static final class Dirty {
+		private final ConcurrentReminderManager view;
+		// nanoTime of the first modification that isn't committed
+		private final long since;
+		// Completed when the group of this manager has been forced
+		private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+		private Dirty(ConcurrentReminderManager view, long since) {
+			this.view = view;
+			this.since = since;
+		}
+	}
+
+	private final long maxLatencyNanos;
+	private final int maxBatch;
+	private volatile GroupListener groupListener = (managers, bytes, startNanos) -> {
+	};
+
+	private final Map<ReminderManager, ConcurrentReminderManager> tracked = new ConcurrentHashMap<>();
+	private final ReminderChangeListener changeListener = (manager, change, reminder) -> markDirty(manager, false);
+
+	// Guarded by lock, the dirty managers in the order of their first modification
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition groupDue = lock.newCondition();
+	private final LinkedHashMap<ReminderManager, Dirty> dirty = new LinkedHashMap<>();
+	// The group being committed, a flush() of these managers waits for it
+	private Map<ReminderManager, Dirty> committing = Map.of();
+	// A flush() is waiting, the next group doesn't wait for maxLatency
+	private boolean urgent;
+	private boolean closed;
+
+	private final Thread flusher;
+
+	public ReminderWriteBehind() {
+		this(DEFAULT_MAX_LATENCY, DEFAULT_MAX_BATCH);
+	}
+
+	public ReminderWriteBehind(Duration maxLatency, int maxBatch) {
+		if (maxLatency.isNegative() || maxBatch < 1) {
+			throw new IllegalArgumentException("The write-behind needs a latency of at least 0 and a batch of at least 1");
+		}
+
+		this.maxLatencyNanos = maxLatency.toNanos();
+		this.maxBatch = maxBatch;
+
+		flusher = new Thread(this::run, "reminder-write-behind");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	// The modifications of the manager are committed in the background from now on
+	public void track(ConcurrentReminderManager view) {
+		ReminderManager manager = view.getManager();
+		if (tracked.putIfAbsent(manager, view) == null) {
+			manager.addChangeListener(changeListener);
+
+			// Modifications before tracking it
+			if (manager.hasUnsavedModifications()) {
+				markDirty(manager, false);
+			}
+		}
+	}
+
+	// Modifications that are already dirty are still committed by the next group
+	public void untrack(ReminderManager manager) {
+		if (tracked.remove(manager) != null) {
+			manager.removeChangeListener(changeListener);
+		}
+	}
+
+	// Commits the modifications of the manager with the next group, without
+	// waiting for maxLatency. An untracked manager is saved right away.
+	public CompletableFuture<Void> flush(ConcurrentReminderManager view) {
+		ReminderManager manager = view.getManager();
+		CompletableFuture<Void> committed = markDirty(manager, true);
+		if (committed != null) {
+			return committed;
+		}
+
+		try {
+			view.saveReminders();
+			return CompletableFuture.completedFuture(null);
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	public void setGroupListener(GroupListener groupListener) {
+		this.groupListener = groupListener;
+	}
+
+	public int getDirtyCount() {
+		lock.lock();
+		try {
+			return dirty.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Commits every dirty manager, then stops the flusher
+	@Override
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			groupDue.signal();
+		} finally {
+			lock.unlock();
+		}
+
+		try {
+			flusher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Returns null if the manager isn't tracked and has nothing to commit
+	private CompletableFuture<Void> markDirty(ReminderManager manager, boolean flush) {
+		lock.lock();
+		try {
+			Dirty entry = dirty.get(manager);
+			if (entry == null) {
+				ConcurrentReminderManager view = tracked.get(manager);
+				if (view == null || closed) {
+					return null;
+				}
+
+				// Nothing new since the group being committed
+				Dirty inGroup = committing.get(manager);
+				if (flush && inGroup != null && !manager.hasUnsavedModifications()) {
+					return inGroup.committed;
+				}
+
+				entry = new Dirty(view, System.nanoTime());
+				dirty.put(manager, entry);
+				if (dirty.size() == 1 || dirty.size() >= maxBatch) {
+					groupDue.signal();
+				}
+			}
+
+			if (flush && !urgent) {
+				urgent = true;
+				groupDue.signal();
+			}
+			return entry.committed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void run() {
+		while (true) {
+			List<Dirty> group = new ArrayList<>();
+			Map<ReminderManager, Dirty> groupManagers = new HashMap<>();
+
+			lock.lock();
+			try {
+				while (!isGroupDue()) {
+					if (closed && dirty.isEmpty()) {
+						return;
+					}
+
+					if (dirty.isEmpty()) {
+						groupDue.awaitUninterruptibly();
+					} else {
+						long oldest = dirty.values().iterator().next().since;
+						groupDue.awaitNanos(oldest + maxLatencyNanos - System.nanoTime());
+					}
+				}
+
+				Iterator<Map.Entry<ReminderManager, Dirty>> iterator = dirty.entrySet().iterator();
+				while (group.size() < maxBatch && iterator.hasNext()) {
+					Map.Entry<ReminderManager, Dirty> entry = iterator.next();
+					group.add(entry.getValue());
+					groupManagers.put(entry.getKey(), entry.getValue());
+					iterator.remove();
+				}
+
+				if (dirty.isEmpty()) {
+					urgent = false;
+				}
+				committing = groupManagers;
+			} catch (InterruptedException e) {
+				// Only the flusher waits on the condition, it is never interrupted
+				continue;
+			} finally {
+				lock.unlock();
+			}
+
+			commit(group);
+
+			lock.lock();
+			try {
+				committing = Map.of();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	// Under lock
+	private boolean isGroupDue() {
+		if (dirty.isEmpty()) {
+			return false;
+		}
+		if (closed || urgent || dirty.size() >= maxBatch) {
+			return true;
+		}
+		return System.nanoTime() - dirty.values().iterator().next().since >= maxLatencyNanos;
+	}
+
+	private void commit(List<Dirty> group) {
+		long startNanos = System.nanoTime();
+		long bytes = 0;
+		Map<Dirty, IOException> failures = new HashMap<>();
+
+		for (Dirty entry : group) {
+			try {
+				bytes += entry.view.getManager().writeJournal();
+			} catch (IOException e) {
+				failures.put(entry, e);
+			}
+		}
+
+		for (Dirty entry : group) {
+			if (!failures.containsKey(entry)) {
+				try {
+					entry.view.getManager().forceJournal();
+				} catch (IOException e) {
+					failures.put(entry, e);
+				}
+			}
+		}
+
+		for (Dirty entry : group) {
+			IOException failure = failures.get(entry);
+			if (failure != null) {
+				// The records stay pending, the next modification or save retries them
+				failure.printStackTrace();
+				entry.committed.completeExceptionally(failure);
+				continue;
+			}
+
+			ReminderManager manager = entry.view.getManager();
+			if (manager.shouldCompactJournal() && !manager.isLoggedOut()) {
+				try {
+					entry.view.saveReminders();
+				} catch (IOException e) {
+					// Committed already, the compaction is tried again by the next save
+					e.printStackTrace();
+				}
+			}
+			entry.committed.complete(null);
+		}
+
+		groupListener.groupCommitted(group.size(), bytes, startNanos);
+	}
+}
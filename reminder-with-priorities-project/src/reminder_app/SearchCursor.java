@@ -0,0 +1,174 @@
+package reminder_app;
+
+import java.util.List;
+
+// Walks rank keys in increasing order, for the queries of the ReminderSearchIndex.
+// seek() moves to the first key at or after the target, it never moves back.
+abstract class SearchCursor {
+	abstract boolean exhausted();
+
+	// Only valid while not exhausted
+	abstract long current();
+
+	abstract void next();
+
+	abstract void seek(long target);
+
+	// Keys of any of the cursors (the tokens of a prefix), each key once
+	static SearchCursor union(List<SearchCursor> cursors) {
+		return cursors.size() == 1 ? cursors.get(0) : new Union(cursors);
+	}
+
+	// Keys of all of the cursors (the terms of a query)
+	static SearchCursor intersection(List<SearchCursor> cursors) {
+		return cursors.size() == 1 ? cursors.get(0) : new Intersection(cursors);
+	}
+
+	// Binary heap of the cursors by their current key, the keys are kept next
+	// to it so the heap doesn't have to ask the cursors
+	private static final class Union extends SearchCursor {
+		private final SearchCursor[] heap;
+		private final long[] keys;
+		private int size;
+
+		private Union(List<SearchCursor> cursors) {
+			heap = new SearchCursor[cursors.size()];
+			keys = new long[cursors.size()];
+			for (SearchCursor cursor : cursors) {
+				if (!cursor.exhausted()) {
+					heap[size] = cursor;
+					keys[size++] = cursor.current();
+				}
+			}
+
+			for (int i = size / 2 - 1; i >= 0; i--) {
+				siftDown(i);
+			}
+		}
+
+		@Override
+		boolean exhausted() {
+			return size == 0;
+		}
+
+		@Override
+		long current() {
+			return keys[0];
+		}
+
+		@Override
+		void next() {
+			long previous = keys[0];
+			while (size > 0 && keys[0] == previous) {
+				heap[0].next();
+				topMoved();
+			}
+		}
+
+		@Override
+		void seek(long target) {
+			while (size > 0 && keys[0] < target) {
+				heap[0].seek(target);
+				topMoved();
+			}
+		}
+
+		private void topMoved() {
+			SearchCursor top = heap[0];
+			if (top.exhausted()) {
+				heap[0] = heap[--size];
+				keys[0] = keys[size];
+				heap[size] = null;
+			} else {
+				keys[0] = top.current();
+			}
+			siftDown(0);
+		}
+
+		private void siftDown(int index) {
+			SearchCursor cursor = heap[index];
+			long key = keys[index];
+
+			for (int child = 2 * index + 1; child < size; child = 2 * index + 1) {
+				if (child + 1 < size && keys[child + 1] < keys[child]) {
+					child++;
+				}
+				if (key <= keys[child]) {
+					break;
+				}
+
+				heap[index] = heap[child];
+				keys[index] = keys[child];
+				index = child;
+			}
+
+			heap[index] = cursor;
+			keys[index] = key;
+		}
+	}
+
+	// Leapfrog join, every cursor seeks to the highest key seen so far until
+	// they all agree. A common term doesn't have to be walked, its cursor
+	// jumps over the keys that the rare terms don't have.
+	private static final class Intersection extends SearchCursor {
+		private final SearchCursor[] cursors;
+		private boolean exhausted;
+		private long current;
+
+		private Intersection(List<SearchCursor> cursors) {
+			this.cursors = cursors.toArray(new SearchCursor[0]);
+			align();
+		}
+
+		@Override
+		boolean exhausted() {
+			return exhausted;
+		}
+
+		@Override
+		long current() {
+			return current;
+		}
+
+		@Override
+		void next() {
+			cursors[0].next();
+			align();
+		}
+
+		@Override
+		void seek(long target) {
+			if (!exhausted && current < target) {
+				cursors[0].seek(target);
+				align();
+			}
+		}
+
+		private void align() {
+			if (cursors[0].exhausted()) {
+				exhausted = true;
+				return;
+			}
+
+			long target = cursors[0].current();
+			int agreeing = 1;
+			for (int i = 1; agreeing < cursors.length; i = (i + 1) % cursors.length) {
+				SearchCursor cursor = cursors[i];
+				cursor.seek(target);
+				if (cursor.exhausted()) {
+					exhausted = true;
+					return;
+				}
+
+				if (cursor.current() == target) {
+					agreeing++;
+				} else {
+					target = cursor.current();
+					agreeing = 1;
+				}
+			}
+
+			current = target;
+		}
+	}
+}
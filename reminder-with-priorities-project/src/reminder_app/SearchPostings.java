@@ -0,0 +1,19 @@
+package reminder_app;
+
+// Rank keys of the reminders that have one token, see ReminderSearchIndex
+final class SearchPostings extends LongSortedSet {
+	private final String token;
+
+	SearchPostings(String token) {
+		this.token = token;
+	}
+
+	SearchPostings(String token, long[] sortedKeys, int count) {
+		super(sortedKeys, count);
+		this.token = token;
+	}
+
+	String token() {
+		return token;
+	}
+}
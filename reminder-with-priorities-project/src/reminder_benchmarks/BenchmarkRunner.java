@@ -0,0 +1,212 @@
+package reminder_benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Small benchmark harness, in the spirit of JMH average time mode.
+// Each benchmark runs warmup iterations, then measured iterations of a fixed
+// duration. The score is the mean time per operation in nanoseconds, with a
+// 99.9% confidence error. Results are written as JSON, so they can be compared
+// between versions.
+public class BenchmarkRunner {
+	// z value of a two-sided 99.9% interval
+	private static final double Z_999 = 3.29;
+
+	@FunctionalInterface
+	public interface Operation {
+		// The result is consumed, so the JIT can't remove the work
+		Object run() throws Exception;
+	}
+
+	@FunctionalInterface
+	public interface Setup {
+		void run() throws Exception;
+	}
+
+	public static final class Result {
+		private final String benchmark;
+		private final Map<String, String> params;
+		private final double[] samples;
+		private final long operations;
+
+		private Result(String benchmark, Map<String, String> params, double[] samples, long operations) {
+			this.benchmark = benchmark;
+			this.params = params;
+			this.samples = samples;
+			this.operations = operations;
+		}
+
+		public double getScore() {
+			double sum = 0;
+			for (double sample : samples) {
+				sum += sample;
+			}
+			return sum / samples.length;
+		}
+
+		public double getScoreError() {
+			if (samples.length < 2) {
+				return Double.NaN;
+			}
+
+			double mean = getScore();
+			double squares = 0;
+			for (double sample : samples) {
+				squares += (sample - mean) * (sample - mean);
+			}
+			return Z_999 * Math.sqrt(squares / (samples.length - 1)) / Math.sqrt(samples.length);
+		}
+	}
+
+	private final int warmupIterations;
+	private final int measurementIterations;
+	private final long iterationNanos;
+	private final String filter;
+	private final List<Result> results = new ArrayList<>();
+
+	// Consumed results
+	private volatile int sink;
+
+	public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis, String filter) {
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		this.iterationNanos = iterationMillis * 1_000_000L;
+		this.filter = filter;
+	}
+
+	public boolean isSelected(String benchmark) {
+		return filter == null || benchmark.contains(filter);
+	}
+
+	// Runs the operation again and again for every iteration
+	public void run(String benchmark, Map<String, String> params, Operation operation) throws Exception {
+		run(benchmark, params, 1, operation);
+	}
+
+	// When one call of the operation does many operations (ex. a burst of
+	// logins), the score is per operation, like @OperationsPerInvocation of JMH
+	public void run(String benchmark, Map<String, String> params, int operationsPerInvocation, Operation operation)
+			throws Exception {
+		if (!isSelected(benchmark)) {
+			return;
+		}
+
+		for (int i = 0; i < warmupIterations; i++) {
+			iteration(operation);
+		}
+
+		double[] samples = new double[measurementIterations];
+		long operations = 0;
+		for (int i = 0; i < measurementIterations; i++) {
+			long[] timed = iteration(operation);
+			samples[i] = (double) timed[0] / (timed[1] * operationsPerInvocation);
+			operations += timed[1] * operationsPerInvocation;
+		}
+
+		record(benchmark, params, samples, operations);
+	}
+
+	// For operations that consume their state (ex. clearing), the setup runs
+	// before every operation and isn't measured
+	public void runWithSetup(String benchmark, Map<String, String> params, Setup setup, Operation operation)
+			throws Exception {
+		if (!isSelected(benchmark)) {
+			return;
+		}
+
+		for (int i = 0; i < warmupIterations; i++) {
+			setup.run();
+			consume(operation.run());
+		}
+
+		double[] samples = new double[measurementIterations];
+		for (int i = 0; i < measurementIterations; i++) {
+			setup.run();
+			long start = System.nanoTime();
+			Object result = operation.run();
+			samples[i] = System.nanoTime() - start;
+			consume(result);
+		}
+
+		record(benchmark, params, samples, measurementIterations);
+	}
+
+	public List<Result> getResults() {
+		return results;
+	}
+
+	public void writeJson(Path file) throws IOException {
+		try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write("[\n");
+			for (int i = 0; i < results.size(); i++) {
+				Result result = results.get(i);
+				out.write("  {\n");
+				out.write("    \"benchmark\" : " + quote(result.benchmark) + ",\n");
+				out.write("    \"mode\" : \"avgt\",\n");
+				out.write("    \"params\" : {");
+				int param = 0;
+				for (Map.Entry<String, String> entry : result.params.entrySet()) {
+					out.write((param++ > 0 ? ", " : " ") + quote(entry.getKey()) + " : " + quote(entry.getValue()));
+				}
+				out.write(param > 0 ? " },\n" : "},\n");
+				out.write("    \"primaryMetric\" : {\n");
+				out.write("      \"score\" : " + number(result.getScore()) + ",\n");
+				out.write("      \"scoreError\" : " + number(result.getScoreError()) + ",\n");
+				out.write("      \"scoreUnit\" : \"ns/op\",\n");
+				out.write("      \"operations\" : " + result.operations + ",\n");
+				out.write("      \"rawData\" : [");
+				for (int s = 0; s < result.samples.length; s++) {
+					out.write((s > 0 ? ", " : "") + number(result.samples[s]));
+				}
+				out.write("]\n");
+				out.write("    }\n");
+				out.write(i + 1 < results.size() ? "  },\n" : "  }\n");
+			}
+			out.write("]\n");
+		}
+	}
+
+	private long[] iteration(Operation operation) throws Exception {
+		long operations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			consume(operation.run());
+			operations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < iterationNanos);
+
+		return new long[] { elapsed, operations };
+	}
+
+	private void record(String benchmark, Map<String, String> params, double[] samples, long operations) {
+		Result result = new Result(benchmark, new LinkedHashMap<>(params), samples, operations);
+		results.add(result);
+		print(System.out, result);
+	}
+
+	private void consume(Object result) {
+		sink += result == null ? 0 : System.identityHashCode(result);
+	}
+
+	private static void print(PrintStream out, Result result) {
+		out.printf("%-45s %-30s %16.1f +- %10.1f ns/op %14.0f ops/s%n", result.benchmark, result.params,
+				result.getScore(), result.getScoreError(), 1e9 / result.getScore());
+	}
+
+	private static String quote(String value) {
+		return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	private static String number(double value) {
+		return Double.isNaN(value) ? "\"NaN\"" : String.valueOf(value);
+	}
+}
@@ -0,0 +1,317 @@
+package reminder_benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import reminder_app.ConcurrentReminderManager;
+import reminder_app.Priority;
+import reminder_app.Reminder;
+import reminder_app.ReminderManager;
+import reminder_app.ReminderPage;
+import reminder_app.ReminderQuery;
+import reminder_app.ReminderStoreType;
+import reminder_storage.AccountDirectory;
+
+// Stress test of ConcurrentReminderManager, readers and writers of one account
+// on many threads.
+//
+// Every writer adds reminders, then marks, moves, renames, reprioritizes and
+// deletes only its own ones, and saves now and then. So it knows what it left,
+// and the totals are known at the end. The readers run every query while the
+// writers work, and check what they see :
+// - the snapshot has unique ids, no missing field, and is sorted HIGH to LOW
+// - a reminder found by id has that id
+// - a page is in rank order, and the next page starts after it. A reminder
+//   moved by a writer between two pages can be on both, that is expected.
+// At the end, the count, the snapshot, the queries and the reloaded files
+// should all agree with the writers.
+//
+// java reminder_benchmarks.ConcurrentReminderStress [--readers 8] [--writers 4] [--seconds 10]
+//     [--store indexed] [--preload 5000]
+//
+// Throws with every failure at the end, an exception in any thread is a failure.
+public class ConcurrentReminderStress {
+	private static final String EMAIL = "stress@reminder.app";
+	private static final String PREFIX = "Stress ";
+
+	// What a writer left, only this writer touches these reminders
+	private static final class Owned {
+		private final List<Long> pending = new ArrayList<>();
+		private final List<Long> marked = new ArrayList<>();
+	}
+
+	private final ConcurrentReminderManager view;
+	private final LocalDate today = LocalDate.now();
+	private final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+	private final AtomicLong reads = new AtomicLong();
+	private final AtomicLong writes = new AtomicLong();
+	private volatile boolean running = true;
+
+	private ConcurrentReminderStress(ConcurrentReminderManager view) {
+		this.view = view;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<>();
+		options.put("--readers", "8");
+		options.put("--writers", "4");
+		options.put("--seconds", "10");
+		options.put("--store", ReminderStoreType.DEFAULT.name());
+		options.put("--preload", "5000");
+
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (!options.containsKey(args[i])) {
+				System.out.println("Unknown option " + args[i] + ", options are " + options.keySet());
+				return;
+			}
+			options.put(args[i], args[i + 1]);
+		}
+
+		int readers = Integer.parseInt(options.get("--readers"));
+		int writers = Integer.parseInt(options.get("--writers"));
+		long millis = Long.parseLong(options.get("--seconds")) * 1000;
+		ReminderStoreType storeType = ReminderStoreType.fromName(options.get("--store"));
+		int preload = Integer.parseInt(options.get("--preload"));
+
+		Path directory = Files.createTempDirectory("reminder-stress");
+		AccountDirectory.of(directory.toString()).createAccount(EMAIL);
+		ReminderManager manager = new ReminderManager(EMAIL, directory.toString(), storeType);
+		ConcurrentReminderStress stress = new ConcurrentReminderStress(new ConcurrentReminderManager(manager));
+
+		Random random = new Random(0);
+		for (int i = 0; i < preload; i++) {
+			stress.view.addReminder(stress.newReminder(random, "preload " + i));
+		}
+		stress.view.saveReminders();
+
+		System.out.printf("Store %s, %d readers, %d writers, %d preloaded, %d s%n", storeType, readers, writers,
+				preload, millis / 1000);
+
+		List<Owned> owned = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < writers; i++) {
+			Owned mine = new Owned();
+			owned.add(mine);
+			int writer = i;
+			threads.add(stress.thread("stress-writer-" + i, start, () -> stress.write(writer, mine)));
+		}
+		for (int i = 0; i < readers; i++) {
+			int reader = i;
+			threads.add(stress.thread("stress-reader-" + i, start, () -> stress.read(reader)));
+		}
+
+		long startNanos = System.nanoTime();
+		start.countDown();
+		Thread.sleep(millis);
+		stress.running = false;
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+		System.out.printf("Reads  : %d, %.0f/s%n", stress.reads.get(), stress.reads.get() / seconds);
+		System.out.printf("Writes : %d, %.0f/s%n", stress.writes.get(), stress.writes.get() / seconds);
+
+		stress.checkTotals(owned, preload, directory, storeType);
+		manager.logout();
+
+		if (!stress.failures.isEmpty()) {
+			stress.failures.stream().limit(20).forEach(failure -> System.out.println("FAILED : " + failure));
+			throw new IllegalStateException(stress.failures.size() + " failures");
+		}
+		System.out.println("Every check passed");
+	}
+
+	private Thread thread(String name, CountDownLatch start, Runnable work) {
+		Thread thread = new Thread(() -> {
+			try {
+				start.await();
+				work.run();
+			} catch (Throwable e) {
+				failures.add(name + " threw " + e);
+				e.printStackTrace();
+			}
+		}, name);
+		thread.start();
+		return thread;
+	}
+
+	private void write(int writer, Owned mine) {
+		Random random = new Random(writer + 1);
+		int operations = 0;
+
+		while (running) {
+			try {
+				int operation = random.nextInt(100);
+				if (operation < 35 || mine.pending.size() < 10) {
+					mine.pending.add(view.addReminder(newReminder(random, "writer " + writer)).getId());
+				} else if (operation < 50) {
+					mine.marked.add(view.markReminderById(take(mine.pending, random)).getId());
+				} else if (operation < 65) {
+					long id = pick(mine.pending, random);
+					view.changeReminderDueDateById(id, view.getReminderById(id).getDate().plusDays(1));
+				} else if (operation < 75) {
+					long id = pick(mine.pending, random);
+					Priority priority = view.getReminderById(id).getPriority();
+					view.changeReminderPriorityById(id, Priority.values()[(priority.ordinal() + 1) % 3]);
+				} else if (operation < 85) {
+					view.changeReminderMessageById(pick(mine.pending, random), PREFIX + "renamed " + operations);
+				} else if (operation < 93) {
+					check(view.deleteReminderById(take(mine.pending, random)) != null, "deleting an own reminder");
+				} else if (!mine.marked.isEmpty()) {
+					check(view.deleteReminderById(take(mine.marked, random)) != null, "deleting an own marked one");
+				}
+
+				if (++operations % 500 == 0) {
+					view.saveReminders();
+				}
+				writes.incrementAndGet();
+			} catch (Exception e) {
+				// Every modification here is valid, none should be refused
+				failures.add("writer " + writer + " : " + e);
+			}
+		}
+	}
+
+	private void read(int reader) {
+		Random random = new Random(-reader - 1);
+
+		while (running) {
+			int operation = random.nextInt(6);
+			if (operation == 0) {
+				checkSnapshot(view.getReminders());
+			} else if (operation == 1) {
+				List<Reminder> snapshot = view.getReminders();
+				if (!snapshot.isEmpty()) {
+					Reminder reminder = view.getReminderById(snapshot.get(random.nextInt(snapshot.size())).getId());
+					// Null if it has been deleted since
+					check(reminder == null || snapshot.stream().anyMatch(r -> r.getId() == reminder.getId()),
+							"getReminderById gives the asked reminder");
+				}
+			} else if (operation == 2) {
+				checkPages(Priority.values()[random.nextInt(3)]);
+			} else if (operation == 3) {
+				long count = view.count(ReminderQuery.all().priority(Priority.HIGH).pending());
+				check(count >= 0, "a count is never negative");
+			} else if (operation == 4) {
+				view.query(ReminderQuery.all().dueWithinDays(7)).forEach(reminder -> check(
+						!reminder.getDate().isAfter(today.plusDays(7)), "a query only gives what matches"));
+			} else {
+				view.searchReminders("writer", 20).forEach(reminder -> check(
+						reminder.getMessage().contains("writer"), "a search only gives what matches"));
+			}
+			reads.incrementAndGet();
+		}
+	}
+
+	private void checkSnapshot(List<Reminder> snapshot) {
+		Set<Long> ids = new HashSet<>();
+		Priority previous = Priority.HIGH;
+		for (Reminder reminder : snapshot) {
+			check(ids.add(reminder.getId()), "the ids of a snapshot are unique");
+			check(reminder.getDate() != null && reminder.getPriority() != null
+					&& reminder.getMessage().startsWith(PREFIX), "a reminder of a snapshot is whole");
+			check(reminder.getPriority().compareTo(previous) <= 0, "a snapshot is sorted HIGH, MEDIUM, LOW");
+			previous = reminder.getPriority();
+		}
+	}
+
+	// The copies of a page are as they were when the page was read, the token is
+	// the rank of the next one at that time. So the next page starts after the
+	// last copy, even if that reminder has moved since.
+	private void checkPages(Priority priority) {
+		Reminder previous = null;
+		String token = null;
+		for (int page = 0; page < 3; page++) {
+			ReminderPage reminders = view.getReminderByPriorityPage(priority, token, 50);
+			for (Reminder reminder : reminders.getReminders()) {
+				check(reminder.getPriority() == priority, "a page of a priority only has that priority");
+				check(previous == null || compareRank(previous, reminder) < 0,
+						"the pages are in rank order, the next one starts after the previous one");
+				previous = reminder;
+			}
+			if (!reminders.hasNextPage()) {
+				return;
+			}
+			token = reminders.getNextPageToken();
+		}
+	}
+
+	private void checkTotals(List<Owned> owned, int preload, Path directory, ReminderStoreType storeType)
+			throws IOException {
+		long expected = preload;
+		long expectedMarked = 0;
+		for (Owned mine : owned) {
+			expected += mine.pending.size() + mine.marked.size();
+			expectedMarked += mine.marked.size();
+		}
+
+		List<Reminder> snapshot = view.getReminders();
+		checkSnapshot(snapshot);
+		check(view.getRemindersCount() == expected, "the count is " + expected + " (" + view.getRemindersCount() + ")");
+		check(snapshot.size() == expected, "the snapshot has " + expected + " reminders (" + snapshot.size() + ")");
+		check(view.count(ReminderQuery.all()) == expected, "count(all) is " + expected);
+		check(view.query(ReminderQuery.all()).count() == expected, "query(all) gives " + expected);
+		check(view.count(ReminderQuery.all().completed()) == expectedMarked, "count(completed) is " + expectedMarked);
+		for (Owned mine : owned) {
+			for (long id : mine.pending) {
+				check(view.getReminderById(id) != null && !view.getReminderById(id).isCompleted(),
+						"a pending reminder of a writer is still there");
+			}
+		}
+
+		view.saveReminders();
+		ReminderManager reloaded = new ReminderManager(EMAIL, directory.toString(), storeType);
+		Set<Long> savedIds = new HashSet<>();
+		reloaded.getReminders().forEach(reminder -> savedIds.add(reminder.getId()));
+		Set<Long> ids = new HashSet<>();
+		snapshot.forEach(reminder -> ids.add(reminder.getId()));
+		check(savedIds.equals(ids), "the reloaded files have the same reminders");
+		reloaded.logout();
+	}
+
+	// The order of the pages : HIGH to LOW, then by due date, then by id
+	private static int compareRank(Reminder first, Reminder second) {
+		int compared = second.getPriority().compareTo(first.getPriority());
+		if (compared == 0) {
+			compared = first.getDate().compareTo(second.getDate());
+		}
+		return compared != 0 ? compared : Long.compare(first.getId(), second.getId());
+	}
+
+	private Reminder newReminder(Random random, String message) {
+		return new Reminder(today.plusDays(1 + random.nextInt(60)), Priority.values()[random.nextInt(3)],
+				PREFIX + message);
+	}
+
+	private static long pick(List<Long> ids, Random random) {
+		return ids.get(random.nextInt(ids.size()));
+	}
+
+	private static long take(List<Long> ids, Random random) {
+		int at = random.nextInt(ids.size());
+		long id = ids.get(at);
+		ids.set(at, ids.get(ids.size() - 1));
+		ids.remove(ids.size() - 1);
+		return id;
+	}
+
+	private void check(boolean passed, String description) {
+		if (!passed) {
+			failures.add(description);
+		}
+	}
+}
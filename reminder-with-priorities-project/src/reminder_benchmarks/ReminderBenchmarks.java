@@ -0,0 +1,401 @@
+package reminder_benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import account_manager.AuthenticationSystem;
+import account_manager.LoginService;
+import account_manager.SessionCache;
+import reminder_app.ConcurrentReminderManager;
+import reminder_app.Priority;
+import reminder_app.Reminder;
+import reminder_app.ReminderManager;
+import reminder_app.ReminderQuery;
+import reminder_app.ReminderStoreType;
+import reminder_metrics.LatencyHistogram;
+import reminder_metrics.MeteredReminderService;
+import reminder_metrics.ReminderMetrics;
+import reminder_storage.AccountDirectory;
+import reminder_storage.ReminderCsvWriter;
+import reminder_storage.SnapshotFormat;
+import reminder_storage.SnapshotHeader;
+
+// Benchmarks of the hot paths of ReminderManager and AuthenticationSystem.
+// Every file is generated in a temporary directory, the resources are not touched.
+//
+// java reminder_benchmarks.ReminderBenchmarks [--sizes 1000,100000,1000000] [--out results.json]
+//     [--filter name] [--warmup 3] [--iterations 5] [--iteration-millis 500]
+public class ReminderBenchmarks {
+	private static final String EMAIL = "bench@reminder.app";
+
+	private final BenchmarkRunner runner;
+	private final Path workDirectory;
+
+	public ReminderBenchmarks(BenchmarkRunner runner, Path workDirectory) {
+		this.runner = runner;
+		this.workDirectory = workDirectory;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<>();
+		options.put("--sizes", "1000,100000,1000000");
+		options.put("--out", "benchmark-results.json");
+		options.put("--filter", null);
+		options.put("--warmup", "3");
+		options.put("--iterations", "5");
+		options.put("--iteration-millis", "500");
+
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (!options.containsKey(args[i])) {
+				System.out.println("Unknown option " + args[i] + ", options are " + options.keySet());
+				return;
+			}
+			options.put(args[i], args[i + 1]);
+		}
+
+		BenchmarkRunner runner = new BenchmarkRunner(Integer.parseInt(options.get("--warmup")),
+				Integer.parseInt(options.get("--iterations")), Long.parseLong(options.get("--iteration-millis")),
+				options.get("--filter"));
+
+		Path workDirectory = Files.createTempDirectory("reminder-benchmarks");
+		try {
+			ReminderBenchmarks benchmarks = new ReminderBenchmarks(runner, workDirectory);
+			for (String size : options.get("--sizes").split(",")) {
+				benchmarks.runAll(Integer.parseInt(size.trim()));
+			}
+		} finally {
+			deleteRecursively(workDirectory);
+		}
+
+		runner.writeJson(Paths.get(options.get("--out")));
+		System.out.println("Results are saved to " + options.get("--out"));
+	}
+
+	public void runAll(int rows) throws Exception {
+		Map<String, String> params = new LinkedHashMap<>();
+		params.put("rows", String.valueOf(rows));
+
+		List<Reminder> reminders = generateReminders(rows);
+
+		// One directory per format, with the same reminders
+		String csvDirectory = accountDirectory("csv-" + rows);
+		String binaryDirectory = accountDirectory("binary-" + rows);
+		writeCsv(accountPath(csvDirectory, SnapshotFormat.CSV), reminders);
+		SnapshotFormat.BINARY.write(accountPath(binaryDirectory, SnapshotFormat.BINARY), reminders,
+				SnapshotHeader.EMPTY);
+
+		loadBenchmarks(params, csvDirectory, binaryDirectory);
+		saveBenchmarks(params, reminders, binaryDirectory);
+		queryBenchmarks(params, csvDirectory);
+		metricsBenchmarks(params, csvDirectory);
+		concurrentBenchmarks(params, csvDirectory);
+		authenticationBenchmarks(params, rows);
+	}
+
+	// The cost of the metrics on the hot path, compare the metered getReminders
+	// with ReminderManager.getReminders (a cached list)
+	private void metricsBenchmarks(Map<String, String> params, String csvDirectory) throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		long[] latency = new long[1];
+		runner.run("LatencyHistogram.record", params, () -> {
+			histogram.record(latency[0]++ & 0xFFFFF);
+			return histogram;
+		});
+
+		if (runner.isSelected("MeteredReminderService.getReminders")) {
+			ReminderManager manager = new ReminderManager(EMAIL, csvDirectory);
+			MeteredReminderService metered = new MeteredReminderService(manager, new ReminderMetrics());
+			runner.run("MeteredReminderService.getReminders", params, () -> metered.getReminders());
+			manager.logout();
+		}
+	}
+
+	private void loadBenchmarks(Map<String, String> params, String csvDirectory, String binaryDirectory)
+			throws Exception {
+		runner.run("ReminderManager.loadReminders.csv", params, () -> load(csvDirectory));
+		runner.run("ReminderManager.loadReminders.binary", params, () -> load(binaryDirectory));
+	}
+
+	private void saveBenchmarks(Map<String, String> params, List<Reminder> reminders, String binaryDirectory)
+			throws Exception {
+		// What saving costed before the journal, a rewrite of every reminder
+		Path csvSnapshot = Paths.get(accountDirectory("snapshot"), "snapshot.txt");
+		Path binarySnapshot = Paths.get(accountDirectory("snapshot"), "snapshot.rwb");
+		runner.run("SnapshotFormat.write.csv", params, () -> {
+			SnapshotFormat.CSV.write(csvSnapshot, reminders, SnapshotHeader.EMPTY);
+			return csvSnapshot;
+		});
+		runner.run("SnapshotFormat.write.binary", params, () -> {
+			SnapshotFormat.BINARY.write(binarySnapshot, reminders, SnapshotHeader.EMPTY);
+			return binarySnapshot;
+		});
+
+		// One modification then saving it, only appends to the journal
+		if (runner.isSelected("ReminderManager.saveReminders")) {
+			ReminderManager manager = new ReminderManager(EMAIL, binaryDirectory);
+			int[] counter = { 0 };
+			runner.run("ReminderManager.saveReminders", params, () -> {
+				manager.changeReminderMessage(0, "Benchmark message " + counter[0]++);
+				return manager.saveReminders();
+			});
+			manager.logout();
+		}
+	}
+
+	// Every query on both stores, the compact one scans arrays instead of indexes
+	private void queryBenchmarks(Map<String, String> params, String csvDirectory) throws Exception {
+		if (runner.isSelected("ReminderManager.getReminderByPriority")
+				|| runner.isSelected("ReminderManager.getReminderByDueDate")
+				|| runner.isSelected("ReminderManager.getReminderByPastDue")
+				|| runner.isSelected("ReminderManager.getReminders")
+				|| runner.isSelected("ReminderManager.searchReminders")
+				|| runner.isSelected("ReminderManager.getRemindersPage")
+				|| runner.isSelected("ReminderManager.query") || runner.isSelected("ReminderManager.count")) {
+			LocalDate inTwoWeeks = LocalDate.now().plusDays(14);
+			ReminderQuery highThisWeek = ReminderQuery.all().priority(Priority.HIGH).pending().dueWithinDays(7);
+
+			for (ReminderStoreType storeType : ReminderStoreType.values()) {
+				Map<String, String> storeParams = new LinkedHashMap<>(params);
+				storeParams.put("store", storeType.name());
+				ReminderManager manager = new ReminderManager(EMAIL, csvDirectory, storeType);
+
+				runner.run("ReminderManager.getReminderByPriority", storeParams,
+						() -> manager.getReminderByPriority(Priority.HIGH));
+				runner.run("ReminderManager.getReminderByDueDate", storeParams,
+						() -> manager.getReminderByDueDate(inTwoWeeks));
+				runner.run("ReminderManager.getReminderByPastDue", storeParams, () -> manager.getReminderByPastDue());
+				runner.run("ReminderManager.getReminders", storeParams, () -> manager.getReminders());
+
+				// The first page of 20, compare with getReminders() that lists them all
+				runner.run("ReminderManager.getRemindersPage", storeParams, () -> manager.getRemindersPage(null, 20));
+
+				// Three conditions at once, the page above has built the rank keys
+				runner.run("ReminderManager.query", storeParams,
+						() -> manager.query(highThisWeek).collect(Collectors.toList()));
+				runner.run("ReminderManager.count", storeParams, () -> manager.count(highThisWeek));
+
+				// One word of every reminder with a rare one, then a prefix of many words.
+				// The first search builds the search index, the warmup pays for it.
+				for (String query : new String[] { "reminder 42", "benchmark 1*" }) {
+					Map<String, String> searchParams = new LinkedHashMap<>(storeParams);
+					searchParams.put("query", query);
+					runner.run("ReminderManager.searchReminders", searchParams,
+							() -> manager.searchReminders(query, 20));
+				}
+				manager.logout();
+			}
+		}
+
+		// Loading is the setup, only the modification is measured
+		ReminderManager[] fresh = new ReminderManager[1];
+		BenchmarkRunner.Setup reload = () -> {
+			if (fresh[0] != null) {
+				fresh[0].logout();
+			}
+			fresh[0] = new ReminderManager(EMAIL, csvDirectory);
+		};
+		List<Reminder> imported = generateReminders(1000);
+
+		runner.runWithSetup("ReminderManager.clearReminders", params, reload, () -> fresh[0].clearReminders());
+		runner.runWithSetup("ReminderManager.deleteIf", params, reload,
+				() -> fresh[0].deleteIf(reminder -> reminder.getPriority() == Priority.LOW));
+		runner.runWithSetup("ReminderManager.addAll", params, reload, () -> {
+			List<Reminder> copies = new ArrayList<>(imported.size());
+			for (Reminder reminder : imported) {
+				copies.add(reminder.copy());
+			}
+			return fresh[0].addAll(copies);
+		});
+		if (fresh[0] != null) {
+			fresh[0].logout();
+		}
+	}
+
+	// Mixed readers and writers on one user, 90% queries
+	private void concurrentBenchmarks(Map<String, String> params, String csvDirectory) throws Exception {
+		if (!runner.isSelected("ConcurrentReminderManager.mixed")) {
+			return;
+		}
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		int operationsPerThread = 1000;
+		Map<String, String> threadParams = new LinkedHashMap<>(params);
+		threadParams.put("threads", String.valueOf(threads));
+
+		ReminderManager manager = new ReminderManager(EMAIL, csvDirectory);
+		ConcurrentReminderManager reminders = new ConcurrentReminderManager(manager);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		LocalDate inTwoWeeks = LocalDate.now().plusDays(14);
+
+		try {
+			runner.run("ConcurrentReminderManager.mixed", threadParams, () -> {
+				List<Future<Integer>> results = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					int seed = t;
+					results.add(executor.submit(() -> {
+						Random random = new Random(seed);
+						int found = 0;
+						for (int i = 0; i < operationsPerThread; i++) {
+							int operation = random.nextInt(10);
+							if (operation == 0) {
+								reminders.addReminder(new Reminder(inTwoWeeks, Priority.LOW, "Concurrent"));
+							} else if (operation == 1) {
+								reminders.deleteReminder(reminders.getRemindersCount() - 1);
+							} else if (operation < 6) {
+								found += reminders.getReminders().size();
+							} else {
+								found += reminders.getReminderByDueDate(inTwoWeeks).size();
+							}
+						}
+						return found;
+					}));
+				}
+
+				int found = 0;
+				for (Future<Integer> result : results) {
+					found += result.get();
+				}
+				return found;
+			});
+		} finally {
+			executor.shutdown();
+			manager.logout();
+		}
+	}
+
+	private void authenticationBenchmarks(Map<String, String> params, int users) throws Exception {
+		Path usersFile = Paths.get(accountDirectory("users-" + users), "user-accounts.txt");
+		try (BufferedWriter out = Files.newBufferedWriter(usersFile, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < users; i++) {
+				if (i > 0) {
+					out.newLine();
+				}
+				out.write(String.format("user%d@reminder.app, %s", i,
+						Base64.getEncoder().encodeToString(("password" + i).getBytes())));
+			}
+		}
+
+		// The first construction migrates the text file to the index, the next ones only open it
+		Path indexFile = usersFile.resolveSibling("user-accounts.idx");
+		runner.runWithSetup("AuthenticationSystem.migrateUsers", params, () -> Files.deleteIfExists(indexFile),
+				() -> openAndClose(usersFile));
+		runner.run("AuthenticationSystem.loadUsers", params, () -> openAndClose(usersFile));
+
+		if (runner.isSelected("AuthenticationSystem.login")) {
+			AuthenticationSystem auth = new AuthenticationSystem(usersFile.toString());
+			String email = "user" + (users / 2) + "@reminder.app";
+			String password = "password" + (users / 2);
+			runner.run("AuthenticationSystem.login", params, () -> auth.login(email, password));
+			auth.close();
+		}
+
+		loginBenchmarks(params, usersFile, users);
+	}
+
+	// Bursts of concurrent logins through the hashing executor, the score is per
+	// login. Checking the session token afterwards doesn't hash at all.
+	private void loginBenchmarks(Map<String, String> params, Path usersFile, int users) throws Exception {
+		if (!runner.isSelected("LoginService.loginBurst") && !runner.isSelected("LoginService.getEmail")) {
+			return;
+		}
+
+		int burst = 1000;
+		int threads = Runtime.getRuntime().availableProcessors();
+		Map<String, String> burstParams = new LinkedHashMap<>(params);
+		burstParams.put("burst", String.valueOf(burst));
+		burstParams.put("threads", String.valueOf(threads));
+
+		AuthenticationSystem auth = new AuthenticationSystem(usersFile.toString());
+		LoginService loginService = new LoginService(auth, new SessionCache(), threads, burst);
+		try {
+			Random random = new Random(users);
+			runner.run("LoginService.loginBurst", burstParams, burst, () -> {
+				CompletableFuture<?>[] logins = new CompletableFuture<?>[burst];
+				for (int i = 0; i < burst; i++) {
+					int user = random.nextInt(users);
+					logins[i] = loginService.login("user" + user + "@reminder.app", "password" + user)
+							.thenAccept(token -> loginService.logout(token));
+				}
+				return CompletableFuture.allOf(logins).join();
+			});
+
+			String token = loginService.login("user0@reminder.app", "password0").join();
+			runner.run("LoginService.getEmail", params, () -> loginService.getEmail(token));
+		} finally {
+			loginService.close();
+			auth.close();
+		}
+	}
+
+	private static AuthenticationSystem openAndClose(Path usersFile) throws IOException {
+		AuthenticationSystem auth = new AuthenticationSystem(usersFile.toString());
+		auth.close();
+		return auth;
+	}
+
+	private static ReminderManager load(String directory) throws IOException {
+		ReminderManager manager = new ReminderManager(EMAIL, directory);
+		manager.logout();
+		return manager;
+	}
+
+	private String accountDirectory(String name) throws IOException {
+		return Files.createDirectories(workDirectory.resolve(name)).toString();
+	}
+
+	// Snapshot of the benchmark user, in its shard of the directory
+	private static Path accountPath(String directory, SnapshotFormat format) throws IOException {
+		Path snapshot = AccountDirectory.of(directory).snapshotPath(EMAIL, format);
+		Files.createDirectories(snapshot.getParent());
+		return snapshot;
+	}
+
+	// Due dates from a year ago to a year from now, half of them completed
+	private static List<Reminder> generateReminders(int rows) {
+		Random random = new Random(rows);
+		LocalDate today = LocalDate.now();
+		Priority[] priorities = Priority.values();
+
+		List<Reminder> reminders = new ArrayList<>(rows);
+		for (int i = 0; i < rows; i++) {
+			reminders.add(new Reminder(today.plusDays(random.nextInt(730) - 365),
+					priorities[random.nextInt(priorities.length)], "Benchmark reminder number " + i, i % 2 == 0));
+		}
+		return reminders;
+	}
+
+	private static void writeCsv(Path file, List<Reminder> reminders) throws IOException {
+		try (ReminderCsvWriter writer = new ReminderCsvWriter(new FileOutputStream(file.toFile()))) {
+			for (Reminder reminder : reminders) {
+				writer.write(reminder);
+			}
+		}
+	}
+
+	private static void deleteRecursively(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package reminder_metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Histogram of latencies in nanoseconds, in the spirit of HdrHistogram.
+// The buckets are log-linear : exact up to 63, then every power of two is cut
+// in 32 buckets, so a value is kept within ~3%. Up to Long.MAX_VALUE in 1888
+// buckets. Recording is two atomic adds, nothing is allocated. The count is
+// the sum of the buckets, it is only needed by the readers.
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (63 - SUB_BUCKET_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+
+		counts.getAndIncrement(bucketOf(nanos));
+		sum.getAndAdd(nanos);
+
+		long currentMax = max.get();
+		while (nanos > currentMax && !max.compareAndSet(currentMax, nanos)) {
+			currentMax = max.get();
+		}
+	}
+
+	public long getCount() {
+		long recorded = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			recorded += counts.get(bucket);
+		}
+		return recorded;
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long recorded = getCount();
+		return recorded == 0 ? 0 : (double) sum.get() / recorded;
+	}
+
+	// The highest value of the bucket of the percentile [0-100], 0 if empty.
+	// Concurrent records can make it slightly off, like any live histogram.
+	public long getPercentile(double percentile) {
+		long recorded = getCount();
+		if (recorded == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += counts.get(bucket);
+			if (seen >= rank) {
+				return Math.min(highestValueOf(bucket), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	public void reset() {
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			counts.set(bucket, 0);
+		}
+		sum.set(0);
+		max.set(0);
+	}
+
+	static int bucketOf(long value) {
+		if (value < 2 * SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	static long highestValueOf(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS) {
+			return bucket;
+		}
+
+		int shift = bucket / SUB_BUCKETS - 1;
+		long top = bucket - shift * SUB_BUCKETS;
+		long highest = ((top + 1) << shift) - 1;
+		return highest < 0 ? Long.MAX_VALUE : highest;
+	}
+}
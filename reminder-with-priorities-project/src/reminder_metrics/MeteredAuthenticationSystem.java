@@ -0,0 +1,83 @@
+package reminder_metrics;
+
+import account_manager.AuthenticationSystem;
+
+// AuthenticationSystem that times the logins and the registrations.
+// auth.login is the whole login, auth.hashPassword and auth.lookup are its two
+// steps, the LoginService calls them separately.
+public class MeteredAuthenticationSystem extends AuthenticationSystem {
+	private final OperationMetrics register;
+	private final OperationMetrics login;
+	private final OperationMetrics hashPassword;
+	private final OperationMetrics lookup;
+
+	private MeteredAuthenticationSystem(String usersPath, ReminderMetrics metrics) {
+		super(usersPath);
+
+		register = metrics.operation("auth.register");
+		login = metrics.operation("auth.login");
+		hashPassword = metrics.operation("auth.hashPassword");
+		lookup = metrics.operation("auth.lookup");
+	}
+
+	// Times the opening of the users index (or its migration) as auth.load
+	public static MeteredAuthenticationSystem open(String usersPath, ReminderMetrics metrics) {
+		long start = System.nanoTime();
+		MeteredAuthenticationSystem auth = new MeteredAuthenticationSystem(usersPath, metrics);
+		metrics.operation("auth.load").record(start);
+		return auth;
+	}
+
+	@Override
+	public boolean register(String email, String password) {
+		long start = System.nanoTime();
+		try {
+			boolean registered = super.register(email, password);
+			register.record(start);
+			return registered;
+		} catch (RuntimeException e) {
+			register.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean login(String email, String password) {
+		long start = System.nanoTime();
+		try {
+			boolean loggedIn = super.login(email, password);
+			login.record(start);
+			return loggedIn;
+		} catch (RuntimeException e) {
+			login.recordError(start);
+			throw e;
+		}
+	}
+
+	// Includes the wait for the lock of the users
+	@Override
+	public boolean loginHashed(String email, String hashedPassword) {
+		long start = System.nanoTime();
+		try {
+			boolean loggedIn = super.loginHashed(email, hashedPassword);
+			lookup.record(start);
+			return loggedIn;
+		} catch (RuntimeException e) {
+			lookup.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public String hashPassword(String plainPassword) {
+		long start = System.nanoTime();
+		try {
+			String hashed = super.hashPassword(plainPassword);
+			hashPassword.record(start);
+			return hashed;
+		} catch (RuntimeException e) {
+			hashPassword.recordError(start);
+			throw e;
+		}
+	}
+}
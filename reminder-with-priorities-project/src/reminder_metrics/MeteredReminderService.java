@@ -0,0 +1,534 @@
+package reminder_metrics;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import project_exceptions.DueDateException;
+import project_exceptions.MessageException;
+import project_exceptions.PriorityException;
+import reminder_app.Priority;
+import reminder_app.Reminder;
+import reminder_app.ReminderManager;
+import reminder_app.ReminderManagerRegistry;
+import reminder_app.ReminderPage;
+import reminder_app.ReminderQuery;
+import reminder_app.ReminderService;
+
+// Counts and times every operation of a ReminderService, then gives the result
+// back unchanged. The index and the ById versions of an operation share its
+// metrics. An exception is counted as an error and thrown again.
+// The cheap getters (count, email, ...) are not timed.
+public class MeteredReminderService implements ReminderService {
+	private final ReminderService service;
+
+	// Looked up once, so a call only reads the clock twice and records
+	private final OperationMetrics add;
+	private final OperationMetrics delete;
+	private final OperationMetrics mark;
+	private final OperationMetrics addAll;
+	private final OperationMetrics deleteIf;
+	private final OperationMetrics markIf;
+	private final OperationMetrics changePriorityIf;
+	private final OperationMetrics changeDueDateIf;
+	private final OperationMetrics clear;
+	private final OperationMetrics changePriority;
+	private final OperationMetrics changeDueDate;
+	private final OperationMetrics changeMessage;
+	private final OperationMetrics save;
+	private final OperationMetrics getById;
+	private final OperationMetrics getByDueDate;
+	private final OperationMetrics getByPriority;
+	private final OperationMetrics getByPastDue;
+	private final OperationMetrics search;
+	private final OperationMetrics query;
+	private final OperationMetrics count;
+	private final OperationMetrics getPage;
+	private final OperationMetrics getReminders;
+
+	public MeteredReminderService(ReminderService service, ReminderMetrics metrics) {
+		this.service = service;
+
+		add = metrics.operation("reminders.add");
+		delete = metrics.operation("reminders.delete");
+		mark = metrics.operation("reminders.mark");
+		addAll = metrics.operation("reminders.addAll");
+		deleteIf = metrics.operation("reminders.deleteIf");
+		markIf = metrics.operation("reminders.markIf");
+		changePriorityIf = metrics.operation("reminders.changePriorityIf");
+		changeDueDateIf = metrics.operation("reminders.changeDueDateIf");
+		clear = metrics.operation("reminders.clear");
+		changePriority = metrics.operation("reminders.changePriority");
+		changeDueDate = metrics.operation("reminders.changeDueDate");
+		changeMessage = metrics.operation("reminders.changeMessage");
+		save = metrics.operation("reminders.save");
+		getById = metrics.operation("reminders.getById");
+		getByDueDate = metrics.operation("reminders.getByDueDate");
+		getByPriority = metrics.operation("reminders.getByPriority");
+		getByPastDue = metrics.operation("reminders.getByPastDue");
+		search = metrics.operation("reminders.search");
+		query = metrics.operation("reminders.query");
+		count = metrics.operation("reminders.count");
+		getPage = metrics.operation("reminders.getPage");
+		getReminders = metrics.operation("reminders.getReminders");
+	}
+
+	// For the ReminderManagerRegistry, times the loads and counts the bytes
+	// read, and the bytes written by the saves of the loaded managers
+	public static ReminderManagerRegistry.Loader loader(ReminderMetrics metrics) {
+		OperationMetrics load = metrics.operation("reminders.load");
+		OperationMetrics save = metrics.operation("reminders.save");
+
+		return email -> {
+			long start = System.nanoTime();
+			try {
+				ReminderManager manager = new ReminderManager(email);
+				load.record(start);
+				load.addBytesRead(manager.getBytesRead());
+				manager.setBytesWrittenListener(save::addBytesWritten);
+				return manager;
+			} catch (IOException | RuntimeException e) {
+				load.recordError(start);
+				throw e;
+			}
+		};
+	}
+
+	public ReminderService getService() {
+		return service;
+	}
+
+	@Override
+	public Reminder addReminder(Reminder reminder) {
+		long start = System.nanoTime();
+		try {
+			Reminder added = service.addReminder(reminder);
+			add.record(start);
+			return added;
+		} catch (RuntimeException e) {
+			add.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder deleteReminder(int index) {
+		long start = System.nanoTime();
+		try {
+			Reminder deleted = service.deleteReminder(index);
+			delete.record(start);
+			return deleted;
+		} catch (RuntimeException e) {
+			delete.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder markReminder(int index) {
+		long start = System.nanoTime();
+		try {
+			Reminder marked = service.markReminder(index);
+			mark.record(start);
+			return marked;
+		} catch (RuntimeException e) {
+			mark.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder deleteReminderById(long id) {
+		long start = System.nanoTime();
+		try {
+			Reminder deleted = service.deleteReminderById(id);
+			delete.record(start);
+			return deleted;
+		} catch (RuntimeException e) {
+			delete.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder markReminderById(long id) {
+		long start = System.nanoTime();
+		try {
+			Reminder marked = service.markReminderById(id);
+			mark.record(start);
+			return marked;
+		} catch (RuntimeException e) {
+			mark.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder markOccurrenceById(long id, LocalDate occurrence) {
+		long start = System.nanoTime();
+		try {
+			Reminder marked = service.markOccurrenceById(id, occurrence);
+			mark.record(start);
+			return marked;
+		} catch (RuntimeException e) {
+			mark.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> addAll(Collection<Reminder> reminders) {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> added = service.addAll(reminders);
+			addAll.record(start);
+			return added;
+		} catch (RuntimeException e) {
+			addAll.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> deleteIf(Predicate<? super Reminder> filter) {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> deleted = service.deleteIf(filter);
+			deleteIf.record(start);
+			return deleted;
+		} catch (RuntimeException e) {
+			deleteIf.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> markIf(Predicate<? super Reminder> filter) {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> marked = service.markIf(filter);
+			markIf.record(start);
+			return marked;
+		} catch (RuntimeException e) {
+			markIf.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> changePriorityIf(Predicate<? super Reminder> filter, Priority newPriority) {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> changed = service.changePriorityIf(filter, newPriority);
+			changePriorityIf.record(start);
+			return changed;
+		} catch (RuntimeException e) {
+			changePriorityIf.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> changeDueDateIf(Predicate<? super Reminder> filter, LocalDate newDueDate) {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> changed = service.changeDueDateIf(filter, newDueDate);
+			changeDueDateIf.record(start);
+			return changed;
+		} catch (RuntimeException e) {
+			changeDueDateIf.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> clearReminders() {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> cleared = service.clearReminders();
+			clear.record(start);
+			return cleared;
+		} catch (RuntimeException e) {
+			clear.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder changeReminderPriority(int index, Priority newPriority) throws PriorityException {
+		long start = System.nanoTime();
+		try {
+			Reminder changed = service.changeReminderPriority(index, newPriority);
+			changePriority.record(start);
+			return changed;
+		} catch (PriorityException | RuntimeException e) {
+			changePriority.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder changeReminderPriorityById(long id, Priority newPriority) throws PriorityException {
+		long start = System.nanoTime();
+		try {
+			Reminder changed = service.changeReminderPriorityById(id, newPriority);
+			changePriority.record(start);
+			return changed;
+		} catch (PriorityException | RuntimeException e) {
+			changePriority.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder changeReminderDueDate(int index, LocalDate newDueDate) throws DueDateException {
+		long start = System.nanoTime();
+		try {
+			Reminder changed = service.changeReminderDueDate(index, newDueDate);
+			changeDueDate.record(start);
+			return changed;
+		} catch (DueDateException | RuntimeException e) {
+			changeDueDate.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder changeReminderDueDateById(long id, LocalDate newDueDate) throws DueDateException {
+		long start = System.nanoTime();
+		try {
+			Reminder changed = service.changeReminderDueDateById(id, newDueDate);
+			changeDueDate.record(start);
+			return changed;
+		} catch (DueDateException | RuntimeException e) {
+			changeDueDate.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder changeReminderMessage(int index, String message) throws MessageException {
+		long start = System.nanoTime();
+		try {
+			Reminder changed = service.changeReminderMessage(index, message);
+			changeMessage.record(start);
+			return changed;
+		} catch (MessageException | RuntimeException e) {
+			changeMessage.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Reminder changeReminderMessageById(long id, String message) throws MessageException {
+		long start = System.nanoTime();
+		try {
+			Reminder changed = service.changeReminderMessageById(id, message);
+			changeMessage.record(start);
+			return changed;
+		} catch (MessageException | RuntimeException e) {
+			changeMessage.recordError(start);
+			throw e;
+		}
+	}
+
+	// The written bytes are counted by the loader(), the compactions finish later
+	@Override
+	public String saveReminders() throws IOException {
+		long start = System.nanoTime();
+		try {
+			String saved = service.saveReminders();
+			save.record(start);
+			return saved;
+		} catch (IOException | RuntimeException e) {
+			save.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean hasUnsavedModifications() {
+		return service.hasUnsavedModifications();
+	}
+
+	@Override
+	public Reminder getReminderById(long id) {
+		long start = System.nanoTime();
+		try {
+			Reminder reminder = service.getReminderById(id);
+			getById.record(start);
+			return reminder;
+		} catch (RuntimeException e) {
+			getById.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> getReminderByDueDate(LocalDate dueDateInput) {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> reminders = service.getReminderByDueDate(dueDateInput);
+			getByDueDate.record(start);
+			return reminders;
+		} catch (RuntimeException e) {
+			getByDueDate.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> getReminderByPriority(Priority filteredPriority) {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> reminders = service.getReminderByPriority(filteredPriority);
+			getByPriority.record(start);
+			return reminders;
+		} catch (RuntimeException e) {
+			getByPriority.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> getReminderByPastDue() {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> reminders = service.getReminderByPastDue();
+			getByPastDue.record(start);
+			return reminders;
+		} catch (RuntimeException e) {
+			getByPastDue.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> searchReminders(String query, int limit) {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> reminders = service.searchReminders(query, limit);
+			search.record(start);
+			return reminders;
+		} catch (RuntimeException e) {
+			search.recordError(start);
+			throw e;
+		}
+	}
+
+	// Only the planning of a lazy stream is timed, a ConcurrentReminderManager
+	// collects it under its lock
+	@Override
+	public Stream<Reminder> query(ReminderQuery reminderQuery) {
+		long start = System.nanoTime();
+		try {
+			Stream<Reminder> reminders = service.query(reminderQuery);
+			query.record(start);
+			return reminders;
+		} catch (RuntimeException e) {
+			query.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public long count(ReminderQuery reminderQuery) {
+		long start = System.nanoTime();
+		try {
+			long found = service.count(reminderQuery);
+			count.record(start);
+			return found;
+		} catch (RuntimeException e) {
+			count.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public ReminderPage getRemindersPage(String pageToken, int pageSize) {
+		long start = System.nanoTime();
+		try {
+			ReminderPage page = service.getRemindersPage(pageToken, pageSize);
+			getPage.record(start);
+			return page;
+		} catch (RuntimeException e) {
+			getPage.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public ReminderPage getReminderByPriorityPage(Priority filteredPriority, String pageToken, int pageSize) {
+		long start = System.nanoTime();
+		try {
+			ReminderPage page = service.getReminderByPriorityPage(filteredPriority, pageToken, pageSize);
+			getPage.record(start);
+			return page;
+		} catch (RuntimeException e) {
+			getPage.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public ReminderPage getReminderByDueDatePage(LocalDate dueDateInput, String pageToken, int pageSize) {
+		long start = System.nanoTime();
+		try {
+			ReminderPage page = service.getReminderByDueDatePage(dueDateInput, pageToken, pageSize);
+			getPage.record(start);
+			return page;
+		} catch (RuntimeException e) {
+			getPage.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public ReminderPage getReminderByPastDuePage(String pageToken, int pageSize) {
+		long start = System.nanoTime();
+		try {
+			ReminderPage page = service.getReminderByPastDuePage(pageToken, pageSize);
+			getPage.record(start);
+			return page;
+		} catch (RuntimeException e) {
+			getPage.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Reminder> getReminders() {
+		long start = System.nanoTime();
+		try {
+			List<Reminder> reminders = service.getReminders();
+			getReminders.record(start);
+			return reminders;
+		} catch (RuntimeException e) {
+			getReminders.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public int getRemindersCount() {
+		return service.getRemindersCount();
+	}
+
+	@Override
+	public String getEmail() {
+		return service.getEmail();
+	}
+
+	@Override
+	public long getBytesRead() {
+		return service.getBytesRead();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return service.getBytesWritten();
+	}
+}
@@ -0,0 +1,33 @@
+package reminder_metrics;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Prints the metrics table every interval, for when JMX isn't reachable (ex. in
+// the logs of a server)
+public class MetricsReporter implements Closeable {
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "metrics-reporter");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public MetricsReporter(ReminderMetrics metrics, Duration interval, PrintStream out) {
+		if (interval.toMillis() <= 0) {
+			throw new IllegalArgumentException("The interval should be at least one millisecond");
+		}
+
+		executor.scheduleAtFixedRate(() -> out.print("Metrics at " + LocalDateTime.now() + "\n" + metrics.dump()),
+				interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+}
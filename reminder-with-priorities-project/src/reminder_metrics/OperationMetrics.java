@@ -0,0 +1,106 @@
+package reminder_metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latencies of one operation (ex. reminders.add).
+// Usage, on the hot path :
+//
+// long start = System.nanoTime();
+// ... the operation ...
+// metrics.record(start);
+public class OperationMetrics implements OperationMetricsMBean {
+	private final String name;
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder bytesRead = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+
+	OperationMetrics(String name) {
+		this.name = name;
+	}
+
+	// Records the latency since the start, from System.nanoTime()
+	public void record(long startNanos) {
+		latencies.record(System.nanoTime() - startNanos);
+	}
+
+	// A failed call is counted in the calls too
+	public void recordError(long startNanos) {
+		record(startNanos);
+		errors.increment();
+	}
+
+	public void addBytesRead(long bytes) {
+		if (bytes > 0) {
+			bytesRead.add(bytes);
+		}
+	}
+
+	public void addBytesWritten(long bytes) {
+		if (bytes > 0) {
+			bytesWritten.add(bytes);
+		}
+	}
+
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getCalls() {
+		return latencies.getCount();
+	}
+
+	@Override
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	@Override
+	public double getMeanNanos() {
+		return latencies.getMean();
+	}
+
+	@Override
+	public long getP50Nanos() {
+		return latencies.getPercentile(50);
+	}
+
+	@Override
+	public long getP99Nanos() {
+		return latencies.getPercentile(99);
+	}
+
+	@Override
+	public long getP999Nanos() {
+		return latencies.getPercentile(99.9);
+	}
+
+	@Override
+	public long getMaxNanos() {
+		return latencies.getMax();
+	}
+
+	@Override
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	@Override
+	public void reset() {
+		latencies.reset();
+		errors.reset();
+		bytesRead.reset();
+		bytesWritten.reset();
+	}
+}
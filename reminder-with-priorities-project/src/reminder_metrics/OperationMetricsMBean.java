@@ -0,0 +1,26 @@
+package reminder_metrics;
+
+// JMX view of one operation, every latency is in nanoseconds
+public interface OperationMetricsMBean {
+	String getName();
+
+	long getCalls();
+
+	long getErrors();
+
+	double getMeanNanos();
+
+	long getP50Nanos();
+
+	long getP99Nanos();
+
+	long getP999Nanos();
+
+	long getMaxNanos();
+
+	long getBytesRead();
+
+	long getBytesWritten();
+
+	void reset();
+}
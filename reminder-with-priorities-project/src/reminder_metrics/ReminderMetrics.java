@@ -0,0 +1,110 @@
+package reminder_metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// The metrics of every operation, by name (ex. reminders.add, auth.login).
+// Look up the OperationMetrics once and keep it, recording doesn't need the map.
+//
+// With registerMBeans(), every operation is also visible in JConsole / VisualVM
+// under reminder_metrics:type=Operation.
+public class ReminderMetrics {
+	public static final String JMX_DOMAIN = "reminder_metrics";
+
+	private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+	private volatile MBeanServer mbeanServer;
+
+	public OperationMetrics operation(String name) {
+		OperationMetrics metrics = operations.get(name);
+		if (metrics != null) {
+			return metrics;
+		}
+
+		metrics = operations.computeIfAbsent(name, OperationMetrics::new);
+		if (mbeanServer != null) {
+			register(mbeanServer, metrics);
+		}
+		return metrics;
+	}
+
+	// Sorted by name
+	public List<OperationMetrics> getOperations() {
+		return new ArrayList<>(new TreeMap<>(operations).values());
+	}
+
+	// The operations created later are registered too
+	public void registerMBeans() {
+		registerMBeans(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	public void registerMBeans(MBeanServer server) {
+		mbeanServer = server;
+		for (OperationMetrics metrics : operations.values()) {
+			register(server, metrics);
+		}
+	}
+
+	public void unregisterMBeans() {
+		MBeanServer server = mbeanServer;
+		if (server == null) {
+			return;
+		}
+
+		mbeanServer = null;
+		for (OperationMetrics metrics : operations.values()) {
+			try {
+				server.unregisterMBean(objectName(metrics));
+			} catch (JMException e) {
+				// Already unregistered
+			}
+		}
+	}
+
+	public void reset() {
+		for (OperationMetrics metrics : operations.values()) {
+			metrics.reset();
+		}
+	}
+
+	// One line per operation that has been called, latencies in microseconds
+	public String dump() {
+		StringBuilder text = new StringBuilder(String.format("%-28s %10s %7s %10s %10s %10s %10s %12s %12s%n",
+				"operation", "calls", "errors", "mean(us)", "p50(us)", "p99(us)", "max(us)", "read(B)", "written(B)"));
+
+		for (OperationMetrics metrics : getOperations()) {
+			if (metrics.getCalls() == 0 && metrics.getBytesRead() == 0 && metrics.getBytesWritten() == 0) {
+				continue;
+			}
+
+			text.append(String.format("%-28s %10d %7d %10.1f %10.1f %10.1f %10.1f %12d %12d%n", metrics.getName(),
+					metrics.getCalls(), metrics.getErrors(), metrics.getMeanNanos() / 1000.0,
+					metrics.getP50Nanos() / 1000.0, metrics.getP99Nanos() / 1000.0, metrics.getMaxNanos() / 1000.0,
+					metrics.getBytesRead(), metrics.getBytesWritten()));
+		}
+		return text.toString();
+	}
+
+	private static void register(MBeanServer server, OperationMetrics metrics) {
+		try {
+			server.registerMBean(metrics, objectName(metrics));
+		} catch (InstanceAlreadyExistsException e) {
+			// Another ReminderMetrics already has this operation, the first one stays visible
+		} catch (JMException e) {
+			// The metrics still work without JMX
+			e.printStackTrace();
+		}
+	}
+
+	private static ObjectName objectName(OperationMetrics metrics) throws JMException {
+		return new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + ObjectName.quote(metrics.getName()));
+	}
+}
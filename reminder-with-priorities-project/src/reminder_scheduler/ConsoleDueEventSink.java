@@ -0,0 +1,20 @@
+package reminder_scheduler;
+
+import java.io.PrintStream;
+
+public class ConsoleDueEventSink implements DueEventSink {
+	private final PrintStream out;
+
+	public ConsoleDueEventSink() {
+		this(System.out);
+	}
+
+	public ConsoleDueEventSink(PrintStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public void deliver(DueEvent event) {
+		out.println("\nReminder is due : " + event.getReminder());
+	}
+}
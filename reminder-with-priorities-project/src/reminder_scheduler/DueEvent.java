@@ -0,0 +1,41 @@
+package reminder_scheduler;
+
+import java.time.Instant;
+
+import reminder_app.Reminder;
+
+// A reminder of a user that became due
+public class DueEvent {
+	private final String email;
+	private final Reminder reminder;
+	private final Instant dueAt;
+	private final Instant firedAt;
+
+	public DueEvent(String email, Reminder reminder, Instant dueAt, Instant firedAt) {
+		this.email = email;
+		this.reminder = reminder;
+		this.dueAt = dueAt;
+		this.firedAt = firedAt;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public Reminder getReminder() {
+		return reminder;
+	}
+
+	public Instant getDueAt() {
+		return dueAt;
+	}
+
+	public Instant getFiredAt() {
+		return firedAt;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s, %s, %s", firedAt, email, reminder);
+	}
+}
@@ -0,0 +1,7 @@
+package reminder_scheduler;
+
+// Where the due reminders are delivered (console, file, or any callback)
+@FunctionalInterface
+public interface DueEventSink {
+	void deliver(DueEvent event);
+}
@@ -0,0 +1,31 @@
+package reminder_scheduler;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+
+// Appends every due reminder as a line of the file
+public class FileDueEventSink implements DueEventSink, Closeable {
+	private final BufferedWriter writer;
+
+	public FileDueEventSink(String filePath) throws IOException {
+		this.writer = new BufferedWriter(new FileWriter(filePath, true));
+	}
+
+	@Override
+	public synchronized void deliver(DueEvent event) {
+		try {
+			writer.write(event.toString());
+			writer.newLine();
+			writer.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,245 @@
+package reminder_scheduler;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import reminder_app.ConcurrentReminderManager;
+import reminder_app.Reminder;
+import reminder_app.ReminderChange;
+import reminder_app.ReminderChangeListener;
+import reminder_app.ReminderManager;
+
+// Fires the pending reminders of the registered managers when they become due,
+// at the start of their due date in the zone of the clock.
+// The reminders are kept in a timing wheel, so adding, cancelling and moving
+// one is O(1) even with millions of them. The modifications of the managers
+// are followed through their change listener.
+// A recurring reminder has one timeout, on its next pending occurrence. When it
+// fires the next occurrence is scheduled, the missed ones are not fired again.
+// The timeouts keep a copy of their reminder, made by the change listener on
+// the write path of the manager. The ticker thread never reads a live reminder,
+// the reminders of a compact store are views over its arrays.
+public class ReminderScheduler implements ReminderChangeListener, Closeable {
+	private static final Duration DEFAULT_TICK = Duration.ofMinutes(1);
+
+	private static final class Scheduled {
+		private final ReminderManager manager;
+		// A copy, see above
+		private final Reminder reminder;
+		// The occurrence of a recurring reminder, or its due date
+		private final LocalDate dueDate;
+		private final Instant dueAt;
+
+		private Scheduled(ReminderManager manager, Reminder reminder, LocalDate dueDate, Instant dueAt) {
+			this.manager = manager;
+			this.reminder = reminder;
+			this.dueDate = dueDate;
+			this.dueAt = dueAt;
+		}
+	}
+
+	private final Clock clock;
+	private final DueEventSink sink;
+	private final long tickMillis;
+	private final TimingWheel<Scheduled> wheel;
+
+	// Pending timeouts of every registered manager, by reminder id. Not by the
+	// reminder itself, a compact store gives a new view of it every time.
+	private final Map<ReminderManager, Map<Long, TimingWheel.Timeout<Scheduled>>> managers = new IdentityHashMap<>();
+
+	private ScheduledExecutorService ticker;
+
+	public ReminderScheduler(DueEventSink sink) {
+		this(Clock.systemDefaultZone(), sink, DEFAULT_TICK);
+	}
+
+	public ReminderScheduler(Clock clock, DueEventSink sink) {
+		this(clock, sink, DEFAULT_TICK);
+	}
+
+	public ReminderScheduler(Clock clock, DueEventSink sink, Duration tick) {
+		if (tick.toMillis() <= 0) {
+			throw new IllegalArgumentException("The tick should be at least one millisecond");
+		}
+
+		this.clock = clock;
+		this.sink = sink;
+		this.tickMillis = tick.toMillis();
+		this.wheel = new TimingWheel<>(tickOf(clock.instant()));
+	}
+
+	// Schedules every pending reminder of the manager, then follows its
+	// modifications. Through the concurrent view, the reminders are read under
+	// its lock while the other sessions of the user modify them.
+	public void register(ConcurrentReminderManager view) {
+		ReminderManager manager = view.getManager();
+		synchronized (this) {
+			if (managers.containsKey(manager)) {
+				return;
+			}
+			managers.put(manager, new HashMap<>());
+		}
+
+		// The lock of the view first, then this one, like reminderChanged()
+		view.addChangeListener(this, reminder -> {
+			synchronized (this) {
+				Map<Long, TimingWheel.Timeout<Scheduled>> timeouts = managers.get(manager);
+				if (timeouts != null) {
+					schedule(manager, timeouts, reminder.copy());
+				}
+			}
+		});
+	}
+
+	public synchronized void unregister(ReminderManager manager) {
+		manager.removeChangeListener(this);
+
+		Map<Long, TimingWheel.Timeout<Scheduled>> timeouts = managers.remove(manager);
+		if (timeouts != null) {
+			for (TimingWheel.Timeout<Scheduled> timeout : timeouts.values()) {
+				wheel.cancel(timeout);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void reminderChanged(ReminderManager manager, ReminderChange change, Reminder reminder) {
+		Map<Long, TimingWheel.Timeout<Scheduled>> timeouts = managers.get(manager);
+		if (timeouts == null) {
+			return;
+		}
+
+		switch (change) {
+		case ADDED:
+			schedule(manager, timeouts, reminder.copy());
+			break;
+		case DELETED:
+		case CLEARED:
+		case MARKED:
+			cancel(timeouts, reminder);
+			break;
+		case DUE_DATE_CHANGED:
+		case OCCURRENCE_MARKED:
+			cancel(timeouts, reminder);
+			schedule(manager, timeouts, reminder.copy());
+			break;
+		default:
+			// The priority or the message, a new copy on the same occurrence
+			TimingWheel.Timeout<Scheduled> timeout = timeouts.remove(reminder.getId());
+			if (timeout != null && wheel.cancel(timeout)) {
+				Scheduled old = timeout.getValue();
+				timeouts.put(reminder.getId(),
+						wheel.add(new Scheduled(manager, reminder.copy(), old.dueDate, old.dueAt), tickOf(old.dueAt)));
+			}
+			break;
+		}
+	}
+
+	// Fires every reminder that is due by now, returns how many were fired
+	public int advance() {
+		List<TimingWheel.Timeout<Scheduled>> expired = new ArrayList<>();
+		Instant now = clock.instant();
+
+		synchronized (this) {
+			wheel.advanceTo(tickOf(now), expired);
+
+			LocalDate today = LocalDate.ofInstant(now, clock.getZone());
+			for (TimingWheel.Timeout<Scheduled> timeout : expired) {
+				Scheduled scheduled = timeout.getValue();
+				Map<Long, TimingWheel.Timeout<Scheduled>> timeouts = managers.get(scheduled.manager);
+				if (timeouts != null) {
+					timeouts.remove(scheduled.reminder.getId());
+
+					if (scheduled.reminder.isRecurring()) {
+						LocalDate after = scheduled.dueDate.plusDays(1);
+						schedule(scheduled.manager, timeouts, scheduled.reminder, after.isAfter(today) ? after : today);
+					}
+				}
+			}
+		}
+
+		// Delivered outside of the lock, the sink can be slow
+		for (TimingWheel.Timeout<Scheduled> timeout : expired) {
+			Scheduled scheduled = timeout.getValue();
+			try {
+				sink.deliver(new DueEvent(scheduled.manager.getEmail(), scheduled.reminder.occurrence(scheduled.dueDate),
+						scheduled.dueAt, now));
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+
+		return expired.size();
+	}
+
+	// Advances on a background thread every tick
+	public synchronized void start() {
+		if (ticker != null) {
+			return;
+		}
+
+		ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "reminder-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ticker.scheduleAtFixedRate(this::advance, 0, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized int getScheduledCount() {
+		return wheel.size();
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (ticker != null) {
+				ticker.shutdownNow();
+				ticker = null;
+			}
+
+			for (ReminderManager manager : new ArrayList<>(managers.keySet())) {
+				unregister(manager);
+			}
+		}
+	}
+
+	private void schedule(ReminderManager manager, Map<Long, TimingWheel.Timeout<Scheduled>> timeouts,
+			Reminder reminder) {
+		schedule(manager, timeouts, reminder, reminder.getDate());
+	}
+
+	// On the first pending occurrence from the date
+	private void schedule(ReminderManager manager, Map<Long, TimingWheel.Timeout<Scheduled>> timeouts,
+			Reminder reminder, LocalDate from) {
+		LocalDate dueDate = reminder.pendingOccurrenceFrom(from);
+		if (dueDate == null) {
+			return;
+		}
+
+		Instant dueAt = dueDate.atStartOfDay(clock.getZone()).toInstant();
+		timeouts.put(reminder.getId(), wheel.add(new Scheduled(manager, reminder, dueDate, dueAt), tickOf(dueAt)));
+	}
+
+	private void cancel(Map<Long, TimingWheel.Timeout<Scheduled>> timeouts, Reminder reminder) {
+		TimingWheel.Timeout<Scheduled> timeout = timeouts.remove(reminder.getId());
+		if (timeout != null) {
+			wheel.cancel(timeout);
+		}
+	}
+
+	private long tickOf(Instant instant) {
+		return Math.floorDiv(instant.toEpochMilli(), tickMillis);
+	}
+}
@@ -0,0 +1,165 @@
+package reminder_scheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import project_exceptions.DueDateException;
+import project_exceptions.MessageException;
+import reminder_app.ConcurrentReminderManager;
+import reminder_app.Priority;
+import reminder_app.Recurrence;
+import reminder_app.Reminder;
+import reminder_app.ReminderManager;
+import reminder_app.ReminderStoreType;
+import reminder_storage.AccountDirectory;
+
+// Runnable check of the ReminderScheduler, driven by advance() with a clock
+// that is moved by hand, for both stores :
+// - a reminder fires once, at the start of its due date
+// - a marked or deleted reminder never fires
+// - a moved reminder fires on its new due date, not on the old one
+// - a new message is the one delivered
+// - a recurring reminder fires on every occurrence, until it is deleted
+//
+// java reminder_scheduler.ReminderSchedulerCheck
+//
+// Prints the checks, throws on the first one that fails. The accounts are made
+// in a temporary directory.
+public class ReminderSchedulerCheck {
+	private static final String EMAIL = "scheduler@check.com";
+	private static final LocalDate TODAY = LocalDate.of(2026, 1, 10);
+
+	// A clock that only moves when it is told to
+	private static final class ManualClock extends Clock {
+		private volatile Instant now;
+
+		private ManualClock(Instant now) {
+			this.now = now;
+		}
+
+		private void set(Instant now) {
+			this.now = now;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+
+	private final List<DueEvent> delivered = new ArrayList<>();
+	private final ManualClock clock = new ManualClock(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC));
+
+	public static void main(String[] args) throws Exception {
+		for (ReminderStoreType storeType : ReminderStoreType.values()) {
+			new ReminderSchedulerCheck().run(storeType);
+		}
+		System.out.println("Every check passed");
+	}
+
+	private void run(ReminderStoreType storeType) throws IOException, DueDateException, MessageException {
+		System.out.println("Store " + storeType);
+
+		Path directory = Files.createTempDirectory("reminder-scheduler-check");
+		AccountDirectory.of(directory.toString()).createAccount(EMAIL);
+		ConcurrentReminderManager view = new ConcurrentReminderManager(
+				new ReminderManager(EMAIL, directory.toString(), storeType, clock));
+
+		// Before the registration, scheduled by register()
+		long tomorrow = add(view, 1, "Tomorrow");
+		long marked = add(view, 1, "Marked");
+
+		try (ReminderScheduler scheduler = new ReminderScheduler(clock, delivered::add, Duration.ofMinutes(1))) {
+			scheduler.register(view);
+
+			// After it, scheduled by the change listener
+			long deleted = add(view, 1, "Deleted");
+			long moved = add(view, 1, "Moved");
+			long renamed = add(view, 2, "Old message");
+			Reminder daily = new Reminder(TODAY.plusDays(3), Priority.LOW, "Daily");
+			daily.setRecurrence(Recurrence.daily(TODAY.plusDays(3)));
+			long recurring = view.addReminder(daily).getId();
+
+			check(scheduler.getScheduledCount() == 6, "every pending reminder is scheduled");
+			check(scheduler.advance() == 0, "nothing fires before its due date");
+
+			view.markReminderById(marked);
+			view.deleteReminderById(deleted);
+			view.changeReminderDueDateById(moved, TODAY.plusDays(4));
+			view.changeReminderMessageById(renamed, "New message");
+			check(scheduler.getScheduledCount() == 4, "a marked or deleted reminder is cancelled");
+
+			advanceTo(TODAY.plusDays(1), 30);
+			checkFired(scheduler, tomorrow);
+			check(scheduler.advance() == 0, "a reminder fires only once");
+
+			advanceTo(TODAY.plusDays(2), 0);
+			checkFired(scheduler, renamed);
+			check(delivered.get(0).getReminder().getMessage().equals("New message"), "the new message is delivered");
+
+			advanceTo(TODAY.plusDays(3), 0);
+			checkFired(scheduler, recurring);
+			check(delivered.get(0).getReminder().getDate().equals(TODAY.plusDays(3)), "the first occurrence fires");
+
+			advanceTo(TODAY.plusDays(4), 0);
+			checkFired(scheduler, moved, recurring);
+
+			view.deleteReminderById(recurring);
+			advanceTo(TODAY.plusDays(5), 0);
+			checkFired(scheduler);
+			check(scheduler.getScheduledCount() == 0, "nothing is left to fire");
+		}
+	}
+
+	private long add(ConcurrentReminderManager view, int days, String message) {
+		return view.addReminder(new Reminder(TODAY.plusDays(days), Priority.MEDIUM, message)).getId();
+	}
+
+	private void advanceTo(LocalDate date, int seconds) {
+		clock.set(date.atStartOfDay(ZoneOffset.UTC).plusSeconds(seconds).toInstant());
+	}
+
+	// Advances, then checks the ids of the delivered reminders, in any order
+	private void checkFired(ReminderScheduler scheduler, long... ids) {
+		delivered.clear();
+		int fired = scheduler.advance();
+
+		List<Long> expected = new ArrayList<>();
+		for (long id : ids) {
+			expected.add(id);
+		}
+		List<Long> actual = new ArrayList<>();
+		for (DueEvent event : delivered) {
+			actual.add(event.getReminder().getId());
+		}
+
+		check(fired == ids.length && actual.containsAll(expected) && expected.containsAll(actual),
+				LocalDate.ofInstant(clock.instant(), ZoneOffset.UTC) + " fires " + expected + " (fired " + actual + ")");
+	}
+
+	private static void check(boolean passed, String description) {
+		if (!passed) {
+			throw new IllegalStateException("Failed : " + description);
+		}
+		System.out.println("  ok : " + description);
+	}
+}
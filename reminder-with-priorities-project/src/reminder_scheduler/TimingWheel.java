@@ -0,0 +1,195 @@
+package reminder_scheduler;
+
+import java.util.List;
+
+// Hierarchical timing wheel (Varghese and Lauck), driven by advanceTo().
+// Every level has 64 slots, a slot of level n covers 64^n ticks. A timeout is
+// put in the lowest level that can hold its deadline, and moved down (cascaded)
+// when the higher level slot is reached. Adding and cancelling are O(1).
+//
+// Not thread-safe, the owner should synchronize the calls.
+public class TimingWheel<T> {
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+
+	// 64^6 ticks, more than 130 years with a one minute tick
+	private static final int LEVELS = 6;
+
+	// A timeout is a node of the doubly linked list of its slot
+	public static final class Timeout<T> {
+		private final T value;
+		private final long deadlineTick;
+		private Timeout<T> previous;
+		private Timeout<T> next;
+		private Slot<T> slot;
+
+		private Timeout(T value, long deadlineTick) {
+			this.value = value;
+			this.deadlineTick = deadlineTick;
+		}
+
+		public T getValue() {
+			return value;
+		}
+
+		public long getDeadlineTick() {
+			return deadlineTick;
+		}
+
+		public boolean isPending() {
+			return slot != null;
+		}
+	}
+
+	private static final class Slot<T> {
+		private Timeout<T> head;
+
+		private void add(Timeout<T> timeout) {
+			timeout.slot = this;
+			timeout.previous = null;
+			timeout.next = head;
+			if (head != null) {
+				head.previous = timeout;
+			}
+			head = timeout;
+		}
+
+		private void remove(Timeout<T> timeout) {
+			if (timeout.previous != null) {
+				timeout.previous.next = timeout.next;
+			} else {
+				head = timeout.next;
+			}
+			if (timeout.next != null) {
+				timeout.next.previous = timeout.previous;
+			}
+
+			timeout.slot = null;
+			timeout.previous = null;
+			timeout.next = null;
+		}
+
+		// Removes every timeout, returns the first of the detached list
+		private Timeout<T> detachAll() {
+			Timeout<T> detached = head;
+			for (Timeout<T> timeout = head; timeout != null; timeout = timeout.next) {
+				timeout.slot = null;
+			}
+			head = null;
+			return detached;
+		}
+	}
+
+	private final Slot<T>[][] slots;
+	private long currentTick;
+	private int size;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public TimingWheel(long startTick) {
+		this.currentTick = startTick;
+		this.slots = new Slot[LEVELS][SLOTS];
+		for (int level = 0; level < LEVELS; level++) {
+			for (int i = 0; i < SLOTS; i++) {
+				slots[level][i] = new Slot<>();
+			}
+		}
+	}
+
+	// A deadline that has already passed expires on the next advanceTo()
+	public Timeout<T> add(T value, long deadlineTick) {
+		Timeout<T> timeout = new Timeout<>(value, deadlineTick);
+		place(timeout);
+		size++;
+		return timeout;
+	}
+
+	public boolean cancel(Timeout<T> timeout) {
+		if (timeout.slot == null) {
+			return false;
+		}
+
+		timeout.slot.remove(timeout);
+		size--;
+		return true;
+	}
+
+	// Moves the wheel up to the tick, every expired timeout is added to the list
+	public void advanceTo(long tick, List<Timeout<T>> expired) {
+		// Deadlines that were already passed when they were added
+		collect(slots[0][(int) (currentTick & SLOT_MASK)], expired);
+
+		while (currentTick < tick) {
+			currentTick++;
+
+			// When a level wraps around, the next slot of the level above is
+			// spread to the lower levels
+			for (int level = 1; level < LEVELS; level++) {
+				long lowerBits = currentTick & ((1L << (SLOT_BITS * level)) - 1);
+				if (lowerBits != 0) {
+					break;
+				}
+				cascade(slots[level][(int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)]);
+			}
+
+			collect(slots[0][(int) (currentTick & SLOT_MASK)], expired);
+		}
+	}
+
+	public long getCurrentTick() {
+		return currentTick;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void place(Timeout<T> timeout) {
+		long delta = timeout.deadlineTick - currentTick;
+
+		if (delta <= 0) {
+			// Expires on the current slot
+			slots[0][(int) (currentTick & SLOT_MASK)].add(timeout);
+			return;
+		}
+
+		int level = (63 - Long.numberOfLeadingZeros(delta)) / SLOT_BITS;
+		if (level < LEVELS) {
+			slots[level][(int) ((timeout.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK)].add(timeout);
+		} else {
+			// Further than the wheel, it waits in the top level slot that is reached
+			// last, then it is placed again
+			int top = LEVELS - 1;
+			long lastSlot = (currentTick >>> (SLOT_BITS * top)) - 1;
+			slots[top][(int) (lastSlot & SLOT_MASK)].add(timeout);
+		}
+	}
+
+	private void cascade(Slot<T> slot) {
+		Timeout<T> timeout = slot.detachAll();
+		while (timeout != null) {
+			Timeout<T> next = timeout.next;
+			place(timeout);
+			timeout = next;
+		}
+	}
+
+	private void collect(Slot<T> slot, List<Timeout<T>> expired) {
+		Timeout<T> timeout = slot.detachAll();
+		while (timeout != null) {
+			Timeout<T> next = timeout.next;
+			timeout.previous = null;
+			timeout.next = null;
+
+			// A far deadline can be in a level 0 slot after a cascade, only the due
+			// ones are expired
+			if (timeout.deadlineTick <= currentTick) {
+				expired.add(timeout);
+				size--;
+			} else {
+				place(timeout);
+			}
+			timeout = next;
+		}
+	}
+}
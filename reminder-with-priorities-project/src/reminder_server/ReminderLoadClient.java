@@ -0,0 +1,150 @@
+package reminder_server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load generator for the ReminderServer. Every session logs in, then sends a mix
+// of queries (70%), additions (20%) and marks (10%), and logs out.
+//
+// java reminder_server.ReminderLoadClient <host:port> <sessions> <requests per session> <email> <password>
+//
+// If the email has %d (ex. load%d@mail.com), session n uses the account n % 100,
+// the accounts should already exist. Otherwise every session shares one account.
+public class ReminderLoadClient {
+	private static final int DISTINCT_ACCOUNTS = 100;
+
+	private final String baseUrl;
+	private final HttpClient client;
+	private final AtomicLong failures = new AtomicLong();
+
+	public ReminderLoadClient(String hostAndPort, ExecutorService executor) {
+		this.baseUrl = "http://" + hostAndPort;
+		this.client = HttpClient.newBuilder().executor(executor).build();
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 5) {
+			System.out.println(
+					"Usage : ReminderLoadClient <host:port> <sessions> <requests per session> <email> <password>");
+			return;
+		}
+
+		int sessions = Integer.parseInt(args[1]);
+		int requestsPerSession = Integer.parseInt(args[2]);
+		ExecutorService executor = VirtualThreads.newPerTaskExecutor("reminder-load-client");
+		ReminderLoadClient loadClient = new ReminderLoadClient(args[0], executor);
+
+		long start = System.nanoTime();
+		List<Future<long[]>> results = new ArrayList<>();
+		for (int i = 0; i < sessions; i++) {
+			String email = args[3].contains("%d") ? String.format(args[3], i % DISTINCT_ACCOUNTS) : args[3];
+			int session = i;
+			results.add(executor.submit(() -> loadClient.runSession(session, email, args[4], requestsPerSession)));
+		}
+
+		List<long[]> latencies = new ArrayList<>();
+		for (Future<long[]> result : results) {
+			latencies.add(result.get());
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		executor.shutdown();
+
+		long[] all = latencies.stream().flatMapToLong(Arrays::stream).filter(latency -> latency > 0).sorted()
+				.toArray();
+		System.out.printf("Sessions     : %d (virtual threads : %b)%n", sessions, VirtualThreads.isAvailable());
+		System.out.printf("Requests     : %d in %.2f s, %.0f requests/s%n", all.length, seconds, all.length / seconds);
+		System.out.printf("Failures     : %d%n", loadClient.failures.get());
+		if (all.length > 0) {
+			System.out.printf("Latency (ms) : p50 %.2f, p99 %.2f, max %.2f%n", percentile(all, 0.50) / 1e6,
+					percentile(all, 0.99) / 1e6, all[all.length - 1] / 1e6);
+		}
+	}
+
+	// Returns the latency of every request in nanoseconds, 0 for a failed one
+	public long[] runSession(int session, String email, String password, int requests) {
+		long[] latencies = new long[requests + 2];
+		Random random = new Random(session);
+
+		String[] login = send("POST", "/login", null, latencies, 0, "email", email, "password", password);
+		if (login == null) {
+			return latencies;
+		}
+		String token = login[1].trim();
+
+		for (int i = 1; i <= requests; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 7) {
+				send("GET", "/reminders", token, latencies, i, "priority", "HIGH");
+			} else if (operation < 9) {
+				send("POST", "/reminders/add", token, latencies, i, "days", String.valueOf(random.nextInt(32)),
+						"priority", "MEDIUM", "message", "Load test " + session + "-" + i);
+			} else {
+				send("POST", "/reminders/mark", token, latencies, i, "number", "1");
+			}
+		}
+
+		send("POST", "/logout", token, latencies, requests + 1);
+		return latencies;
+	}
+
+	// Returns the status and the body, null if the request failed
+	private String[] send(String method, String path, String token, long[] latencies, int slot, String... form) {
+		StringBuilder encoded = new StringBuilder();
+		for (int i = 0; i + 1 < form.length; i += 2) {
+			if (encoded.length() > 0) {
+				encoded.append('&');
+			}
+			encoded.append(URLEncoder.encode(form[i], StandardCharsets.UTF_8)).append('=')
+					.append(URLEncoder.encode(form[i + 1], StandardCharsets.UTF_8));
+		}
+
+		HttpRequest.Builder request;
+		if (method.equals("GET")) {
+			request = HttpRequest.newBuilder(URI.create(baseUrl + path + "?" + encoded)).GET();
+		} else {
+			request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+					.header("Content-Type", "application/x-www-form-urlencoded")
+					.POST(HttpRequest.BodyPublishers.ofString(encoded.toString()));
+		}
+		if (token != null) {
+			request.header(ReminderServer.SESSION_HEADER, token);
+		}
+
+		long start = System.nanoTime();
+		try {
+			HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+			latencies[slot] = System.nanoTime() - start;
+
+			// 400 is an expected answer (ex. marking with no reminder)
+			if (response.statusCode() >= 500 || response.statusCode() == 401) {
+				failures.incrementAndGet();
+				return null;
+			}
+			return new String[] { String.valueOf(response.statusCode()), response.body() };
+		} catch (IOException e) {
+			failures.incrementAndGet();
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failures.incrementAndGet();
+			return null;
+		}
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+}
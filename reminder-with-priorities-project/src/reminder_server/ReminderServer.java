@@ -0,0 +1,648 @@
+package reminder_server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import account_manager.AuthenticationSystem;
+import account_manager.LoginService;
+import project_exceptions.DueDateException;
+import project_exceptions.MessageException;
+import project_exceptions.PriorityException;
+import reminder_app.ConcurrentReminderManager;
+import reminder_app.Priority;
+import reminder_app.Recurrence;
+import reminder_app.Reminder;
+import reminder_app.ReminderManager;
+import reminder_app.ReminderManagerRegistry;
+import reminder_app.ReminderPage;
+import reminder_app.ReminderService;
+import reminder_app.ReminderWriteBehind;
+import reminder_metrics.MeteredAuthenticationSystem;
+import reminder_metrics.MeteredReminderService;
+import reminder_metrics.MetricsReporter;
+import reminder_metrics.OperationMetrics;
+import reminder_metrics.ReminderMetrics;
+
+// Server mode of the application, every menu of MainReminderApp over HTTP on
+// the local machine. Each exchange runs on its own virtual thread (see
+// VirtualThreads), the reminders of a user are shared by all of the sessions
+// of the user through the ReminderManagerRegistry.
+//
+// Requests are form encoded (key=value&key=value), responses are plain text.
+// After /login, the token should be sent in the X-Session-Token header.
+// Logins are hashed by the LoginService, when too many are waiting the server
+// answers 503. A session expires after 30 minutes without a request.
+//
+// POST /register           email, password
+// POST /login              email, password -> token
+// POST /logout
+// GET  /reminders          all, or one filter : priority=HIGH, due=2025-06-01, pastDue=true,
+//                          search=meet* john (limit, 100 by default)
+//                          pageSize=20 lists one page, HIGH, MEDIUM, LOW then by due date,
+//                          page=token gives the next one (except for search)
+// POST /reminders/add      days (0-31), priority, message, repeat=weekly (daily, monthly,
+//                          every 3 days) and until=2025-12-31 are optional
+// POST /reminders/delete   number or id
+// POST /reminders/mark     number or id, occurrence=2025-06-08 with an id marks one
+//                          occurrence of a repeating reminder ahead of time
+// POST /reminders/clear
+// POST /reminders/priority number or id, priority
+// POST /reminders/due-date number or id, days (0-31)
+// POST /reminders/message  number or id, message
+// POST /reminders/save
+//
+// The modifications are saved in the background by a ReminderWriteBehind, the
+// journals of many users are committed together at most 200 ms after a
+// modification (-Dreminder.writeBehind.latency=200, in milliseconds) or when
+// 256 users are waiting (-Dreminder.writeBehind.batch=256). /reminders/save
+// waits for the next group instead of forcing the journal alone.
+//
+// The number is the position in the last listing, it shifts when another session
+// modifies the reminders. The id (listed after every reminder) never changes.
+//
+// The metrics of every route and every operation are registered in JMX by main(),
+// with -Dreminder.metrics.interval=60 they are also printed every 60 seconds.
+public class ReminderServer {
+	public static final int DEFAULT_PORT = 8080;
+	public static final int DEFAULT_SEARCH_LIMIT = 100;
+	public static final String SESSION_HEADER = "X-Session-Token";
+
+	private static final class Session {
+		private final String email;
+		private final ConcurrentReminderManager view;
+
+		// The view, metered when the server has metrics
+		private final ReminderService reminders;
+
+		private Session(String email, ConcurrentReminderManager view, ReminderService reminders) {
+			this.email = email;
+			this.view = view;
+			this.reminders = reminders;
+		}
+	}
+
+	// Thrown by the handlers, it becomes the status and message of the response
+	private static final class RequestException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		private final int status;
+
+		private RequestException(int status, String msg) {
+			super(msg);
+			this.status = status;
+		}
+	}
+
+	@FunctionalInterface
+	private interface Handler {
+		String handle(HttpExchange exchange, Map<String, String> form) throws Exception;
+	}
+
+	private final AuthenticationSystem auth;
+	private final LoginService loginService;
+	private final ReminderManagerRegistry registry;
+
+	// Null without metrics
+	private final ReminderMetrics metrics;
+
+	// The reminders of every session, by the token of the LoginService
+	private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public ReminderServer(AuthenticationSystem auth, ReminderManagerRegistry registry) {
+		this(auth, new LoginService(auth), registry);
+	}
+
+	public ReminderServer(AuthenticationSystem auth, LoginService loginService, ReminderManagerRegistry registry) {
+		this(auth, loginService, registry, null);
+	}
+
+	public ReminderServer(AuthenticationSystem auth, LoginService loginService, ReminderManagerRegistry registry,
+			ReminderMetrics metrics) {
+		this.auth = auth;
+		this.loginService = loginService;
+		this.registry = registry;
+		this.metrics = metrics;
+
+		// The reminders of an expired session are released
+		loginService.getSessions().setExpirationListener((token, email) -> endSession(token));
+	}
+
+	public static void main(String[] args) {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+
+		try {
+			ReminderMetrics metrics = new ReminderMetrics();
+			metrics.registerMBeans();
+
+			ReminderWriteBehind writeBehind = new ReminderWriteBehind(
+					Duration.ofMillis(Long.getLong("reminder.writeBehind.latency",
+							ReminderWriteBehind.DEFAULT_MAX_LATENCY.toMillis())),
+					Integer.getInteger("reminder.writeBehind.batch", ReminderWriteBehind.DEFAULT_MAX_BATCH));
+			OperationMetrics groups = metrics.operation("writeBehind.group");
+			writeBehind.setGroupListener((managers, bytes, startNanos) -> {
+				groups.record(startNanos);
+				groups.addBytesWritten(bytes);
+			});
+
+			ReminderManagerRegistry registry = new ReminderManagerRegistry(ReminderManagerRegistry.DEFAULT_MAX_MANAGERS,
+					Long.MAX_VALUE, MeteredReminderService.loader(metrics), writeBehind);
+			AuthenticationSystem auth = MeteredAuthenticationSystem.open(AuthenticationSystem.DEFAULT_USERS_PATH,
+					metrics);
+			ReminderServer reminderServer = new ReminderServer(auth, new LoginService(auth), registry, metrics);
+			reminderServer.start(port);
+
+			long reportSeconds = Long.getLong("reminder.metrics.interval", 0);
+			MetricsReporter reporter = reportSeconds > 0
+					? new MetricsReporter(metrics, Duration.ofSeconds(reportSeconds), System.out)
+					: null;
+
+			// Unsaved modifications are saved when the server is stopped
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				if (reporter != null) {
+					reporter.close();
+				}
+				reminderServer.stop();
+				try {
+					registry.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				writeBehind.close();
+			}));
+
+			System.out.printf("Reminder server is listening on localhost:%d (virtual threads : %b)%n", port,
+					VirtualThreads.isAvailable());
+		} catch (IOException e) {
+			System.out.println("An error occurred: " + e.getMessage());
+		}
+	}
+
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+		executor = VirtualThreads.newPerTaskExecutor("reminder-server");
+		server.setExecutor(executor);
+
+		route("/register", "POST", this::register);
+		route("/login", "POST", this::login);
+		route("/logout", "POST", this::logout);
+		route("/reminders", "GET", this::listReminders);
+		route("/reminders/add", "POST", this::addReminder);
+		route("/reminders/delete", "POST", this::deleteReminder);
+		route("/reminders/mark", "POST", this::markReminder);
+		route("/reminders/clear", "POST", this::clearReminders);
+		route("/reminders/priority", "POST", this::changePriority);
+		route("/reminders/due-date", "POST", this::changeDueDate);
+		route("/reminders/message", "POST", this::changeMessage);
+		route("/reminders/save", "POST", this::saveReminders);
+
+		server.start();
+	}
+
+	// Ends every session, the registry keeps the unsaved modifications
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdown();
+			server = null;
+		}
+
+		for (String token : sessions.keySet()) {
+			loginService.logout(token);
+			endSession(token);
+		}
+	}
+
+	public int getSessionCount() {
+		return sessions.size();
+	}
+
+	private String register(HttpExchange exchange, Map<String, String> form) throws RequestException {
+		String email = required(form, "email");
+		String password = required(form, "password");
+
+		if (!AuthenticationSystem.isValidEmail(email)) {
+			throw new RequestException(400, "Email can't have line breaks, \", \" or spaces around it!");
+		}
+		if (!auth.register(email, password)) {
+			throw new RequestException(409, "Email is already existed! Can't register!");
+		}
+
+		return "Account has been created!";
+	}
+
+	private String login(HttpExchange exchange, Map<String, String> form) throws RequestException, IOException {
+		String email = required(form, "email");
+		String password = required(form, "password");
+
+		// The exchange has its own thread, it can wait for the hashing
+		String token;
+		try {
+			token = loginService.login(email, password).get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RejectedExecutionException) {
+				throw new RequestException(503, "Too many logins, please try again later!");
+			}
+			throw new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RequestException(503, "Login has been interrupted!");
+		}
+
+		if (token == null) {
+			throw new RequestException(401, "Login failed! Check your email or password!.");
+		}
+
+		try {
+			ConcurrentReminderManager view = registry.acquireConcurrent(email);
+			sessions.put(token, new Session(email, view,
+					metrics == null ? view : new MeteredReminderService(view, metrics)));
+		} catch (IOException e) {
+			loginService.logout(token);
+			throw e;
+		}
+		return token;
+	}
+
+	private String logout(HttpExchange exchange, Map<String, String> form) throws RequestException {
+		String token = token(exchange);
+		loginService.logout(token);
+
+		Session session = endSession(token);
+		if (session == null) {
+			throw new RequestException(401, "Please login first!");
+		}
+
+		return "See you around, " + session.email + "!";
+	}
+
+	// Only the first call for a token releases the reminders
+	private Session endSession(String token) {
+		Session session = sessions.remove(token);
+		if (session != null) {
+			registry.release(session.view.getManager());
+		}
+		return session;
+	}
+
+	private String listReminders(HttpExchange exchange, Map<String, String> form)
+			throws RequestException, PriorityException {
+		ReminderService reminders = session(exchange).reminders;
+
+		if (form.containsKey("pageSize") && !form.containsKey("search")) {
+			return listPage(reminders, form);
+		}
+
+		if (form.containsKey("priority")) {
+			return numbered(reminders.getReminderByPriority(priority(form)));
+		} else if (form.containsKey("due")) {
+			return numbered(reminders.getReminderByDueDate(date(form, "due")));
+		} else if (form.containsKey("search")) {
+			return numbered(reminders.searchReminders(required(form, "search"), searchLimit(form)));
+		} else if (Boolean.parseBoolean(form.get("pastDue"))) {
+			return numbered(reminders.getReminderByPastDue());
+		}
+
+		return numbered(reminders.getReminders());
+	}
+
+	// Only the reminders of the page are read and copied
+	private String listPage(ReminderService reminders, Map<String, String> form)
+			throws RequestException, PriorityException {
+		int pageSize = positive(form, "pageSize");
+		String pageToken = form.get("page");
+
+		ReminderPage page;
+		try {
+			if (form.containsKey("priority")) {
+				page = reminders.getReminderByPriorityPage(priority(form), pageToken, pageSize);
+			} else if (form.containsKey("due")) {
+				page = reminders.getReminderByDueDatePage(date(form, "due"), pageToken, pageSize);
+			} else if (Boolean.parseBoolean(form.get("pastDue"))) {
+				page = reminders.getReminderByPastDuePage(pageToken, pageSize);
+			} else {
+				page = reminders.getRemindersPage(pageToken, pageSize);
+			}
+		} catch (IllegalArgumentException e) {
+			throw new RequestException(400, "Invalid page token!");
+		}
+
+		String listed = numbered(page.getReminders());
+		return page.hasNextPage() ? listed + "\nNext page = " + page.getNextPageToken() : listed;
+	}
+
+	private String addReminder(HttpExchange exchange, Map<String, String> form) throws Exception {
+		Reminder reminder = new Reminder(dueDate(form), priority(form), message(form));
+		if (form.containsKey("repeat")) {
+			reminder.setRecurrence(recurrence(form, reminder.getDate()));
+		}
+		return session(exchange).reminders.addReminder(reminder) + "\nThis reminder is successfully added!";
+	}
+
+	private String deleteReminder(HttpExchange exchange, Map<String, String> form) throws RequestException {
+		ReminderService reminders = session(exchange).reminders;
+		Reminder deletedReminder = form.containsKey("id") ? reminders.deleteReminderById(reminderId(form))
+				: reminders.deleteReminder(reminderIndex(form));
+		return deletedReminder + "\nThis reminder is deleted successfuly!";
+	}
+
+	private String markReminder(HttpExchange exchange, Map<String, String> form) throws RequestException {
+		ReminderService reminders = session(exchange).reminders;
+		if (form.containsKey("occurrence")) {
+			try {
+				return reminders.markOccurrenceById(reminderId(form), date(form, "occurrence"))
+						+ "\nThis occurrence is marked successfuly!";
+			} catch (IllegalArgumentException e) {
+				throw new RequestException(400, "An error occurred: " + e.getMessage());
+			}
+		}
+
+		Reminder markedReminder = form.containsKey("id") ? reminders.markReminderById(reminderId(form))
+				: reminders.markReminder(reminderIndex(form));
+		return markedReminder + "\nThis reminder is marked successfuly!";
+	}
+
+	private String changePriority(HttpExchange exchange, Map<String, String> form)
+			throws RequestException, PriorityException {
+		ReminderService reminders = session(exchange).reminders;
+		Priority priority = priority(form);
+		Reminder changedReminder = form.containsKey("id")
+				? reminders.changeReminderPriorityById(reminderId(form), priority)
+				: reminders.changeReminderPriority(reminderIndex(form), priority);
+		return changedReminder.toString();
+	}
+
+	private String changeDueDate(HttpExchange exchange, Map<String, String> form)
+			throws RequestException, DueDateException {
+		ReminderService reminders = session(exchange).reminders;
+		LocalDate dueDate = dueDate(form);
+		Reminder changedReminder = form.containsKey("id")
+				? reminders.changeReminderDueDateById(reminderId(form), dueDate)
+				: reminders.changeReminderDueDate(reminderIndex(form), dueDate);
+		return changedReminder.toString();
+	}
+
+	private String changeMessage(HttpExchange exchange, Map<String, String> form)
+			throws RequestException, MessageException {
+		ReminderService reminders = session(exchange).reminders;
+		String message = message(form);
+		Reminder changedReminder = form.containsKey("id")
+				? reminders.changeReminderMessageById(reminderId(form), message)
+				: reminders.changeReminderMessage(reminderIndex(form), message);
+		return changedReminder.toString();
+	}
+
+	// Joins the next group of the write-behind, if the registry has one
+	private String saveReminders(HttpExchange exchange, Map<String, String> form)
+			throws RequestException, IOException {
+		Session session = session(exchange);
+		ReminderWriteBehind writeBehind = registry.getWriteBehind();
+		if (writeBehind == null) {
+			return session.reminders.saveReminders();
+		}
+
+		try {
+			writeBehind.flush(session.view).get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RequestException(503, "Save has been interrupted!");
+		}
+		return "Saved Successfully!";
+	}
+
+	private String clearReminders(HttpExchange exchange, Map<String, String> form) throws RequestException {
+		List<Reminder> clearedReminders = session(exchange).reminders.clearReminders();
+		return "Reminders that has been cleared.\n" + numbered(clearedReminders);
+	}
+
+	private void route(String path, String method, Handler handler) {
+		OperationMetrics requests = metrics == null ? null : metrics.operation("http " + path);
+
+		server.createContext(path, exchange -> {
+			long start = System.nanoTime();
+			int status = 200;
+			String body;
+
+			try {
+				if (!exchange.getRequestURI().getPath().equals(path)) {
+					throw new RequestException(404, "Not found!");
+				}
+				if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+					throw new RequestException(405, method + " only!");
+				}
+
+				body = handler.handle(exchange, form(exchange));
+			} catch (RequestException e) {
+				status = e.status;
+				body = e.getMessage();
+			} catch (DueDateException | PriorityException | MessageException | IndexOutOfBoundsException
+					| NoSuchElementException e) {
+				status = 400;
+				body = "An error occurred: " + e.getMessage();
+			} catch (Exception e) {
+				status = 500;
+				body = "Something went wrong!";
+			}
+
+			byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+			exchange.sendResponseHeaders(status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+
+			// The wrong requests of the users (4xx) are not errors of the server
+			if (requests != null) {
+				if (status >= 500) {
+					requests.recordError(start);
+				} else {
+					requests.record(start);
+				}
+				requests.addBytesWritten(bytes.length);
+			}
+		});
+	}
+
+	// Checking the token extends the session
+	private Session session(HttpExchange exchange) throws RequestException {
+		String token = token(exchange);
+		Session session = loginService.getEmail(token) != null ? sessions.get(token) : null;
+		if (session == null) {
+			throw new RequestException(401, "Please login first!");
+		}
+		return session;
+	}
+
+	private static String token(HttpExchange exchange) {
+		String token = exchange.getRequestHeaders().getFirst(SESSION_HEADER);
+		return token == null ? "" : token;
+	}
+
+	// Query string and body together
+	private static Map<String, String> form(HttpExchange exchange) throws IOException {
+		Map<String, String> form = new HashMap<>();
+		parseForm(exchange.getRequestURI().getRawQuery(), form);
+
+		try (InputStream in = exchange.getRequestBody()) {
+			parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), form);
+		}
+		return form;
+	}
+
+	private static void parseForm(String encoded, Map<String, String> form) {
+		if (encoded == null || encoded.isEmpty()) {
+			return;
+		}
+
+		for (String pair : encoded.split("&")) {
+			int equals = pair.indexOf('=');
+			if (equals > 0) {
+				form.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	private static String required(Map<String, String> form, String key) throws RequestException {
+		String value = form.get(key);
+		if (value == null || value.isEmpty()) {
+			throw new RequestException(400, "Missing " + key + "!");
+		}
+		return value;
+	}
+
+	// Reminder numbers starts at 1, like the console
+	private static int reminderIndex(Map<String, String> form) throws RequestException {
+		try {
+			return Integer.parseInt(required(form, "number")) - 1;
+		} catch (NumberFormatException e) {
+			throw new RequestException(400, "Reminder number doesn't exist!");
+		}
+	}
+
+	private static long reminderId(Map<String, String> form) throws RequestException {
+		try {
+			return Long.parseLong(required(form, "id"));
+		} catch (NumberFormatException e) {
+			throw new RequestException(400, "Reminder id doesn't exist!");
+		}
+	}
+
+	private static int searchLimit(Map<String, String> form) throws RequestException {
+		return form.containsKey("limit") ? positive(form, "limit") : DEFAULT_SEARCH_LIMIT;
+	}
+
+	private static int positive(Map<String, String> form, String key) throws RequestException {
+		int value;
+		try {
+			value = Integer.parseInt(required(form, key));
+		} catch (NumberFormatException e) {
+			value = 0;
+		}
+
+		if (value < 1) {
+			throw new RequestException(400, "The " + key + " should be a number of at least 1!");
+		}
+		return value;
+	}
+
+	private static Priority priority(Map<String, String> form) throws RequestException, PriorityException {
+		try {
+			return Priority.valueOf(required(form, "priority").toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new PriorityException("Priority option is not found!");
+		}
+	}
+
+	// Same rule as the console, today plus [0-31] days
+	private static LocalDate dueDate(Map<String, String> form) throws RequestException, DueDateException {
+		int daysToAdd;
+		try {
+			daysToAdd = Integer.parseInt(required(form, "days"));
+		} catch (NumberFormatException e) {
+			throw new DueDateException("Only [0-31] input is allowed! For adding days");
+		}
+
+		if (daysToAdd < 0 || daysToAdd > 31) {
+			throw new DueDateException("Only [0-31] input is allowed! For adding days");
+		}
+		return ReminderManager.nowPlusDays(daysToAdd);
+	}
+
+	// Starts on the due date, ends on the until date if there is one
+	private static Recurrence recurrence(Map<String, String> form, LocalDate dueDate) throws RequestException {
+		Recurrence recurrence;
+		try {
+			recurrence = Recurrence.parseRule(required(form, "repeat"), dueDate);
+		} catch (IllegalArgumentException e) {
+			throw new RequestException(400, "Repeat should be daily, weekly, monthly or every 3 days (weeks, months)!");
+		}
+
+		if (!form.containsKey("until")) {
+			return recurrence;
+		}
+		try {
+			return recurrence.until(date(form, "until"));
+		} catch (IllegalArgumentException e) {
+			throw new RequestException(400, "A repeating reminder can't end before its due date!");
+		}
+	}
+
+	private static LocalDate date(Map<String, String> form, String key) throws RequestException {
+		try {
+			return LocalDate.parse(required(form, key));
+		} catch (DateTimeParseException e) {
+			throw new RequestException(400, "Date should be yyyy-MM-dd!");
+		}
+	}
+
+	private static String message(Map<String, String> form) throws MessageException {
+		String message = form.get("message");
+		if (message == null || message.isEmpty()) {
+			throw new MessageException("Message is Empty!");
+		}
+
+		// A reminder is one line, on the console and in the files
+		for (int i = 0; i < message.length(); i++) {
+			if (Character.isISOControl(message.charAt(i))) {
+				throw new MessageException("Message can't have line breaks or control characters!");
+			}
+		}
+		return message;
+	}
+
+	private static String numbered(List<Reminder> reminders) {
+		if (reminders.isEmpty()) {
+			return "No reminders has been found!";
+		}
+
+		StringBuilder text = new StringBuilder(reminders.size() * 64);
+		for (int i = 0; i < reminders.size(); i++) {
+			Reminder reminder = reminders.get(i);
+			text.append(i + 1).append(". ").append(reminder).append(", ID = ").append(reminder.getId()).append('\n');
+		}
+		text.setLength(text.length() - 1);
+		return text.toString();
+	}
+}
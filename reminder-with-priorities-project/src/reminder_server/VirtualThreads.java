@@ -0,0 +1,34 @@
+package reminder_server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// One virtual thread per task when the JDK has them (Java 21+), otherwise a
+// cached pool of platform threads. Found by reflection, so the project still
+// compiles with older JDKs.
+final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	static ExecutorService newPerTaskExecutor(String name) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, name);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	static boolean isAvailable() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+}
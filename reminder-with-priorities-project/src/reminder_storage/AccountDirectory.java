@@ -0,0 +1,185 @@
+package reminder_storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Where the files of every user are, under the accounts directory.
+// The sharded layout spreads the users over 256 x 256 directories by a hash of
+// their email, a directory has a few users even with millions of them, so
+// opening the files of one user (and listing its journal segments) costs the
+// same with any number of users :
+//
+// individual-accounts/LAYOUT                        "sharded", see AccountLayoutMigration
+// individual-accounts/3f/a2/john@mail.com.txt       (.rwb, .journal, see ReminderJournal)
+// individual-accounts/0c/91/%4aohn@mail.com.txt     John@mail.com
+//
+// The file name is the email with every character that isn't safe in a file
+// name escaped as %XX (the UTF-8 bytes), the upper case letters too because
+// some file systems ignore the case. A name that would be too long is the
+// hash instead, %%<hex>, escaping never gives two %.
+//
+// A directory that has users but no LAYOUT file is the old flat layout
+// (individual-accounts/email.txt), it is still used the same way until it is
+// migrated. A new directory is sharded.
+public final class AccountDirectory {
+	public static final String DEFAULT_ROOT = "src/resources/individual-accounts";
+	public static final String LAYOUT_FILE = "LAYOUT";
+
+	public enum Layout {
+		FLAT, SHARDED
+	}
+
+	private static final String SHARDED_MARKER = "sharded";
+	private static final int MAX_NAME_LENGTH = 120;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	// Device names on Windows, even with an extension
+	private static final Set<String> RESERVED_NAMES = Set.of("con", "prn", "aux", "nul", "com1", "com2", "com3",
+			"com4", "com5", "com6", "com7", "com8", "com9", "lpt1", "lpt2", "lpt3", "lpt4", "lpt5", "lpt6", "lpt7",
+			"lpt8", "lpt9");
+
+	// The layout is read once per directory
+	private static final Map<Path, AccountDirectory> DIRECTORIES = new ConcurrentHashMap<>();
+
+	private final Path root;
+	private final Layout layout;
+
+	private AccountDirectory(Path root, Layout layout) {
+		this.root = root;
+		this.layout = layout;
+	}
+
+	public static AccountDirectory of(String root) throws IOException {
+		Path path = Paths.get(root).toAbsolutePath().normalize();
+		AccountDirectory directory = DIRECTORIES.get(path);
+		if (directory == null) {
+			directory = new AccountDirectory(path, readLayout(path));
+			AccountDirectory raced = DIRECTORIES.putIfAbsent(path, directory);
+			if (raced != null) {
+				directory = raced;
+			}
+		}
+		return directory;
+	}
+
+	// The layout changed on the disk (ex. migrated), the next of() reads it again
+	static void forget(Path root) {
+		DIRECTORIES.remove(root.toAbsolutePath().normalize());
+	}
+
+	public Path getRoot() {
+		return root;
+	}
+
+	public Layout getLayout() {
+		return layout;
+	}
+
+	// The csv snapshot of the user, the journal finds the other files next to it.
+	// The shard directory might not exist yet, see createAccount().
+	public Path snapshotPath(String email) {
+		return snapshotPath(email, SnapshotFormat.CSV);
+	}
+
+	public Path snapshotPath(String email, SnapshotFormat format) {
+		return layout == Layout.FLAT ? root.resolve(email + format.getExtension())
+				: shardedPath(root, email, format.getExtension());
+	}
+
+	// Creates the empty csv of a new user, if the user doesn't have a snapshot
+	public Path createAccount(String email) throws IOException {
+		Path snapshot = snapshotPath(email);
+		Files.createDirectories(snapshot.getParent());
+
+		if (!Files.exists(snapshot) && !Files.exists(snapshotPath(email, SnapshotFormat.BINARY))) {
+			Files.createFile(snapshot);
+		}
+		return snapshot;
+	}
+
+	// The sharded path of a file of the user, the suffix is the extension
+	// (.txt, .journal.12, ...)
+	static Path shardedPath(Path root, String email, String suffix) {
+		byte[] hash = sha256(email);
+		return root.resolve(hex(hash, 0, 1)).resolve(hex(hash, 1, 2)).resolve(fileName(email, hash) + suffix);
+	}
+
+	static boolean isSharded(Path root) {
+		try {
+			return SHARDED_MARKER.equals(Files.readString(root.resolve(LAYOUT_FILE), StandardCharsets.UTF_8).trim());
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	static void markSharded(Path root) throws IOException {
+		Files.writeString(root.resolve(LAYOUT_FILE), SHARDED_MARKER + "\n", StandardCharsets.UTF_8);
+	}
+
+	private static Layout readLayout(Path root) throws IOException {
+		if (isSharded(root)) {
+			return Layout.SHARDED;
+		}
+
+		if (Files.isDirectory(root)) {
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(root)) {
+				if (entries.iterator().hasNext()) {
+					return Layout.FLAT;
+				}
+			}
+		}
+
+		// Nobody is there yet, it starts sharded
+		Files.createDirectories(root);
+		markSharded(root);
+		return Layout.SHARDED;
+	}
+
+	private static String fileName(String email, byte[] hash) {
+		StringBuilder name = new StringBuilder(email.length() + 8);
+		byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < bytes.length; i++) {
+			int b = bytes[i] & 0xFF;
+			boolean safe = (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '@' || b == '_' || b == '+'
+					|| b == '-' || (b == '.' && i > 0);
+			if (safe) {
+				name.append((char) b);
+			} else {
+				name.append('%').append(HEX[b >> 4]).append(HEX[b & 0xF]);
+			}
+		}
+
+		int dot = name.indexOf(".");
+		if (RESERVED_NAMES.contains(dot < 0 ? name.toString() : name.substring(0, dot))) {
+			name.replace(0, 1, String.format("%%%02x", (int) name.charAt(0)));
+		}
+
+		return name.length() <= MAX_NAME_LENGTH ? name.toString() : "%%" + hex(hash, 0, hash.length);
+	}
+
+	private static byte[] sha256(String email) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(email.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform has SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String hex(byte[] bytes, int from, int to) {
+		char[] chars = new char[(to - from) * 2];
+		for (int i = from; i < to; i++) {
+			chars[(i - from) * 2] = HEX[(bytes[i] >> 4) & 0xF];
+			chars[(i - from) * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,95 @@
+package reminder_storage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+// Command line tool for moving the accounts directory from the flat layout
+// (email.txt next to every other user) to the sharded one, see AccountDirectory.
+// The server and the console should be stopped while it runs.
+//
+// java reminder_storage.AccountLayoutMigration src/resources/individual-accounts
+//
+// Every file of a user (snapshots, journal, rotated segments) is moved to its
+// shard, one rename each. The LAYOUT file is written last : when it is
+// interrupted the directory is still flat for the users that weren't moved,
+// running it again moves the rest.
+public class AccountLayoutMigration {
+	// Longest first, email.txt.tmp is a file of email, not of email.txt
+	private static final String[] SUFFIXES = { ".txt.tmp", ".rwb.tmp", ".txt", ".rwb", ".journal" };
+	private static final String SEGMENT_SUFFIX = ".journal.";
+
+	public static void main(String[] args) {
+		String root = args.length == 1 ? args[0] : AccountDirectory.DEFAULT_ROOT;
+		if (args.length > 1) {
+			System.out.println("Usage : AccountLayoutMigration [accounts directory]");
+			return;
+		}
+
+		try {
+			int moved = migrate(Paths.get(root));
+			System.out.printf("Moved %d files, %s is sharded%n", moved, root);
+		} catch (IOException e) {
+			System.out.println("An error occurred: " + e.getMessage());
+		}
+	}
+
+	// Returns the number of files that were moved
+	public static int migrate(Path root) throws IOException {
+		if (AccountDirectory.isSharded(root)) {
+			return 0;
+		}
+		if (!Files.isDirectory(root)) {
+			throw new IOException("No accounts directory at " + root);
+		}
+
+		int moved = 0;
+		// Moving files while listing the directory may skip some, so until a
+		// listing has nothing left to move
+		int movedByListing;
+		do {
+			movedByListing = 0;
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(root, Files::isRegularFile)) {
+				for (Path file : files) {
+					String fileName = file.getFileName().toString();
+					String suffix = suffixOf(fileName);
+					if (suffix == null) {
+						continue;
+					}
+
+					String email = fileName.substring(0, fileName.length() - suffix.length());
+					Path target = AccountDirectory.shardedPath(root, email, suffix);
+					Files.createDirectories(target.getParent());
+					Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+					movedByListing++;
+				}
+			}
+			moved += movedByListing;
+		} while (movedByListing > 0);
+
+		AccountDirectory.markSharded(root);
+		AccountDirectory.forget(root);
+		return moved;
+	}
+
+	// Null for the files that aren't of a user, they are left there
+	private static String suffixOf(String fileName) {
+		for (String suffix : SUFFIXES) {
+			if (fileName.endsWith(suffix) && fileName.length() > suffix.length()) {
+				return suffix;
+			}
+		}
+
+		int segment = fileName.lastIndexOf(SEGMENT_SUFFIX);
+		if (segment > 0) {
+			String sequence = fileName.substring(segment + SEGMENT_SUFFIX.length());
+			if (!sequence.isEmpty() && sequence.chars().allMatch(c -> c >= '0' && c <= '9')) {
+				return fileName.substring(segment);
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,61 @@
+package reminder_storage;
+
+import java.time.LocalDate;
+
+import reminder_app.Priority;
+import reminder_app.Reminder;
+
+// One committed modification of the reminders.
+// The target is the reminder as it was before the modification, for ADD it is
+// the added reminder itself. The target has the id of the reminder, except in
+// the records written before the ids (0).
+public class JournalRecord {
+	// MARK_OCCURRENCE completes one occurrence of a recurring reminder, the
+	// occurrence is the new due date of the record
+	public enum Operation {
+		ADD, DELETE, MARK, PRIORITY, DUE_DATE, MESSAGE, MARK_OCCURRENCE
+	}
+
+	private final long sequence;
+	private final Operation operation;
+	private final Reminder target;
+
+	// Only one of these is used, depending on the operation
+	private final Priority newPriority;
+	private final LocalDate newDueDate;
+	private final String newMessage;
+
+	JournalRecord(long sequence, Operation operation, Reminder target, Priority newPriority, LocalDate newDueDate,
+			String newMessage) {
+		this.sequence = sequence;
+		this.operation = operation;
+		this.target = target;
+		this.newPriority = newPriority;
+		this.newDueDate = newDueDate;
+		this.newMessage = newMessage;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	public Reminder getTarget() {
+		return target;
+	}
+
+	public Priority getNewPriority() {
+		return newPriority;
+	}
+
+	public LocalDate getNewDueDate() {
+		return newDueDate;
+	}
+
+	public String getNewMessage() {
+		return newMessage;
+	}
+}
@@ -0,0 +1,60 @@
+package reminder_storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+
+import reminder_app.Recurrence;
+
+// Binary form of a Recurrence, in the journal records and in the binary snapshots.
+//
+// byte   unit ordinal
+// int    interval
+// int    start as epoch day
+// int    until as epoch day, NO_END when it never ends
+// int    count of the occurrences completed ahead
+// int    occurrences completed ahead as epoch days [count]
+final class RecurrenceFormat {
+	private static final int NO_END = Integer.MIN_VALUE;
+	private static final int MAX_COMPLETED_AHEAD = 1 << 20;
+
+	private RecurrenceFormat() {
+	}
+
+	static void write(DataOutput out, Recurrence recurrence) throws IOException {
+		out.writeByte(recurrence.getUnit().ordinal());
+		out.writeInt(recurrence.getInterval());
+		out.writeInt(Math.toIntExact(recurrence.getStart().toEpochDay()));
+		out.writeInt(recurrence.getUntil() == null ? NO_END : Math.toIntExact(recurrence.getUntil().toEpochDay()));
+
+		int[] completedAhead = recurrence.getCompletedAhead();
+		out.writeInt(completedAhead.length);
+		for (int day : completedAhead) {
+			out.writeInt(day);
+		}
+	}
+
+	static Recurrence read(DataInput in) throws IOException {
+		int unit = in.readUnsignedByte();
+		int interval = in.readInt();
+		LocalDate start = LocalDate.ofEpochDay(in.readInt());
+		int until = in.readInt();
+
+		int count = in.readInt();
+		if (unit >= Recurrence.Unit.values().length || count < 0 || count > MAX_COMPLETED_AHEAD) {
+			throw new IOException("Invalid recurrence");
+		}
+		int[] completedAhead = new int[count];
+		for (int i = 0; i < count; i++) {
+			completedAhead[i] = in.readInt();
+		}
+
+		try {
+			return Recurrence.of(Recurrence.Unit.values()[unit], interval, start,
+					until == NO_END ? null : LocalDate.ofEpochDay(until)).withCompletedAhead(completedAhead);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package reminder_storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import reminder_app.Priority;
+import reminder_app.Recurrence;
+import reminder_app.Reminder;
+
+// Columnar binary file of the reminders of one user, big endian.
+//
+// int    magic "RWPB"
+// short  version
+// short  reserved
+// long   journal sequence (see ReminderJournal)
+// long   next reminder id                (version 2)
+// int    count
+// long   reminder ids                  [count] (version 2)
+// int    due dates as epoch days       [count]
+// byte   priority ordinal              [count]
+// long   completion bitset             [(count + 63) / 64]
+// int    message length in UTF-8 bytes [count]
+// int    recurrences length in bytes       (version 3)
+// int    recurring reminders               (version 3)
+//        int index of the reminder, recurrence (see RecurrenceFormat) [recurring]
+// byte   messages, one after the other
+// Only the recurring reminders are in the recurrences, by increasing index.
+public class ReminderBinaryFormat {
+	public static final int MAGIC = 0x52575042;
+	public static final short VERSION = 3;
+
+	// Version 1 doesn't have the ids, version 2 doesn't have the recurrences,
+	// they are still readable
+	private static final short VERSION_WITHOUT_IDS = 1;
+	private static final short VERSION_WITHOUT_RECURRENCES = 2;
+
+	// Up to the journal sequence, the same in every version
+	private static final int HEADER_BYTES = 4 + 2 + 2 + 8;
+
+	private ReminderBinaryFormat() {
+	}
+
+	// Position of the columns in the file, after checking the header
+	private static final class Columns {
+		private final long journalSequence;
+		private final long nextReminderId;
+		private final int count;
+		private final boolean hasIds;
+		private final boolean hasRecurrences;
+		private final int ids;
+		private final int dueDates;
+		private final int priorities;
+		private final int completion;
+		private final int lengths;
+		private final int messages;
+
+		private Columns(MappedByteBuffer buffer, Path file) throws IOException {
+			journalSequence = readHeader(buffer, file);
+			short version = buffer.getShort(4);
+			hasIds = version != VERSION_WITHOUT_IDS;
+			hasRecurrences = version > VERSION_WITHOUT_RECURRENCES;
+			if (hasIds && buffer.remaining() < 8 + 4) {
+				throw new IOException("Reminder binary file is truncated: " + file);
+			}
+			nextReminderId = hasIds ? buffer.getLong() : 0;
+			count = buffer.getInt();
+
+			long columnBytes = (long) count * ((hasIds ? 8 : 0) + 4 + 1 + 4) + bitsetWords(count) * 8L
+					+ (hasRecurrences ? 4 : 0);
+			if (count < 0 || columnBytes > buffer.remaining()) {
+				throw new IOException("Reminder binary file is truncated: " + file);
+			}
+
+			ids = buffer.position();
+			dueDates = ids + (hasIds ? count * 8 : 0);
+			priorities = dueDates + count * 4;
+			completion = priorities + count;
+			lengths = completion + bitsetWords(count) * 8;
+			messages = lengths + count * 4;
+		}
+	}
+
+	public static SnapshotHeader read(Path file, Consumer<Reminder> reminders) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = map(channel, file);
+			Columns columns = new Columns(buffer, file);
+			long journalSequence = columns.journalSequence;
+			long nextReminderId = columns.nextReminderId;
+			int count = columns.count;
+			boolean hasIds = columns.hasIds;
+			boolean hasRecurrences = columns.hasRecurrences;
+			int ids = columns.ids;
+			int dueDates = columns.dueDates;
+			int priorities = columns.priorities;
+			int completion = columns.completion;
+			int lengths = columns.lengths;
+			int messages = columns.messages;
+
+			int[] recurringIndexes = new int[0];
+			Recurrence[] recurrences = new Recurrence[0];
+			if (hasRecurrences) {
+				int recurrencesLength = buffer.getInt(messages);
+				if (recurrencesLength < 0 || (long) messages + 4 + recurrencesLength > buffer.limit()) {
+					throw new IOException("Reminder binary file is truncated: " + file);
+				}
+
+				byte[] recurrenceBytes = new byte[recurrencesLength];
+				buffer.position(messages + 4);
+				buffer.get(recurrenceBytes);
+				messages += 4 + recurrencesLength;
+
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(recurrenceBytes));
+				int recurring = recurrencesLength == 0 ? 0 : in.readInt();
+				if (recurring < 0 || recurring > count) {
+					throw new IOException("Invalid recurrences in " + file);
+				}
+				recurringIndexes = new int[recurring];
+				recurrences = new Recurrence[recurring];
+				for (int i = 0; i < recurring; i++) {
+					recurringIndexes[i] = in.readInt();
+					recurrences[i] = RecurrenceFormat.read(in);
+				}
+			}
+
+			// Copying the message section once, every message is a slice of it
+			byte[] messageBytes = new byte[buffer.limit() - messages];
+			buffer.position(messages);
+			buffer.get(messageBytes);
+
+			Priority[] priorityValues = Priority.values();
+			int messageOffset = 0;
+			int nextRecurring = 0;
+			for (int i = 0; i < count; i++) {
+				long id = hasIds ? buffer.getLong(ids + i * 8) : 0;
+				LocalDate dueDate = LocalDate.ofEpochDay(buffer.getInt(dueDates + i * 4));
+
+				int ordinal = buffer.get(priorities + i);
+				if (ordinal < 0 || ordinal >= priorityValues.length) {
+					throw new IOException("Unknown priority in " + file);
+				}
+
+				long completionWord = buffer.getLong(completion + (i >>> 6) * 8);
+				boolean isCompleted = (completionWord & (1L << (i & 63))) != 0;
+
+				int messageLength = buffer.getInt(lengths + i * 4);
+				if (messageLength < 0 || messageOffset + messageLength > messageBytes.length) {
+					throw new IOException("Reminder binary file is truncated: " + file);
+				}
+				String message = new String(messageBytes, messageOffset, messageLength, StandardCharsets.UTF_8);
+				messageOffset += messageLength;
+
+				Reminder reminder = new Reminder(id, dueDate, priorityValues[ordinal], message, isCompleted);
+				if (nextRecurring < recurringIndexes.length && recurringIndexes[nextRecurring] == i) {
+					reminder.setRecurrence(recurrences[nextRecurring++]);
+				}
+				reminders.accept(reminder);
+			}
+
+			return new SnapshotHeader(journalSequence, nextReminderId);
+		}
+	}
+
+	// Only the id, due date, priority and completion columns, the messages and
+	// the recurrences are not read and no Reminder is made
+	public static SnapshotHeader scan(Path file, ReminderFieldVisitor fields) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = map(channel, file);
+			Columns columns = new Columns(buffer, file);
+
+			Priority[] priorityValues = Priority.values();
+			for (int i = 0; i < columns.count; i++) {
+				int ordinal = buffer.get(columns.priorities + i);
+				if (ordinal < 0 || ordinal >= priorityValues.length) {
+					throw new IOException("Unknown priority in " + file);
+				}
+
+				long completionWord = buffer.getLong(columns.completion + (i >>> 6) * 8);
+				fields.reminder(columns.hasIds ? buffer.getLong(columns.ids + i * 8) : 0,
+						buffer.getInt(columns.dueDates + i * 4), priorityValues[ordinal],
+						(completionWord & (1L << (i & 63))) != 0);
+			}
+
+			return new SnapshotHeader(columns.journalSequence, columns.nextReminderId);
+		}
+	}
+
+	// Only reads the journal sequence of the header
+	public static long readJournalSequence(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					throw new IOException("Not a reminder binary file: " + file);
+				}
+			}
+
+			header.flip();
+			return readHeader(header, file);
+		}
+	}
+
+	public static void write(Path file, List<Reminder> reminders, SnapshotHeader header) throws IOException {
+		int count = reminders.size();
+
+		try (FileOutputStream fileOut = new FileOutputStream(file.toFile());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024))) {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeShort(0);
+			out.writeLong(header.getJournalSequence());
+			out.writeLong(header.getNextReminderId());
+			out.writeInt(count);
+
+			for (Reminder reminder : reminders) {
+				out.writeLong(reminder.getId());
+			}
+
+			for (Reminder reminder : reminders) {
+				out.writeInt(Math.toIntExact(reminder.getDate().toEpochDay()));
+			}
+
+			for (Reminder reminder : reminders) {
+				out.writeByte(reminder.getPriority().ordinal());
+			}
+
+			long word = 0;
+			int bit = 0;
+			for (Reminder reminder : reminders) {
+				if (reminder.isCompleted()) {
+					word |= 1L << bit;
+				}
+				if (++bit == 64) {
+					out.writeLong(word);
+					word = 0;
+					bit = 0;
+				}
+			}
+			if (bit > 0) {
+				out.writeLong(word);
+			}
+
+			byte[][] messages = new byte[count][];
+			for (int i = 0; i < count; i++) {
+				messages[i] = reminders.get(i).getMessage().getBytes(StandardCharsets.UTF_8);
+				out.writeInt(messages[i].length);
+			}
+
+			// Sparse, most of the reminders doesn't repeat
+			ByteArrayOutputStream recurrenceBytes = new ByteArrayOutputStream();
+			DataOutputStream recurrenceOut = new DataOutputStream(recurrenceBytes);
+			int recurring = 0;
+			for (Reminder reminder : reminders) {
+				if (reminder.isRecurring()) {
+					recurring++;
+				}
+			}
+			if (recurring > 0) {
+				recurrenceOut.writeInt(recurring);
+				for (int i = 0; i < count; i++) {
+					if (reminders.get(i).isRecurring()) {
+						recurrenceOut.writeInt(i);
+						RecurrenceFormat.write(recurrenceOut, reminders.get(i).getRecurrence());
+					}
+				}
+			}
+			out.writeInt(recurrenceBytes.size());
+			recurrenceBytes.writeTo(out);
+
+			for (byte[] message : messages) {
+				out.write(message);
+			}
+
+			out.flush();
+			fileOut.getFD().sync();
+		}
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, Path file) throws IOException {
+		long size = channel.size();
+		if (size < HEADER_BYTES + 4) {
+			throw new IOException("Not a reminder binary file: " + file);
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+	}
+
+	private static long readHeader(ByteBuffer buffer, Path file) throws IOException {
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException("Not a reminder binary file: " + file);
+		}
+
+		short version = buffer.getShort();
+		if (version < VERSION_WITHOUT_IDS || version > VERSION) {
+			throw new IOException(String.format("Unsupported reminder binary version %d: %s", version, file));
+		}
+
+		buffer.getShort();
+		return buffer.getLong();
+	}
+
+	private static int bitsetWords(int count) {
+		return (count + 63) >>> 6;
+	}
+}
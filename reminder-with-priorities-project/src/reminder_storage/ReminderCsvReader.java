@@ -0,0 +1,455 @@
+package reminder_storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+import reminder_app.Priority;
+import reminder_app.Recurrence;
+import reminder_app.Reminder;
+
+// Streaming reader of the individual-accounts csv files.
+// Line format : 2025-05-26, HIGH, Some message, MARKED = false, ID = 12
+// The id is optional, the files before the ids doesn't have it.
+// A recurring reminder ends with its recurrence, see Recurrence :
+// 2025-05-26, LOW, Water the plants, MARKED = false, ID = 13, REPEAT = WEEKLY FROM 2025-05-05
+// Fields are parsed straight from the byte buffer, only the message becomes a String.
+// Commas and backslashes in the message can be escaped with a backslash, the
+// line breaks and the other control characters are written \n, \r, \t or a
+// backslash, u and 4 hex digits (001B for ESC).
+// Lines starting with # are comments, "# journal = 12" tells which journal
+// records are already in the file (see ReminderJournal), "# next id = 40" is
+// the id of the next added reminder.
+public class ReminderCsvReader implements Closeable {
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final byte[][] PRIORITY_NAMES = new byte[Priority.values().length][];
+	private static final byte[] MARKED_PREFIX = "MARKED = ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ID_PREFIX = "ID = ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] REPEAT_PREFIX = "REPEAT = ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] JOURNAL_HEADER = "# journal = ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] NEXT_ID_HEADER = "# next id = ".getBytes(StandardCharsets.US_ASCII);
+
+	static {
+		for (Priority priority : Priority.values()) {
+			PRIORITY_NAMES[priority.ordinal()] = priority.name().getBytes(StandardCharsets.US_ASCII);
+		}
+	}
+
+	private final InputStream in;
+	private byte[] buffer;
+	private int position;
+	private int limit;
+	private boolean endOfStream;
+	private int lineNumber;
+	private long journalSequence;
+	private long nextReminderId;
+
+	// Reused for messages that has escaped characters
+	private byte[] messageScratch = new byte[256];
+
+	// Position of the fields of the current line
+	private int lineStart;
+	private int lineEnd;
+
+	public ReminderCsvReader(InputStream in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	public ReminderCsvReader(InputStream in, int bufferSize) {
+		this.in = in;
+		this.buffer = new byte[Math.max(bufferSize, 64)];
+	}
+
+	// Returns null at the end of the file, blank lines are skipped
+	public Reminder next() throws IOException {
+		while (nextLine()) {
+			if (lineEnd == lineStart) {
+				continue;
+			}
+
+			if (buffer[lineStart] == '#') {
+				parseComment();
+			} else {
+				return parseLine(null);
+			}
+		}
+
+		return null;
+	}
+
+	// Gives the fields of every remaining reminder to the visitor, without making
+	// the Reminder, the message or the recurrence (ex. statistics).
+	// Returns the number of reminders.
+	public int scan(ReminderFieldVisitor fields) throws IOException {
+		int count = 0;
+		while (nextLine()) {
+			if (lineEnd == lineStart) {
+				continue;
+			}
+
+			if (buffer[lineStart] == '#') {
+				parseComment();
+			} else {
+				parseLine(fields);
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	// 0 if the file doesn't have a journal header
+	public long getJournalSequence() {
+		return journalSequence;
+	}
+
+	// 0 if the file doesn't have a next id header
+	public long getNextReminderId() {
+		return nextReminderId;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	// Finds the next line in the buffer, lineStart and lineEnd excludes the line
+	// separator
+	private boolean nextLine() throws IOException {
+		int scanFrom = position;
+
+		while (true) {
+			for (int i = scanFrom; i < limit; i++) {
+				if (buffer[i] == '\n') {
+					setLine(position, i);
+					position = i + 1;
+					return true;
+				}
+			}
+
+			if (endOfStream) {
+				if (position < limit) {
+					setLine(position, limit);
+					position = limit;
+					return true;
+				}
+				return false;
+			}
+
+			scanFrom = limit - position;
+			fill();
+		}
+	}
+
+	private void setLine(int start, int end) {
+		lineNumber++;
+
+		// Trimming like the old String.trim()
+		while (start < end && buffer[start] <= ' ') {
+			start++;
+		}
+		while (end > start && buffer[end - 1] <= ' ') {
+			end--;
+		}
+
+		lineStart = start;
+		lineEnd = end;
+	}
+
+	// Moves the unread bytes to the front, grows the buffer if a line is longer
+	// than the buffer itself
+	private void fill() throws IOException {
+		int remaining = limit - position;
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, remaining);
+		} else if (remaining == buffer.length) {
+			byte[] grown = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, grown, 0, remaining);
+			buffer = grown;
+		}
+
+		position = 0;
+		limit = remaining;
+
+		int read = in.read(buffer, limit, buffer.length - limit);
+		if (read < 0) {
+			endOfStream = true;
+		} else {
+			limit += read;
+		}
+	}
+
+	// With a visitor the fields are given to it and nothing is returned
+	private Reminder parseLine(ReminderFieldVisitor fields) throws IOException {
+		int cursor = lineStart;
+
+		// Due date
+		if (lineEnd - cursor < 10) {
+			throw malformed("due date is missing");
+		}
+		LocalDate dueDate = parseDate(cursor);
+		cursor = expectSeparator(cursor + 10);
+
+		// Priority
+		int priorityEnd = indexOf(',', cursor);
+		if (priorityEnd < 0) {
+			throw malformed("priority is missing");
+		}
+		Priority priority = parsePriority(cursor, priorityEnd);
+		cursor = expectSeparator(priorityEnd);
+
+		// The completion, the id and the recurrence are always the last fields, so
+		// the message is everything up to the comma before them
+		int end = lineEnd;
+		long id = 0;
+		Recurrence recurrence = null;
+		int lastComma = lastUnescapedComma(cursor, end);
+		if (lastComma >= 0 && regionStartsWith(skipSpaces(lastComma + 1), REPEAT_PREFIX)) {
+			int repeatStart = skipSpaces(lastComma + 1) + REPEAT_PREFIX.length;
+			if (fields == null) {
+				try {
+					recurrence = Recurrence
+							.parse(new String(buffer, repeatStart, end - repeatStart, StandardCharsets.US_ASCII));
+				} catch (IllegalArgumentException e) {
+					throw malformed(e.getMessage());
+				}
+			}
+			end = lastComma;
+			lastComma = lastUnescapedComma(cursor, end);
+		}
+		if (lastComma >= 0 && regionStartsWith(skipSpaces(lastComma + 1), ID_PREFIX)) {
+			int idStart = skipSpaces(lastComma + 1) + ID_PREFIX.length;
+			if (idStart == end || end - idStart > 18) {
+				throw malformed("id must be a number");
+			}
+			id = longDigits(idStart, end - idStart);
+			end = lastComma;
+			lastComma = lastUnescapedComma(cursor, end);
+		}
+
+		int completionComma = lastComma;
+		if (completionComma < 0) {
+			throw malformed("completion is missing");
+		}
+		boolean isCompleted = parseCompletion(expectSeparator(completionComma), end);
+		if (fields != null) {
+			fields.reminder(id, dueDate.toEpochDay(), priority, isCompleted);
+			return null;
+		}
+		String message = parseMessage(cursor, completionComma);
+
+		Reminder reminder = new Reminder(id, dueDate, priority, message, isCompleted);
+		reminder.setRecurrence(recurrence);
+		return reminder;
+	}
+
+	private void parseComment() throws IOException {
+		if (regionStartsWith(lineStart, JOURNAL_HEADER)) {
+			journalSequence = parseHeaderNumber(lineStart + JOURNAL_HEADER.length, "journal sequence");
+		} else if (regionStartsWith(lineStart, NEXT_ID_HEADER)) {
+			nextReminderId = parseHeaderNumber(lineStart + NEXT_ID_HEADER.length, "next id");
+		}
+	}
+
+	private long parseHeaderNumber(int start, String name) throws IOException {
+		if (start == lineEnd || lineEnd - start > 18) {
+			throw malformed(name + " must be a number");
+		}
+		return longDigits(start, lineEnd - start);
+	}
+
+	private LocalDate parseDate(int at) throws IOException {
+		if (buffer[at + 4] != '-' || buffer[at + 7] != '-') {
+			throw malformed("due date must be yyyy-MM-dd");
+		}
+
+		int year = digits(at, 4);
+		int month = digits(at + 5, 2);
+		int day = digits(at + 8, 2);
+
+		try {
+			return LocalDate.of(year, month, day);
+		} catch (DateTimeException e) {
+			throw malformed(e.getMessage());
+		}
+	}
+
+	private int digits(int at, int count) throws IOException {
+		return (int) longDigits(at, count);
+	}
+
+	private long longDigits(int at, int count) throws IOException {
+		long value = 0;
+		for (int i = at; i < at + count; i++) {
+			int digit = buffer[i] - '0';
+			if (digit < 0 || digit > 9) {
+				throw malformed("expecting a number");
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	private Priority parsePriority(int start, int end) throws IOException {
+		for (Priority priority : Priority.values()) {
+			if (regionEquals(start, end, PRIORITY_NAMES[priority.ordinal()])) {
+				return priority;
+			}
+		}
+
+		throw malformed("unknown priority");
+	}
+
+	private String parseMessage(int start, int end) {
+		// Most of the messages doesn't have an escape
+		int escape = indexOf('\\', start);
+		if (escape < 0 || escape >= end) {
+			return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+		}
+
+		if (messageScratch.length < end - start) {
+			messageScratch = new byte[end - start];
+		}
+
+		int length = 0;
+		for (int i = start; i < end; i++) {
+			if (buffer[i] != '\\' || i + 1 == end) {
+				messageScratch[length++] = buffer[i];
+				continue;
+			}
+
+			i++;
+			switch (buffer[i]) {
+			case 'n':
+				messageScratch[length++] = '\n';
+				break;
+			case 'r':
+				messageScratch[length++] = '\r';
+				break;
+			case 't':
+				messageScratch[length++] = '\t';
+				break;
+			case 'u':
+				int control = i + 4 < end ? parseControl(i + 1) : -1;
+				if (control >= 0) {
+					messageScratch[length++] = (byte) control;
+					i += 4;
+				} else {
+					messageScratch[length++] = 'u';
+				}
+				break;
+			default:
+				messageScratch[length++] = buffer[i];
+			}
+		}
+
+		return new String(messageScratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	// The control character of the 4 hex digits after a backslash and u (only
+	// ASCII is escaped that way), or -1
+	private int parseControl(int at) {
+		int value = 0;
+		for (int i = at; i < at + 4; i++) {
+			int digit = Character.digit(buffer[i], 16);
+			if (digit < 0) {
+				return -1;
+			}
+			value = value << 4 | digit;
+		}
+		return value < 0x80 ? value : -1;
+	}
+
+	// Accepts "MARKED = true" and the plain "true"
+	private boolean parseCompletion(int start, int end) throws IOException {
+		if (regionStartsWith(start, MARKED_PREFIX)) {
+			start += MARKED_PREFIX.length;
+		}
+
+		if (regionEquals(start, end, TRUE)) {
+			return true;
+		} else if (regionEquals(start, end, FALSE)) {
+			return false;
+		}
+
+		throw malformed("completion must be true or false");
+	}
+
+	// Skips the ", " after a field
+	private int expectSeparator(int at) throws IOException {
+		if (at >= lineEnd || buffer[at] != ',') {
+			throw malformed("missing field separator");
+		}
+
+		at++;
+		while (at < lineEnd && buffer[at] == ' ') {
+			at++;
+		}
+		return at;
+	}
+
+	private int indexOf(char c, int from) {
+		for (int i = from; i < lineEnd; i++) {
+			if (buffer[i] == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int skipSpaces(int at) {
+		while (at < lineEnd && buffer[at] == ' ') {
+			at++;
+		}
+		return at;
+	}
+
+	private int lastUnescapedComma(int from, int to) {
+		for (int i = to - 1; i >= from; i--) {
+			if (buffer[i] == ',' && !isEscaped(i, from)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// A character is escaped if there is an odd number of backslashes before it
+	private boolean isEscaped(int at, int from) {
+		int backslashes = 0;
+		for (int i = at - 1; i >= from && buffer[i] == '\\'; i--) {
+			backslashes++;
+		}
+		return (backslashes & 1) == 1;
+	}
+
+	private boolean regionEquals(int start, int end, byte[] expected) {
+		return end - start == expected.length && regionStartsWith(start, expected);
+	}
+
+	private boolean regionStartsWith(int start, byte[] expected) {
+		if (lineEnd - start < expected.length) {
+			return false;
+		}
+
+		for (int i = 0; i < expected.length; i++) {
+			if (buffer[start + i] != expected[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private IOException malformed(String reason) {
+		return new IOException(String.format("Malformed reminder at line %d: %s", lineNumber, reason));
+	}
+}
@@ -0,0 +1,208 @@
+package reminder_storage;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import reminder_app.Priority;
+import reminder_app.Reminder;
+
+// Streaming writer of the individual-accounts csv files, the counterpart of
+// ReminderCsvReader. Every line is encoded into one reusable byte buffer, so
+// there is no String.format per reminder.
+public class ReminderCsvWriter implements Closeable, Flushable {
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final byte[][] PRIORITY_NAMES = new byte[Priority.values().length][];
+	private static final byte[] MARKED_TRUE = ", MARKED = true".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] MARKED_FALSE = ", MARKED = false".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ID_PREFIX = ", ID = ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] REPEAT_PREFIX = ", REPEAT = ".getBytes(StandardCharsets.US_ASCII);
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+	static {
+		for (Priority priority : Priority.values()) {
+			PRIORITY_NAMES[priority.ordinal()] = priority.name().getBytes(StandardCharsets.US_ASCII);
+		}
+	}
+
+	private final OutputStream out;
+	private byte[] buffer;
+	private int count;
+
+	public ReminderCsvWriter(OutputStream out) {
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+
+	public ReminderCsvWriter(OutputStream out, int bufferSize) {
+		this.out = out;
+		this.buffer = new byte[Math.max(bufferSize, 256)];
+	}
+
+	// Header of the snapshots written by the journal compaction
+	public void writeJournalSequence(long sequence) throws IOException {
+		writeBytes(String.format("# journal = %d", sequence).getBytes(StandardCharsets.US_ASCII));
+		writeBytes(LINE_SEPARATOR);
+	}
+
+	public void writeNextReminderId(long nextId) throws IOException {
+		writeBytes(String.format("# next id = %d", nextId).getBytes(StandardCharsets.US_ASCII));
+		writeBytes(LINE_SEPARATOR);
+	}
+
+	// The id is only written when the reminder has one, the recurrence when it
+	// is recurring
+	public void write(Reminder reminder) throws IOException {
+		writeDate(reminder.getDate());
+		writeAscii(',');
+		writeAscii(' ');
+		writeBytes(PRIORITY_NAMES[reminder.getPriority().ordinal()]);
+		writeAscii(',');
+		writeAscii(' ');
+		writeMessage(reminder.getMessage());
+		writeBytes(reminder.isCompleted() ? MARKED_TRUE : MARKED_FALSE);
+		if (reminder.getId() > 0) {
+			writeBytes(ID_PREFIX);
+			writeLong(reminder.getId());
+		}
+		if (reminder.isRecurring()) {
+			writeBytes(REPEAT_PREFIX);
+			writeBytes(reminder.getRecurrence().toString().getBytes(StandardCharsets.US_ASCII));
+		}
+		writeBytes(LINE_SEPARATOR);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (count > 0) {
+			out.write(buffer, 0, count);
+			count = 0;
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			out.close();
+		}
+	}
+
+	// yyyy-MM-dd, the same as LocalDate.toString() for the years 0 to 9999
+	private void writeDate(LocalDate date) throws IOException {
+		int year = date.getYear();
+		if (year < 0 || year > 9999) {
+			throw new IOException("Due date is out of range: " + date);
+		}
+
+		ensureCapacity(10);
+		writeDigits(year, 4);
+		buffer[count++] = '-';
+		writeDigits(date.getMonthValue(), 2);
+		buffer[count++] = '-';
+		writeDigits(date.getDayOfMonth(), 2);
+	}
+
+	private void writeLong(long value) throws IOException {
+		int width = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10) {
+			width++;
+		}
+
+		ensureCapacity(width);
+		for (int i = count + width - 1; i >= count; i--) {
+			buffer[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		count += width;
+	}
+
+	private void writeDigits(int value, int width) {
+		for (int i = count + width - 1; i >= count; i--) {
+			buffer[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		count += width;
+	}
+
+	// UTF-8 encoding of the message, escaping the commas and backslashes.
+	// A line break would end the line, so \n, \r, \t and the other control
+	// characters (a backslash, u and 4 hex digits) are escaped too.
+	private void writeMessage(String message) throws IOException {
+		int length = message.length();
+		for (int i = 0; i < length; i++) {
+			char c = message.charAt(i);
+
+			if (c == ',' || c == '\\') {
+				writeAscii('\\');
+				writeAscii(c);
+			} else if (c < 0x20 || c == 0x7F) {
+				writeControl(c);
+			} else if (c < 0x80) {
+				writeAscii(c);
+			} else if (c < 0x800) {
+				ensureCapacity(2);
+				buffer[count++] = (byte) (0xC0 | (c >> 6));
+				buffer[count++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(message.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, message.charAt(++i));
+				ensureCapacity(4);
+				buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+				buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// Unpaired surrogate, the same replacement as String.getBytes()
+				writeAscii('?');
+			} else {
+				ensureCapacity(3);
+				buffer[count++] = (byte) (0xE0 | (c >> 12));
+				buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buffer[count++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	private void writeControl(char c) throws IOException {
+		writeAscii('\\');
+		if (c == '\n') {
+			writeAscii('n');
+		} else if (c == '\r') {
+			writeAscii('r');
+		} else if (c == '\t') {
+			writeAscii('t');
+		} else {
+			ensureCapacity(5);
+			buffer[count++] = 'u';
+			buffer[count++] = '0';
+			buffer[count++] = '0';
+			buffer[count++] = (byte) HEX_DIGITS[c >> 4];
+			buffer[count++] = (byte) HEX_DIGITS[c & 0xF];
+		}
+	}
+
+	private void writeAscii(char c) throws IOException {
+		ensureCapacity(1);
+		buffer[count++] = (byte) c;
+	}
+
+	private void writeBytes(byte[] bytes) throws IOException {
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, count, bytes.length);
+		count += bytes.length;
+	}
+
+	private void ensureCapacity(int needed) throws IOException {
+		if (buffer.length - count < needed) {
+			out.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+}
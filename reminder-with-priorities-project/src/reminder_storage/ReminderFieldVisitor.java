@@ -0,0 +1,12 @@
+package reminder_storage;
+
+import reminder_app.Priority;
+
+// The fields of one reminder of a snapshot, for the scans that only count or
+// filter the reminders (ex. ReminderStatistics). No Reminder is made, the
+// message and the recurrence are not read.
+@FunctionalInterface
+public interface ReminderFieldVisitor {
+	// The id is 0 in the files before the ids
+	void reminder(long id, long dueEpochDay, Priority priority, boolean completed);
+}
@@ -0,0 +1,55 @@
+package reminder_storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import reminder_app.Reminder;
+
+// Command line tool for migrating the snapshots between csv and binary.
+// The format is based on the extension (.txt or .rwb), the header (journal
+// sequence, next id) is kept so the journal of the user still applies on the
+// converted file.
+//
+// java reminder_storage.ReminderFormatConverter email.txt email.rwb   (import)
+// java reminder_storage.ReminderFormatConverter email.rwb email.txt   (export)
+public class ReminderFormatConverter {
+
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.out.println("Usage : ReminderFormatConverter <from .txt|.rwb> <to .txt|.rwb>");
+			return;
+		}
+
+		try {
+			int count = convert(Paths.get(args[0]), Paths.get(args[1]));
+			System.out.printf("Converted %d reminders to %s%n", count, args[1]);
+		} catch (IOException e) {
+			System.out.println("An error occurred: " + e.getMessage());
+		}
+	}
+
+	public static int convert(Path from, Path to) throws IOException {
+		SnapshotFormat fromFormat = formatOf(from);
+		SnapshotFormat toFormat = formatOf(to);
+
+		List<Reminder> reminders = new ArrayList<>();
+		SnapshotHeader header = Files.size(from) == 0 ? SnapshotHeader.EMPTY : fromFormat.read(from, reminders::add);
+		toFormat.write(to, reminders, header);
+
+		return reminders.size();
+	}
+
+	private static SnapshotFormat formatOf(Path file) throws IOException {
+		for (SnapshotFormat format : SnapshotFormat.values()) {
+			if (file.getFileName().toString().endsWith(format.getExtension())) {
+				return format;
+			}
+		}
+
+		throw new IOException("Unknown reminder file extension: " + file);
+	}
+}
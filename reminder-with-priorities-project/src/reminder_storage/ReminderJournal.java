@@ -0,0 +1,718 @@
+package reminder_storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+import reminder_app.Priority;
+import reminder_app.Reminder;
+import reminder_storage.JournalRecord.Operation;
+
+// Append-only journal of the modifications of one user, next to the snapshot
+// (the csv or binary file of the user).
+//
+// individual-accounts/3f/a2/email.txt           csv snapshot
+// individual-accounts/3f/a2/email.rwb           binary snapshot, see SnapshotFormat
+// individual-accounts/3f/a2/email.journal       records after the snapshot
+// individual-accounts/3f/a2/email.journal.<seq> rotated, waiting for compaction
+// (the directory and the name of the user are given by AccountDirectory)
+//
+// Records are buffered until commit(), then appended and forced to the disk at
+// once, so saving costs only the size of the modifications. The compaction
+// writes a new snapshot in the background and removes the folded records.
+// A group commit (see ReminderWriteBehind) splits commit() in writePending()
+// and force(), on another thread than the modifications : the pending records
+// are guarded by the journal, the file by channelLock (taken first).
+// A load or a replace() of a user waits for the compaction of that user that
+// is still running, from any journal of the JVM. It would otherwise delete the
+// temporary snapshot being written, or list a segment the compaction removes.
+public class ReminderJournal implements Closeable {
+	// Record : int length, payload, int crc32 of the payload
+	// Payload : long sequence, byte operation, (long reminder id), reminder, (recurrence), new value
+	// The operation has this bit when the record has the id, the older records
+	// doesn't have it.
+	private static final int HAS_ID = 0x80;
+	// And this one when the reminder is recurring, its recurrence follows the
+	// reminder (see RecurrenceFormat)
+	private static final int HAS_RECURRENCE = 0x40;
+	private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+	// The journal is folded when it is bigger than half of the snapshot
+	private static final long MIN_COMPACTION_BYTES = 64 * 1024;
+
+	private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "reminder-journal-compactor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Compactions that are still running, by user (the snapshot path without the
+	// extension). Removed when they finish.
+	private static final ConcurrentHashMap<Path, CompletableFuture<Void>> RUNNING_COMPACTIONS = new ConcurrentHashMap<>();
+	private static final CompletableFuture<Void> NO_COMPACTION = CompletableFuture.completedFuture(null);
+
+	private final Path directory;
+	private final String baseName;
+	private final Path journalPath;
+
+	// Format of the snapshots written by the compaction, null to keep the format
+	// of the snapshot on disk
+	private final SnapshotFormat snapshotFormat;
+
+	private final Object channelLock = new Object();
+	private FileChannel channel;
+	// Written but not forced yet
+	private boolean unforced;
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+	private final DataOutputStream recordOut = new DataOutputStream(recordBuffer);
+	private final CRC32 crc = new CRC32();
+
+	private long nextSequence = 1;
+	private volatile long journalBytes;
+	private volatile long snapshotBytes;
+	private final AtomicBoolean compacting = new AtomicBoolean(false);
+
+	// Totals for the metrics, the compactor thread writes too
+	private final AtomicLong bytesRead = new AtomicLong();
+	private final AtomicLong bytesWritten = new AtomicLong();
+
+	// Told about every write, with the number of bytes
+	private volatile LongConsumer writeListener = bytes -> {
+	};
+
+	// Set by replay(), the last sequence that has been read
+	private long lastReplayedSequence;
+
+	public ReminderJournal(String snapshotFilePath) {
+		this(snapshotFilePath, SnapshotFormat.configured());
+	}
+
+	// The path can have any snapshot extension, the format is found when loading.
+	// A null format keeps the format on disk (see SnapshotFormat.configured()).
+	public ReminderJournal(String snapshotFilePath, SnapshotFormat snapshotFormat) {
+		Path snapshotPath = Paths.get(snapshotFilePath).toAbsolutePath();
+		this.directory = snapshotPath.getParent();
+		this.snapshotFormat = snapshotFormat;
+
+		String fileName = snapshotPath.getFileName().toString();
+		int extension = fileName.lastIndexOf('.');
+		this.baseName = extension > 0 ? fileName.substring(0, extension) : fileName;
+		this.journalPath = directory.resolve(baseName + ".journal");
+	}
+
+	@FunctionalInterface
+	public interface RecordHandler {
+		void apply(JournalRecord record) throws IOException;
+	}
+
+	// Reads the snapshot, then gives every committed record after it
+	// Returns the header of the snapshot
+	public SnapshotHeader load(Consumer<Reminder> snapshotReminders, RecordHandler records) throws IOException {
+		awaitCompaction();
+
+		// Leftover of a compaction that didn't finish (a crash)
+		for (SnapshotFormat format : SnapshotFormat.values()) {
+			Files.deleteIfExists(temporaryPath(format));
+		}
+
+		SnapshotFormat format = currentSnapshotFormat();
+		if (format == null) {
+			// Same as before, the user doesn't have a reminder file
+			throw new FileNotFoundException(snapshotPath(SnapshotFormat.CSV).toString());
+		}
+
+		SnapshotHeader header = format.read(snapshotPath(format), snapshotReminders);
+		long snapshotSequence = header.getJournalSequence();
+		snapshotBytes = Files.size(snapshotPath(format));
+		bytesRead.addAndGet(snapshotBytes);
+
+		long lastSequence = snapshotSequence;
+		journalBytes = 0;
+
+		List<Path> segments = rotatedSegments();
+		segments.add(journalPath);
+		for (Path segment : segments) {
+			if (!Files.exists(segment)) {
+				continue;
+			}
+
+			long validLength = replay(segment, snapshotSequence, records);
+			lastSequence = Math.max(lastSequence, lastReplayedSequence);
+
+			// A crash in the middle of an append leaves a partial record at the end
+			if (validLength < Files.size(segment)) {
+				try (FileChannel torn = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+					torn.truncate(validLength);
+				}
+			}
+			journalBytes += validLength;
+			bytesRead.addAndGet(validLength);
+		}
+
+		nextSequence = lastSequence + 1;
+		return header;
+	}
+
+	// Read-only load, for the statistics of every user (see ReminderStatistics) :
+	// the records after the snapshot are given first, then the fields of the
+	// snapshot, no Reminder is made for them. Nothing is deleted or truncated,
+	// the user can be loaded by a manager at the same time.
+	public SnapshotHeader scan(RecordHandler records, ReminderFieldVisitor snapshotFields) throws IOException {
+		SnapshotFormat format = currentSnapshotFormat();
+		if (format == null) {
+			throw new FileNotFoundException(snapshotPath(SnapshotFormat.CSV).toString());
+		}
+
+		Path snapshot = snapshotPath(format);
+		long snapshotSequence = Files.size(snapshot) == 0 ? 0 : format.readJournalSequence(snapshot);
+
+		List<Path> segments = rotatedSegments();
+		segments.add(journalPath);
+		for (Path segment : segments) {
+			// A torn record ends the segment, like in load()
+			if (Files.exists(segment)) {
+				replay(segment, snapshotSequence, records);
+			}
+		}
+
+		SnapshotHeader header = format.scan(snapshot, snapshotFields);
+		if (header.getJournalSequence() != snapshotSequence) {
+			// Compacted in between, the records don't go with this snapshot
+			throw new IOException("The snapshot changed during the scan: " + snapshot);
+		}
+		return header;
+	}
+
+	// Every file of the user that exists : snapshots, rotated journals, journal
+	public List<Path> files() throws IOException {
+		List<Path> files = new ArrayList<>();
+		if (!Files.isDirectory(directory)) {
+			// The user doesn't have a reminder file
+			return files;
+		}
+
+		for (SnapshotFormat format : SnapshotFormat.values()) {
+			if (Files.exists(snapshotPath(format))) {
+				files.add(snapshotPath(format));
+			}
+		}
+		files.addAll(rotatedSegments());
+		if (Files.exists(journalPath)) {
+			files.add(journalPath);
+		}
+		return files;
+	}
+
+	public void logAdd(Reminder added) {
+		append(Operation.ADD, added, null, null, null);
+	}
+
+	public void logDelete(Reminder deleted) {
+		append(Operation.DELETE, deleted, null, null, null);
+	}
+
+	// The reminders should be logged before they are changed
+	public void logMark(Reminder beforeMark) {
+		append(Operation.MARK, beforeMark, null, null, null);
+	}
+
+	public void logPriority(Reminder beforeChange, Priority newPriority) {
+		append(Operation.PRIORITY, beforeChange, newPriority, null, null);
+	}
+
+	public void logDueDate(Reminder beforeChange, LocalDate newDueDate) {
+		append(Operation.DUE_DATE, beforeChange, null, newDueDate, null);
+	}
+
+	public void logMessage(Reminder beforeChange, String newMessage) {
+		append(Operation.MESSAGE, beforeChange, null, null, newMessage);
+	}
+
+	public void logMarkOccurrence(Reminder beforeMark, LocalDate occurrence) {
+		append(Operation.MARK_OCCURRENCE, beforeMark, null, occurrence, null);
+	}
+
+	public synchronized boolean hasPendingRecords() {
+		return pending.size() > 0;
+	}
+
+	// Appends the pending records, then forces them to the disk
+	public void commit() throws IOException {
+		synchronized (channelLock) {
+			writePending();
+			force();
+		}
+	}
+
+	// Appends the pending records without forcing them, returns the number of
+	// bytes. The records stay pending if the write fails.
+	public long writePending() throws IOException {
+		synchronized (channelLock) {
+			byte[] records = takePending();
+			if (records.length == 0) {
+				return 0;
+			}
+
+			try {
+				if (channel == null) {
+					channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+							StandardOpenOption.APPEND);
+				}
+
+				ByteBuffer bytes = ByteBuffer.wrap(records);
+				while (bytes.hasRemaining()) {
+					channel.write(bytes);
+				}
+			} catch (IOException e) {
+				restorePending(records);
+				throw e;
+			}
+			unforced = true;
+
+			journalBytes += records.length;
+			bytesWritten.addAndGet(records.length);
+			writeListener.accept(records.length);
+			return records.length;
+		}
+	}
+
+	// Forces the written records to the disk
+	public void force() throws IOException {
+		synchronized (channelLock) {
+			if (unforced && channel != null) {
+				channel.force(false);
+			}
+			unforced = false;
+		}
+	}
+
+	// Pending records are dropped, like unsaved modifications
+	public synchronized void discardPending() {
+		pending.reset();
+	}
+
+	public boolean shouldCompact() {
+		return !compacting.get() && journalBytes > Math.max(MIN_COMPACTION_BYTES, snapshotBytes / 2);
+	}
+
+	// The reminders must be an independent copy of the committed state, they will be
+	// written on the compactor thread
+	public void compact(List<Reminder> committedReminders, long nextReminderId) throws IOException {
+		if (hasPendingRecords()) {
+			throw new IOException("Commit the journal before compacting it");
+		}
+
+		if (!compacting.compareAndSet(false, true)) {
+			return;
+		}
+
+		long foldedSequence;
+		synchronized (this) {
+			foldedSequence = nextSequence - 1;
+		}
+		try {
+			// New commits will go to a fresh journal while the compactor works
+			synchronized (channelLock) {
+				closeChannel();
+				if (Files.exists(journalPath)) {
+					Files.move(journalPath, directory.resolve(baseName + ".journal." + foldedSequence),
+							StandardCopyOption.ATOMIC_MOVE);
+				}
+				journalBytes = 0;
+			}
+		} catch (IOException e) {
+			compacting.set(false);
+			throw e;
+		}
+
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		RUNNING_COMPACTIONS.put(userKey(), done);
+		COMPACTOR.execute(() -> {
+			try {
+				writeSnapshot(committedReminders, new SnapshotHeader(foldedSequence, nextReminderId));
+				deleteSegmentsUpTo(foldedSequence);
+			} catch (IOException e) {
+				// The rotated journal is kept, it will be replayed on the next load
+				e.printStackTrace();
+			} finally {
+				compacting.set(false);
+				RUNNING_COMPACTIONS.remove(userKey(), done);
+				done.complete(null);
+			}
+		});
+	}
+
+	public boolean isCompacting() {
+		return compacting.get();
+	}
+
+	// Completed when the running compaction of the user has finished, right away
+	// if there is none. It never fails, a failed compaction is retried later.
+	public CompletableFuture<Void> compaction() {
+		return RUNNING_COMPACTIONS.getOrDefault(userKey(), NO_COMPACTION);
+	}
+
+	// Snapshot and journal bytes read by the loads
+	public long getBytesRead() {
+		return bytesRead.get();
+	}
+
+	// Journal commits and snapshots written by the compactions
+	public long getBytesWritten() {
+		return bytesWritten.get();
+	}
+
+	// The snapshots are written on the compactor thread, the listener should be thread-safe
+	public void setWriteListener(LongConsumer writeListener) {
+		this.writeListener = writeListener;
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (channelLock) {
+			discardPending();
+			closeChannel();
+		}
+	}
+
+	// Replaces every file of the user by a snapshot of the reminders (ex. a bulk
+	// import). The journal is removed first : a crash in between leaves the old
+	// snapshot alone, never old records on the new one. The user must not be loaded.
+	public void replace(List<Reminder> reminders, long nextReminderId) throws IOException {
+		awaitCompaction();
+
+		synchronized (channelLock) {
+			discardPending();
+			closeChannel();
+			for (Path segment : rotatedSegments()) {
+				Files.deleteIfExists(segment);
+			}
+			Files.deleteIfExists(journalPath);
+			journalBytes = 0;
+		}
+		synchronized (this) {
+			nextSequence = 1;
+		}
+
+		writeSnapshot(reminders, new SnapshotHeader(0, nextReminderId));
+	}
+
+	private void awaitCompaction() {
+		CompletableFuture<Void> running;
+		while ((running = RUNNING_COMPACTIONS.get(userKey())) != null) {
+			running.join();
+		}
+	}
+
+	private Path userKey() {
+		return directory.resolve(baseName);
+	}
+
+	private synchronized byte[] takePending() {
+		byte[] records = pending.toByteArray();
+		pending.reset();
+		return records;
+	}
+
+	// Puts back records that couldn't be written, before the newer ones
+	private synchronized void restorePending(byte[] records) {
+		byte[] newer = pending.toByteArray();
+		pending.reset();
+		pending.write(records, 0, records.length);
+		pending.write(newer, 0, newer.length);
+	}
+
+	// Only encodes into memory, the records are written by commit()
+	private synchronized void append(Operation operation, Reminder target, Priority newPriority, LocalDate newDueDate,
+			String newMessage) {
+		try {
+			encode(operation, target, newPriority, newDueDate, newMessage);
+		} catch (IOException e) {
+			// Not expected from a ByteArrayOutputStream
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void encode(Operation operation, Reminder target, Priority newPriority, LocalDate newDueDate,
+			String newMessage) throws IOException {
+		recordBuffer.reset();
+		recordOut.writeLong(nextSequence++);
+		recordOut.writeByte(operation.ordinal() | HAS_ID | (target.isRecurring() ? HAS_RECURRENCE : 0));
+		recordOut.writeLong(target.getId());
+		writeReminder(target);
+		if (target.isRecurring()) {
+			RecurrenceFormat.write(recordOut, target.getRecurrence());
+		}
+
+		switch (operation) {
+		case PRIORITY:
+			recordOut.writeByte(newPriority.ordinal());
+			break;
+		case DUE_DATE:
+		case MARK_OCCURRENCE:
+			recordOut.writeLong(newDueDate.toEpochDay());
+			break;
+		case MESSAGE:
+			writeString(newMessage);
+			break;
+		default:
+			break;
+		}
+
+		crc.reset();
+		crc.update(recordBuffer.toByteArray());
+
+		DataOutputStream out = new DataOutputStream(pending);
+		out.writeInt(recordBuffer.size());
+		recordBuffer.writeTo(out);
+		out.writeInt((int) crc.getValue());
+	}
+
+	private void writeReminder(Reminder reminder) throws IOException {
+		recordOut.writeLong(reminder.getDate().toEpochDay());
+		recordOut.writeByte(reminder.getPriority().ordinal());
+		recordOut.writeBoolean(reminder.isCompleted());
+		writeString(reminder.getMessage());
+	}
+
+	private void writeString(String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		recordOut.writeInt(bytes.length);
+		recordOut.write(bytes);
+	}
+
+	// Returns the length of the valid records, the rest is a torn write
+	private long replay(Path segment, long afterSequence, RecordHandler records) throws IOException {
+		long validLength = 0;
+		lastReplayedSequence = 0;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+			while (true) {
+				byte[] payload;
+				try {
+					int length = in.readInt();
+					if (length <= 0 || length > MAX_RECORD_LENGTH) {
+						break;
+					}
+
+					payload = new byte[length];
+					in.readFully(payload);
+
+					crc.reset();
+					crc.update(payload);
+					if (in.readInt() != (int) crc.getValue()) {
+						break;
+					}
+				} catch (EOFException e) {
+					break;
+				}
+
+				JournalRecord record = readRecord(payload);
+				lastReplayedSequence = record.getSequence();
+				validLength += 8 + payload.length;
+
+				if (record.getSequence() > afterSequence) {
+					records.apply(record);
+				}
+			}
+		}
+
+		return validLength;
+	}
+
+	private JournalRecord readRecord(byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+		long sequence = in.readLong();
+		int operationByte = in.readUnsignedByte();
+		Operation operation = Operation.values()[operationByte & ~(HAS_ID | HAS_RECURRENCE)];
+		long id = (operationByte & HAS_ID) != 0 ? in.readLong() : 0;
+		Reminder target = readReminder(in, id);
+		if ((operationByte & HAS_RECURRENCE) != 0) {
+			target.setRecurrence(RecurrenceFormat.read(in));
+		}
+
+		Priority newPriority = null;
+		LocalDate newDueDate = null;
+		String newMessage = null;
+		switch (operation) {
+		case PRIORITY:
+			newPriority = Priority.values()[in.readUnsignedByte()];
+			break;
+		case DUE_DATE:
+		case MARK_OCCURRENCE:
+			newDueDate = LocalDate.ofEpochDay(in.readLong());
+			break;
+		case MESSAGE:
+			newMessage = readString(in);
+			break;
+		default:
+			break;
+		}
+
+		return new JournalRecord(sequence, operation, target, newPriority, newDueDate, newMessage);
+	}
+
+	private static Reminder readReminder(DataInputStream in, long id) throws IOException {
+		LocalDate dueDate = LocalDate.ofEpochDay(in.readLong());
+		Priority priority = Priority.values()[in.readUnsignedByte()];
+		boolean isCompleted = in.readBoolean();
+		String message = readString(in);
+
+		return new Reminder(id, dueDate, priority, message, isCompleted);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private void writeSnapshot(List<Reminder> reminders, SnapshotHeader header) throws IOException {
+		SnapshotFormat format = snapshotFormat != null ? snapshotFormat : formatOnDisk();
+		Path temporary = temporaryPath(format);
+		Path snapshotPath = snapshotPath(format);
+
+		format.write(temporary, reminders, header);
+		Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		snapshotBytes = Files.size(snapshotPath);
+		bytesWritten.addAndGet(snapshotBytes);
+		writeListener.accept(snapshotBytes);
+
+		// The snapshot of the other format is outdated now (ex. csv migrated to binary)
+		for (SnapshotFormat other : SnapshotFormat.values()) {
+			if (other != format) {
+				Files.deleteIfExists(snapshotPath(other));
+			}
+		}
+	}
+
+	// The format of the existing snapshot. The empty csv of a new account has
+	// nothing to keep, it gets the default format.
+	private SnapshotFormat formatOnDisk() throws IOException {
+		SnapshotFormat current = currentSnapshotFormat();
+		if (current == null || Files.size(snapshotPath(current)) == 0) {
+			return SnapshotFormat.DEFAULT;
+		}
+		return current;
+	}
+
+	// The existing snapshot, if a crash happened before the old format has been
+	// deleted, the one with the latest journal sequence wins (binary on a tie)
+	private SnapshotFormat currentSnapshotFormat() throws IOException {
+		SnapshotFormat current = null;
+		long currentSequence = -1;
+
+		for (SnapshotFormat format : SnapshotFormat.values()) {
+			Path path = snapshotPath(format);
+			if (!Files.exists(path)) {
+				continue;
+			}
+
+			long sequence = Files.size(path) == 0 ? 0 : format.readJournalSequence(path);
+			if (sequence >= currentSequence) {
+				current = format;
+				currentSequence = sequence;
+			}
+		}
+
+		return current;
+	}
+
+	private Path snapshotPath(SnapshotFormat format) {
+		return directory.resolve(baseName + format.getExtension());
+	}
+
+	private void deleteSegmentsUpTo(long foldedSequence) throws IOException {
+		for (Path segment : rotatedSegments()) {
+			if (segmentSequence(segment) <= foldedSequence) {
+				Files.deleteIfExists(segment);
+			}
+		}
+	}
+
+	// Rotated journals, oldest first
+	private List<Path> rotatedSegments() throws IOException {
+		List<Path> segments = new ArrayList<>();
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, escapeGlob(baseName) + ".journal.*")) {
+			for (Path segment : stream) {
+				if (segmentSequence(segment) >= 0) {
+					segments.add(segment);
+				}
+			}
+		}
+
+		segments.sort((s1, s2) -> Long.compare(segmentSequence(s1), segmentSequence(s2)));
+		return segments;
+	}
+
+	private long segmentSequence(Path segment) {
+		String suffix = segment.getFileName().toString().substring(baseName.length() + ".journal.".length());
+		try {
+			return Long.parseLong(suffix);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static String escapeGlob(String value) {
+		StringBuilder escaped = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if ("*?[]{}\\".indexOf(c) >= 0) {
+				escaped.append('\\');
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+
+	private Path temporaryPath(SnapshotFormat format) {
+		return directory.resolve(baseName + format.getExtension() + ".tmp");
+	}
+
+	// Under channelLock, the written records are forced before closing
+	private void closeChannel() throws IOException {
+		if (channel != null) {
+			try {
+				if (unforced) {
+					channel.force(false);
+				}
+			} finally {
+				unforced = false;
+				channel.close();
+				channel = null;
+			}
+		}
+	}
+}
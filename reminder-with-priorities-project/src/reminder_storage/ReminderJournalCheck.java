@@ -0,0 +1,92 @@
+package reminder_storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import reminder_app.Priority;
+import reminder_app.Reminder;
+import reminder_app.ReminderManager;
+import reminder_app.ReminderStoreType;
+
+// Runnable check of a reload right after a save that starts a compaction, for
+// both stores and both snapshot formats. The new manager should wait for the
+// compaction of the user, then see every saved reminder :
+// - the load doesn't delete the temporary snapshot being written
+// - the load doesn't miss the records of a segment the compaction folds
+// - the compaction still finishes, no rotated segment is left behind
+//
+// java reminder_storage.ReminderJournalCheck [rounds]
+//
+// Throws on the first failure. The accounts are made in a temporary directory.
+public class ReminderJournalCheck {
+	private static final String EMAIL = "journal@check.com";
+	// Enough records to go over the compaction threshold of the journal
+	private static final int REMINDERS_PER_ROUND = 1500;
+
+	public static void main(String[] args) throws Exception {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+		for (ReminderStoreType storeType : ReminderStoreType.values()) {
+			for (SnapshotFormat format : SnapshotFormat.values()) {
+				System.setProperty(SnapshotFormat.FORMAT_PROPERTY, format.name());
+				run(storeType, rounds);
+				System.out.println("  ok : " + storeType + ", " + format + ", " + rounds + " reloads during a compaction");
+			}
+		}
+		System.clearProperty(SnapshotFormat.FORMAT_PROPERTY);
+		System.out.println("Every check passed");
+	}
+
+	private static void run(ReminderStoreType storeType, int rounds) throws IOException {
+		Path directory = Files.createTempDirectory("reminder-journal-check");
+		Path snapshot = AccountDirectory.of(directory.toString()).createAccount(EMAIL);
+		LocalDate dueDate = LocalDate.now().plusDays(1);
+
+		ReminderManager manager = new ReminderManager(EMAIL, directory.toString(), storeType);
+		for (int round = 0; round < rounds; round++) {
+			// The same size every round, so every save is over the threshold
+			manager.deleteIf(reminder -> true);
+			for (int i = 0; i < REMINDERS_PER_ROUND; i++) {
+				manager.addReminder(new Reminder(dueDate, Priority.values()[i % 3],
+						"Round " + round + " reminder " + i + " with a message long enough to fill the journal"));
+			}
+			manager.saveReminders();
+
+			List<String> saved = describe(manager);
+			manager.logout();
+
+			// Right away, while the compaction runs
+			manager = new ReminderManager(EMAIL, directory.toString(), storeType);
+			List<String> reloaded = describe(manager);
+			check(saved.equals(reloaded), "round " + round + " reloads the " + saved.size() + " saved reminders (got "
+					+ reloaded.size() + ")");
+
+			ReminderJournal journal = new ReminderJournal(snapshot.toString());
+			journal.compaction().join();
+			for (Path file : journal.files()) {
+				check(!file.getFileName().toString().contains(".journal."),
+						"round " + round + " folds the rotated segment " + file.getFileName());
+			}
+		}
+		manager.logout();
+	}
+
+	private static List<String> describe(ReminderManager manager) {
+		List<String> reminders = new ArrayList<>();
+		for (Reminder reminder : manager.getReminders()) {
+			reminders.add(reminder.getId() + " " + reminder);
+		}
+		reminders.sort(null);
+		return reminders;
+	}
+
+	private static void check(boolean passed, String description) {
+		if (!passed) {
+			throw new IllegalStateException("Failed : " + description);
+		}
+	}
+}
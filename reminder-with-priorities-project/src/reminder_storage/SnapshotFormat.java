@@ -0,0 +1,121 @@
+package reminder_storage;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+import reminder_app.Reminder;
+
+// File formats of the reminder snapshots.
+// The csv is the original format, it stays readable for import and export.
+// The binary is smaller and faster to load, see ReminderBinaryFormat.
+public enum SnapshotFormat {
+	CSV(".txt") {
+		@Override
+		public SnapshotHeader read(Path file, Consumer<Reminder> reminders) throws IOException {
+			try (ReminderCsvReader reader = new ReminderCsvReader(new FileInputStream(file.toFile()))) {
+				Reminder reminder;
+				while ((reminder = reader.next()) != null) {
+					reminders.accept(reminder);
+				}
+				return new SnapshotHeader(reader.getJournalSequence(), reader.getNextReminderId());
+			}
+		}
+
+		@Override
+		public SnapshotHeader scan(Path file, ReminderFieldVisitor fields) throws IOException {
+			try (ReminderCsvReader reader = new ReminderCsvReader(new FileInputStream(file.toFile()))) {
+				reader.scan(fields);
+				return new SnapshotHeader(reader.getJournalSequence(), reader.getNextReminderId());
+			}
+		}
+
+		@Override
+		public long readJournalSequence(Path file) throws IOException {
+			// The header is on the first line
+			try (ReminderCsvReader reader = new ReminderCsvReader(new FileInputStream(file.toFile()), 256)) {
+				reader.next();
+				return reader.getJournalSequence();
+			}
+		}
+
+		@Override
+		public void write(Path file, List<Reminder> reminders, SnapshotHeader header) throws IOException {
+			try (FileOutputStream out = new FileOutputStream(file.toFile());
+					ReminderCsvWriter writer = new ReminderCsvWriter(out)) {
+				if (header.getJournalSequence() > 0) {
+					writer.writeJournalSequence(header.getJournalSequence());
+				}
+				if (header.getNextReminderId() > 0) {
+					writer.writeNextReminderId(header.getNextReminderId());
+				}
+				for (Reminder reminder : reminders) {
+					writer.write(reminder);
+				}
+				writer.flush();
+				out.getFD().sync();
+			}
+		}
+	},
+
+	BINARY(".rwb") {
+		@Override
+		public SnapshotHeader read(Path file, Consumer<Reminder> reminders) throws IOException {
+			return ReminderBinaryFormat.read(file, reminders);
+		}
+
+		@Override
+		public SnapshotHeader scan(Path file, ReminderFieldVisitor fields) throws IOException {
+			return ReminderBinaryFormat.scan(file, fields);
+		}
+
+		@Override
+		public long readJournalSequence(Path file) throws IOException {
+			return ReminderBinaryFormat.readJournalSequence(file);
+		}
+
+		@Override
+		public void write(Path file, List<Reminder> reminders, SnapshotHeader header) throws IOException {
+			ReminderBinaryFormat.write(file, reminders, header);
+		}
+	};
+
+	// Format of the snapshots, -Dreminder.snapshot.format=binary migrates every
+	// compacted account to binary (csv back to csv). Without it, an account keeps
+	// the format it has on disk.
+	public static final String FORMAT_PROPERTY = "reminder.snapshot.format";
+
+	// Format of the accounts that don't have a snapshot yet (or an empty one)
+	public static final SnapshotFormat DEFAULT = BINARY;
+
+	private final String extension;
+
+	private SnapshotFormat(String extension) {
+		this.extension = extension;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	public abstract SnapshotHeader read(Path file, Consumer<Reminder> reminders) throws IOException;
+
+	// The fields of every reminder, without making them (see ReminderFieldVisitor)
+	public abstract SnapshotHeader scan(Path file, ReminderFieldVisitor fields) throws IOException;
+
+	public abstract long readJournalSequence(Path file) throws IOException;
+
+	public abstract void write(Path file, List<Reminder> reminders, SnapshotHeader header) throws IOException;
+
+	// Null if no format has been configured
+	public static SnapshotFormat configured() {
+		String format = System.getProperty(FORMAT_PROPERTY);
+		if (format == null) {
+			return null;
+		}
+		return format.equalsIgnoreCase(CSV.name()) ? CSV : BINARY;
+	}
+}
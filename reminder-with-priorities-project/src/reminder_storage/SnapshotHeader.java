@@ -0,0 +1,25 @@
+package reminder_storage;
+
+// What a snapshot knows besides its reminders.
+// The journal sequence tells which journal records are already in the snapshot.
+// The next reminder id is kept so the id of a deleted reminder is never given
+// again, 0 for the old files that didn't have ids.
+public class SnapshotHeader {
+	public static final SnapshotHeader EMPTY = new SnapshotHeader(0, 0);
+
+	private final long journalSequence;
+	private final long nextReminderId;
+
+	public SnapshotHeader(long journalSequence, long nextReminderId) {
+		this.journalSequence = journalSequence;
+		this.nextReminderId = nextReminderId;
+	}
+
+	public long getJournalSequence() {
+		return journalSequence;
+	}
+
+	public long getNextReminderId() {
+		return nextReminderId;
+	}
+}